@@ -0,0 +1,65 @@
+package org.kafka.template.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Coherent sets of Kafka client tuning, selected with {@code spring.kafka.performance.profile}.
+ * Producer batching is traded against send latency, and consumer fetch sizes against end-to-end latency.
+ */
+public enum KafkaPerformanceProfile {
+
+    LOW_LATENCY(
+            Map.of(
+                    ProducerConfig.LINGER_MS_CONFIG, 0,
+                    ProducerConfig.BATCH_SIZE_CONFIG, 16_384,
+                    ProducerConfig.COMPRESSION_TYPE_CONFIG, "none",
+                    ProducerConfig.BUFFER_MEMORY_CONFIG, 33_554_432L),
+            Map.of(
+                    ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 1,
+                    ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 10,
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100,
+                    ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 1_048_576)),
+
+    BALANCED(
+            Map.of(
+                    ProducerConfig.LINGER_MS_CONFIG, 5,
+                    ProducerConfig.BATCH_SIZE_CONFIG, 65_536,
+                    ProducerConfig.COMPRESSION_TYPE_CONFIG, "lz4",
+                    ProducerConfig.BUFFER_MEMORY_CONFIG, 67_108_864L),
+            Map.of(
+                    ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 16_384,
+                    ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 100,
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500,
+                    ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 1_048_576)),
+
+    HIGH_THROUGHPUT(
+            Map.of(
+                    ProducerConfig.LINGER_MS_CONFIG, 20,
+                    ProducerConfig.BATCH_SIZE_CONFIG, 262_144,
+                    ProducerConfig.COMPRESSION_TYPE_CONFIG, "zstd",
+                    ProducerConfig.BUFFER_MEMORY_CONFIG, 134_217_728L),
+            Map.of(
+                    ConsumerConfig.FETCH_MIN_BYTES_CONFIG, 262_144,
+                    ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, 500,
+                    ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 2_000,
+                    ConsumerConfig.MAX_PARTITION_FETCH_BYTES_CONFIG, 4_194_304));
+
+    private final Map<String, Object> producerConfig;
+    private final Map<String, Object> consumerConfig;
+
+    KafkaPerformanceProfile(Map<String, Object> producerConfig, Map<String, Object> consumerConfig) {
+        this.producerConfig = producerConfig;
+        this.consumerConfig = consumerConfig;
+    }
+
+    public Map<String, Object> getProducerConfig() {
+        return producerConfig;
+    }
+
+    public Map<String, Object> getConsumerConfig() {
+        return consumerConfig;
+    }
+}
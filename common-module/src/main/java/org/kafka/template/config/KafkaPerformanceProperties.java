@@ -0,0 +1,40 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka client tuning shared by the producer and consumer apps: the selected {@link KafkaPerformanceProfile}
+ * plus individual client properties that override it, e.g.
+ * <pre>
+ * spring.kafka.performance:
+ *   profile: high-throughput
+ *   producer:
+ *     "[linger.ms]": 50
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.performance")
+public class KafkaPerformanceProperties {
+
+    private KafkaPerformanceProfile profile = KafkaPerformanceProfile.BALANCED;
+    private Map<String, String> producer = new HashMap<>();
+    private Map<String, String> consumer = new HashMap<>();
+
+    public Map<String, Object> producerConfig() {
+        Map<String, Object> config = new HashMap<>(profile.getProducerConfig());
+        config.putAll(producer);
+        return config;
+    }
+
+    public Map<String, Object> consumerConfig() {
+        Map<String, Object> config = new HashMap<>(profile.getConsumerConfig());
+        config.putAll(consumer);
+        return config;
+    }
+}
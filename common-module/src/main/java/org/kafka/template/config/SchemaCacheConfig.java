@@ -0,0 +1,26 @@
+package org.kafka.template.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.kafka.template.schema.CachingSchemaRegistryClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class SchemaCacheConfig {
+
+    @Value("${spring.kafka.schema-registry-url}")
+    private String schemaRegistryUrl;
+
+    /**
+     * Handed to every JSON Schema serializer and deserializer, so that all of them share one schema cache.
+     */
+    @Bean
+    public CachingSchemaRegistryClient schemaRegistryClient(SchemaCacheProperties properties,
+                                                            MeterRegistry meterRegistry) {
+        CachingSchemaRegistryClient client = new CachingSchemaRegistryClient(schemaRegistryUrl, properties,
+                meterRegistry);
+        client.prewarm();
+        return client;
+    }
+}
@@ -0,0 +1,38 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Schema cache of the shared {@link org.kafka.template.schema.CachingSchemaRegistryClient}. Every subject listed
+ * is prewarmed at startup, from the registry or, when it cannot be reached, from its bundled snapshot, e.g.
+ * <pre>
+ * spring.kafka.schema-cache:
+ *   subjects:
+ *     user-created-value:
+ *       snapshot: schemas/user-schema.json
+ *       snapshot-id: 1
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.schema-cache")
+public class SchemaCacheProperties {
+
+    private int capacity = 1000;
+    private long latestTtlMs = 300_000;
+    private Map<String, Subject> subjects = new HashMap<>();
+
+    @Data
+    public static class Subject {
+
+        // Classpath location of the schema, registered under snapshot-id and snapshot-version in the registry
+        private String snapshot;
+        private int snapshotId = 1;
+        private int snapshotVersion = 1;
+    }
+}
@@ -0,0 +1,173 @@
+package org.kafka.template.schema;
+
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.CachedSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.kafka.template.config.SchemaCacheProperties;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Schema registry client shared by every JSON Schema serializer and deserializer of an application. Parsed schemas
+ * are kept by schema id, together with the validator each of them compiles on first use, so a record only costs a
+ * registry request the first time its schema id is seen.
+ * <p>
+ * The latest version of a subject is refreshed once latest-ttl-ms have passed. When the registry cannot be reached
+ * the version already known keeps being served, so producers and consumers carry on through a registry outage for
+ * every schema they have seen, or that was prewarmed from a bundled snapshot.
+ */
+@Slf4j
+public class CachingSchemaRegistryClient extends CachedSchemaRegistryClient {
+
+    private final SchemaCacheProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, ParsedSchema> schemasById = new ConcurrentHashMap<>();
+    private final Map<String, Integer> idsBySubjectAndSchema = new ConcurrentHashMap<>();
+    private final Map<String, Latest> latestBySubject = new ConcurrentHashMap<>();
+
+    public CachingSchemaRegistryClient(String schemaRegistryUrl, SchemaCacheProperties properties,
+                                       MeterRegistry meterRegistry) {
+        super(List.of(schemaRegistryUrl), properties.getCapacity(), List.of(new JsonSchemaProvider()), Map.of());
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        Gauge.builder("schema.registry.cache.schemas", schemasById, Map::size)
+                .description("Parsed schemas held by schema id")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the latest version of every configured subject. A subject whose registry lookup fails is loaded from its
+     * bundled snapshot instead, which is replaced by the registry's version as soon as the registry answers.
+     */
+    public void prewarm() {
+        properties.getSubjects().forEach((subject, snapshot) -> {
+            try {
+                SchemaMetadata latest = getLatestSchemaMetadata(subject);
+                log.info("Prewarmed schema {} version {} with id {}", subject, latest.getVersion(), latest.getId());
+            } catch (IOException | RestClientException e) {
+                if (snapshot.getSnapshot() == null) {
+                    log.warn("Schema {} could not be prewarmed and has no snapshot: {}", subject, e.getMessage());
+                    return;
+                }
+                loadSnapshot(subject, snapshot);
+                log.warn("Schema registry unavailable, loaded {} from snapshot {} as id {}: {}", subject,
+                        snapshot.getSnapshot(), snapshot.getSnapshotId(), e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public ParsedSchema getSchemaBySubjectAndId(String subject, int id) throws IOException, RestClientException {
+        ParsedSchema cached = schemasById.get(id);
+        if (cached != null) {
+            count("id", "hit");
+            return cached;
+        }
+        count("id", "miss");
+        ParsedSchema schema = fetchSchemaById(subject, id);
+        schemasById.put(id, schema);
+        return schema;
+    }
+
+    @Override
+    public SchemaMetadata getLatestSchemaMetadata(String subject) throws IOException, RestClientException {
+        Latest cached = latestBySubject.get(subject);
+        long now = System.currentTimeMillis();
+        if (cached != null && now - cached.loadedAt() < properties.getLatestTtlMs()) {
+            count("latest", "hit");
+            return cached.metadata();
+        }
+        try {
+            SchemaMetadata latest = fetchLatestSchemaMetadata(subject);
+            count("latest", "miss");
+            remember(subject, latest, now);
+            return latest;
+        } catch (IOException | RestClientException e) {
+            if (cached == null || !isUnavailable(e)) {
+                throw e;
+            }
+            count("latest", "stale");
+            // Asks the registry again once the TTL has passed, not on every record
+            latestBySubject.put(subject, new Latest(cached.metadata(), now));
+            log.warn("Schema registry unavailable, keeping version {} of {}: {}", cached.metadata().getVersion(),
+                    subject, e.getMessage());
+            return cached.metadata();
+        }
+    }
+
+    @Override
+    public int getId(String subject, ParsedSchema schema, boolean normalize) throws IOException, RestClientException {
+        String key = subject + ':' + schema.canonicalString();
+        Integer cached = idsBySubjectAndSchema.get(key);
+        if (cached != null) {
+            count("subject-id", "hit");
+            return cached;
+        }
+        count("subject-id", "miss");
+        int id = fetchId(subject, schema, normalize);
+        idsBySubjectAndSchema.put(key, id);
+        return id;
+    }
+
+    ParsedSchema fetchSchemaById(String subject, int id) throws IOException, RestClientException {
+        return super.getSchemaBySubjectAndId(subject, id);
+    }
+
+    SchemaMetadata fetchLatestSchemaMetadata(String subject) throws IOException, RestClientException {
+        return super.getLatestSchemaMetadata(subject);
+    }
+
+    int fetchId(String subject, ParsedSchema schema, boolean normalize) throws IOException, RestClientException {
+        return super.getId(subject, schema, normalize);
+    }
+
+    private void loadSnapshot(String subject, SchemaCacheProperties.Subject snapshot) {
+        try {
+            String schema = new ClassPathResource(snapshot.getSnapshot()).getContentAsString(StandardCharsets.UTF_8);
+            SchemaMetadata metadata = new SchemaMetadata(snapshot.getSnapshotId(), snapshot.getSnapshotVersion(),
+                    JsonSchema.TYPE, List.of(), schema);
+            // Already expired, so the registry's version replaces it with the first lookup it answers
+            remember(subject, metadata, 0);
+        } catch (IOException e) {
+            log.error("Schema snapshot {} of {} could not be read: {}", snapshot.getSnapshot(), subject, e.getMessage());
+        }
+    }
+
+    private void remember(String subject, SchemaMetadata metadata, long loadedAt) {
+        latestBySubject.put(subject, new Latest(metadata, loadedAt));
+        if (metadata.getSchemaType() == null || JsonSchema.TYPE.equals(metadata.getSchemaType())) {
+            JsonSchema schema = new JsonSchema(metadata.getSchema());
+            schemasById.putIfAbsent(metadata.getId(), schema);
+            idsBySubjectAndSchema.put(subject + ':' + schema.canonicalString(), metadata.getId());
+        }
+    }
+
+    // Connection failures and registry errors; a 4xx such as an unknown subject is an answer, not an outage
+    private static boolean isUnavailable(Exception e) {
+        return e instanceof IOException || ((RestClientException) e).getStatus() >= 500;
+    }
+
+    private void count(String lookup, String result) {
+        Counter.builder("schema.registry.cache.requests")
+                .description("Schema registry lookups answered by the schema cache (hit, stale) or the registry (miss)")
+                .tag("lookup", lookup)
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private record Latest(SchemaMetadata metadata, long loadedAt) {
+    }
+}
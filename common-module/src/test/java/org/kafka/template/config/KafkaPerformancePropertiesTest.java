@@ -0,0 +1,50 @@
+package org.kafka.template.config;
+
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.MapConfigurationPropertySource;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KafkaPerformancePropertiesTest {
+
+    @Test
+    void defaultsToBalancedProfile() {
+        KafkaPerformanceProperties properties = new KafkaPerformanceProperties();
+
+        assertEquals(KafkaPerformanceProfile.BALANCED.getProducerConfig(), properties.producerConfig());
+        assertEquals(KafkaPerformanceProfile.BALANCED.getConsumerConfig(), properties.consumerConfig());
+    }
+
+    @Test
+    void bindsProfileNameAndLetsSingleKeysOverrideIt() {
+        KafkaPerformanceProperties properties = bind(Map.of(
+                "spring.kafka.performance.profile", "high-throughput",
+                "spring.kafka.performance.producer.[linger.ms]", "50",
+                "spring.kafka.performance.consumer.[max.poll.records]", "1000"));
+
+        assertEquals(KafkaPerformanceProfile.HIGH_THROUGHPUT, properties.getProfile());
+        assertEquals("50", properties.producerConfig().get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals("zstd", properties.producerConfig().get(ProducerConfig.COMPRESSION_TYPE_CONFIG));
+        assertEquals("1000", properties.consumerConfig().get(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+        assertEquals(262_144, properties.consumerConfig().get(ConsumerConfig.FETCH_MIN_BYTES_CONFIG));
+    }
+
+    @Test
+    void lowLatencyProfileDoesNotLinger() {
+        KafkaPerformanceProperties properties = bind(Map.of("spring.kafka.performance.profile", "low-latency"));
+
+        assertEquals(0, properties.producerConfig().get(ProducerConfig.LINGER_MS_CONFIG));
+        assertEquals(1, properties.consumerConfig().get(ConsumerConfig.FETCH_MIN_BYTES_CONFIG));
+    }
+
+    private static KafkaPerformanceProperties bind(Map<String, String> source) {
+        return new Binder(new MapConfigurationPropertySource(source))
+                .bind("spring.kafka.performance", KafkaPerformanceProperties.class)
+                .get();
+    }
+}
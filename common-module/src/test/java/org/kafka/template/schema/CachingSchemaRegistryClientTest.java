@@ -0,0 +1,222 @@
+package org.kafka.template.schema;
+
+import ch.qos.logback.classic.Level;
+import io.confluent.kafka.schemaregistry.ParsedSchema;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.SchemaCacheProperties;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachingSchemaRegistryClientTest extends BaseLogTest {
+
+    private static final String SUBJECT = "user-created-value";
+    private static final String SCHEMA = "{\"type\":\"object\",\"properties\":{\"id\":{\"type\":\"string\"}}}";
+    private static final String NEWER_SCHEMA =
+            "{\"type\":\"object\",\"properties\":{\"id\":{\"type\":\"string\"},\"age\":{\"type\":\"integer\"}}}";
+
+    private MeterRegistry meterRegistry;
+    private SchemaCacheProperties properties;
+    private FakeRegistryClient client;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new SchemaCacheProperties();
+        client = new FakeRegistryClient(properties, meterRegistry);
+        setUpLogger(CachingSchemaRegistryClient.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void getSchemaBySubjectAndId_KnownId_ShouldNotAskTheRegistryAgain() throws Exception {
+        // When
+        ParsedSchema first = client.getSchemaBySubjectAndId(SUBJECT, 1);
+        ParsedSchema second = client.getSchemaBySubjectAndId(SUBJECT, 1);
+
+        // Then
+        assertSame(first, second);
+        assertEquals(1, client.schemaFetches);
+        assertEquals(1.0, requests("id", "miss"));
+        assertEquals(1.0, requests("id", "hit"));
+    }
+
+    @Test
+    void getLatestSchemaMetadata_WithinTtl_ShouldServeCachedVersion() throws Exception {
+        // Given
+        client.latest.add(metadata(1, 1, SCHEMA));
+
+        // When
+        client.getLatestSchemaMetadata(SUBJECT);
+        SchemaMetadata cached = client.getLatestSchemaMetadata(SUBJECT);
+
+        // Then
+        assertEquals(1, cached.getId());
+        assertEquals(1.0, requests("latest", "hit"));
+    }
+
+    @Test
+    void getLatestSchemaMetadata_TtlPassed_ShouldRefreshFromRegistry() throws Exception {
+        // Given
+        properties.setLatestTtlMs(0);
+        client.latest.add(metadata(1, 1, SCHEMA));
+        client.latest.add(metadata(2, 2, NEWER_SCHEMA));
+
+        // When
+        client.getLatestSchemaMetadata(SUBJECT);
+        SchemaMetadata refreshed = client.getLatestSchemaMetadata(SUBJECT);
+
+        // Then
+        assertEquals(2, refreshed.getId());
+        assertEquals(2.0, requests("latest", "miss"));
+    }
+
+    @Test
+    void getLatestSchemaMetadata_RegistryDown_ShouldServeStaleVersion() throws Exception {
+        // Given
+        properties.setLatestTtlMs(0);
+        client.latest.add(metadata(1, 1, SCHEMA));
+        client.getLatestSchemaMetadata(SUBJECT);
+        client.registryDown = true;
+
+        // When
+        SchemaMetadata stale = client.getLatestSchemaMetadata(SUBJECT);
+
+        // Then
+        assertEquals(1, stale.getId());
+        assertEquals(1.0, requests("latest", "stale"));
+        assertLog(Level.WARN, "Schema registry unavailable, keeping version 1 of user-created-value");
+    }
+
+    @Test
+    void getLatestSchemaMetadata_UnknownSubject_ShouldNotServeStaleVersion() throws Exception {
+        // Given
+        properties.setLatestTtlMs(0);
+        client.latest.add(metadata(1, 1, SCHEMA));
+        client.getLatestSchemaMetadata(SUBJECT);
+        client.subjectDeleted = true;
+
+        // When / Then
+        assertThrows(RestClientException.class, () -> client.getLatestSchemaMetadata(SUBJECT));
+    }
+
+    @Test
+    void getId_SchemaOfLatestVersion_ShouldBeAnsweredFromCache() throws Exception {
+        // Given
+        client.latest.add(metadata(7, 3, SCHEMA));
+        client.getLatestSchemaMetadata(SUBJECT);
+
+        // When
+        int id = client.getId(SUBJECT, new JsonSchema(SCHEMA));
+
+        // Then
+        assertEquals(7, id);
+        assertEquals(0, client.idFetches);
+        assertEquals(1.0, requests("subject-id", "hit"));
+    }
+
+    @Test
+    void prewarm_RegistryDown_ShouldLoadBundledSnapshot() throws Exception {
+        // Given
+        SchemaCacheProperties.Subject snapshot = new SchemaCacheProperties.Subject();
+        snapshot.setSnapshot("schemas/user-schema.json");
+        snapshot.setSnapshotId(4);
+        properties.getSubjects().put(SUBJECT, snapshot);
+        client.registryDown = true;
+
+        // When
+        client.prewarm();
+
+        // Then
+        assertEquals(4, client.getLatestSchemaMetadata(SUBJECT).getId());
+        assertNotNull(client.getSchemaBySubjectAndId(SUBJECT, 4));
+        assertEquals(0, client.schemaFetches);
+        assertLog(Level.WARN, "loaded user-created-value from snapshot schemas/user-schema.json as id 4");
+    }
+
+    @Test
+    void prewarm_RegistryUp_ShouldLoadLatestVersion() throws Exception {
+        // Given
+        properties.getSubjects().put(SUBJECT, new SchemaCacheProperties.Subject());
+        client.latest.add(metadata(2, 2, SCHEMA));
+
+        // When
+        client.prewarm();
+
+        // Then
+        assertNotNull(client.getSchemaBySubjectAndId(SUBJECT, 2));
+        assertEquals(0, client.schemaFetches);
+        assertLog(Level.INFO, "Prewarmed schema user-created-value version 2 with id 2");
+    }
+
+    private double requests(String lookup, String result) {
+        return meterRegistry.get("schema.registry.cache.requests")
+                .tag("lookup", lookup).tag("result", result).counter().count();
+    }
+
+    private static SchemaMetadata metadata(int id, int version, String schema) {
+        return new SchemaMetadata(id, version, JsonSchema.TYPE, List.of(), schema);
+    }
+
+    /**
+     * Answers in place of the registry, counting the requests that reach it.
+     */
+    private static class FakeRegistryClient extends CachingSchemaRegistryClient {
+
+        private final Deque<SchemaMetadata> latest = new ArrayDeque<>();
+        private boolean registryDown;
+        private boolean subjectDeleted;
+        private int schemaFetches;
+        private int idFetches;
+
+        FakeRegistryClient(SchemaCacheProperties properties, MeterRegistry meterRegistry) {
+            super("http://localhost:8081", properties, meterRegistry);
+        }
+
+        @Override
+        ParsedSchema fetchSchemaById(String subject, int id) throws IOException {
+            checkAvailable();
+            schemaFetches++;
+            return new JsonSchema(SCHEMA);
+        }
+
+        @Override
+        SchemaMetadata fetchLatestSchemaMetadata(String subject) throws IOException, RestClientException {
+            checkAvailable();
+            if (subjectDeleted) {
+                throw new RestClientException("Subject not found", 404, 40401);
+            }
+            return latest.size() > 1 ? latest.poll() : latest.peek();
+        }
+
+        @Override
+        int fetchId(String subject, ParsedSchema schema, boolean normalize) throws IOException {
+            checkAvailable();
+            idFetches++;
+            return 1;
+        }
+
+        private void checkAvailable() throws IOException {
+            if (registryDown) {
+                throw new ConnectException("Connection refused");
+            }
+        }
+    }
+}
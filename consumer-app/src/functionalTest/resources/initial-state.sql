@@ -1,12 +1,18 @@
 DROP table IF EXISTS kafka_app.contacts;
+DROP SEQUENCE IF EXISTS kafka_app.contacts_id_seq;
 CREATE SCHEMA IF NOT EXISTS kafka_app;
 
 CREATE TABLE kafka_app.contacts (
-                                    id int8 GENERATED BY DEFAULT AS IDENTITY( INCREMENT BY 1 MINVALUE 1 MAXVALUE 9223372036854775807 START 1 CACHE 1 NO CYCLE) NOT NULL,
+                                    id int8 NOT NULL,
                                     userid int8 NULL,
                                     email text NULL,
                                     name text NULL,
                                     age int4 NULL,
-                                    CONSTRAINT contact_pkey PRIMARY KEY (id)
+                                    kafka_offset int8 NULL,
+                                    kafka_timestamp timestamptz NULL,
+                                    CONSTRAINT contact_pkey PRIMARY KEY (id),
+                                    CONSTRAINT contacts_userid_key UNIQUE (userid)
 );
+-- Matches the allocationSize of UserEntity, Hibernate hands out the ids of a block of 500 without a round trip
+CREATE SEQUENCE kafka_app.contacts_id_seq START WITH 1 INCREMENT BY 500;
 CREATE INDEX idx_contacts_email ON kafka_app.contacts USING btree (email);
\ No newline at end of file
@@ -0,0 +1,67 @@
+package org.kafka.template.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.confluent.kafka.schemaregistry.client.MockSchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.json.JsonSchemaProvider;
+import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
+import org.kafka.template.models.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading a user-created value into a generic tree and converting it with ObjectMapper, as the listeners
+ * did, with reading it straight into User through {@code json.value.type}. Run it with
+ * {@code ./gradlew :consumer-app:jmh}; the gc profiler reports the bytes allocated per record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UserDeserializationBenchmark {
+
+    private static final String TOPIC = "user-created";
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private KafkaJsonSchemaDeserializer<Object> untypedDeserializer;
+    private KafkaJsonSchemaDeserializer<User> typedDeserializer;
+    private byte[] value;
+
+    @Setup
+    public void setUp() {
+        MockSchemaRegistryClient schemaRegistry = new MockSchemaRegistryClient(List.of(new JsonSchemaProvider()));
+        Map<String, Object> config = Map.of(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, "mock://benchmark");
+
+        try (KafkaJsonSchemaSerializer<User> serializer = new KafkaJsonSchemaSerializer<>(schemaRegistry, config)) {
+            value = serializer.serialize(TOPIC, new User(42, "Jane Doe", "jane.doe@example.com", 34));
+        }
+        untypedDeserializer = new KafkaJsonSchemaDeserializer<>(schemaRegistry, config, Object.class);
+        typedDeserializer = new KafkaJsonSchemaDeserializer<>(schemaRegistry, config, User.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        untypedDeserializer.close();
+        typedDeserializer.close();
+    }
+
+    @Benchmark
+    public User untypedThenConvert() {
+        return mapper.convertValue(untypedDeserializer.deserialize(TOPIC, value), User.class);
+    }
+
+    @Benchmark
+    public User typed() {
+        return typedDeserializer.deserialize(TOPIC, value);
+    }
+}
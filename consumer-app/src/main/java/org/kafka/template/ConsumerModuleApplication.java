@@ -1,11 +1,24 @@
 package org.kafka.template;
 
+import org.kafka.template.replay.DltReplayCommand;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+import java.util.Map;
 
 @SpringBootApplication
+@EnableScheduling
 public class ConsumerModuleApplication {
     public static void main(String[] args) {
-        SpringApplication.run(ConsumerModuleApplication.class, args);
+        SpringApplication application = new SpringApplication(ConsumerModuleApplication.class);
+        if (DltReplayCommand.isRequested(args)) {
+            // Replays the DLT and exits, without serving HTTP or consuming any topic
+            application.setWebApplicationType(WebApplicationType.NONE);
+            application.setDefaultProperties(Map.of("spring.kafka.listener.auto-startup", "false"));
+            System.exit(SpringApplication.exit(application.run(args)));
+        }
+        application.run(args);
     }
 }
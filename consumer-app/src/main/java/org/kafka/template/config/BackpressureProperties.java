@@ -0,0 +1,46 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Thresholds of the database backpressure of the single listener, see
+ * {@link org.kafka.template.kafka.DatabaseBackpressureController}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.backpressure")
+public class BackpressureProperties {
+
+    private boolean enabled = true;
+    private long checkIntervalMs = 1000;
+    /**
+     * Threads waiting for a Hikari connection at the time of a check.
+     */
+    private int maxPendingConnections = 5;
+    /**
+     * Mean time to get a Hikari connection since the previous check.
+     */
+    private long maxConnectionWaitMs = 500;
+    /**
+     * Share of the writes since the previous check that failed because the database was unavailable. Only judged
+     * once at least min-writes were attempted.
+     */
+    private double maxErrorRate = 0.5;
+    private int minWrites = 5;
+    /**
+     * Mean write latency, commit included, since the previous check.
+     */
+    private long maxWriteLatencyMs = 1000;
+    /**
+     * Healthy checks in a row before paused containers are resumed.
+     */
+    private int resumeAfterHealthyChecks = 3;
+    /**
+     * Delay before a record, or a poll of the batch listener, whose write failed because the database was
+     * unavailable is delivered again. Doubles with every further failure in a row, up to max-redelivery-delay-ms.
+     */
+    private long redeliveryDelayMs = 1000;
+    private long maxRedeliveryDelayMs = 30_000;
+}
@@ -0,0 +1,34 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Thresholds and tuning of the catch-up mode of the listeners, see {@link org.kafka.template.kafka.CatchUpController}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.catch-up")
+public class CatchUpProperties {
+
+    private boolean enabled = true;
+    private long checkIntervalMs = 10_000;
+    /**
+     * Lag of the most lagging user-created partition at which catch-up mode starts.
+     */
+    private long enterLag = 50_000;
+    /**
+     * Catch-up mode ends once the lag of every partition stayed at or below this for exit-after-checks checks in a row.
+     */
+    private long exitLag = 1_000;
+    private int exitAfterChecks = 3;
+    /**
+     * Poll size while catching up. The batch listener writes a poll in one transaction, so this is its batch size too.
+     */
+    private int maxPollRecords = 2_000;
+    /**
+     * Turns off the container observations while catching up.
+     */
+    private boolean disableObservation = true;
+}
@@ -0,0 +1,24 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the write dedup cache of the single listener, see {@link org.kafka.template.kafka.UserDedupCache}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.dedup")
+public class DedupProperties {
+
+    private boolean enabled = true;
+    /**
+     * Users whose last written content is remembered, least recently used ones are evicted first.
+     */
+    private int capacity = 100_000;
+    /**
+     * Chance that the Bloom filter in front of the cache takes a user never written for one that may have been.
+     */
+    private double bloomFalsePositiveRate = 0.01;
+}
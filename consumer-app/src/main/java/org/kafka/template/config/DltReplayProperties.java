@@ -0,0 +1,25 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Throttling of DLT replays, see {@link org.kafka.template.replay.DltReplayService}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.dlt-replay")
+public class DltReplayProperties {
+
+    /**
+     * Upper bound of the users written per second, across all writers.
+     */
+    private int ratePerSecond = 2000;
+    /**
+     * Batches written to the database concurrently.
+     */
+    private int parallelism = 4;
+    private int batchSize = 500;
+    private long pollTimeoutMs = 1000;
+}
@@ -3,8 +3,10 @@ package org.kafka.template.config;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import io.confluent.kafka.serializers.AbstractKafkaSchemaSerDeConfig;
 import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializer;
+import io.confluent.kafka.serializers.json.KafkaJsonSchemaDeserializerConfig;
 import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializer;
 import io.confluent.kafka.serializers.json.KafkaJsonSchemaSerializerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.CommonClientConfigs;
@@ -12,25 +14,52 @@ import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.TopicPartition;
 import org.apache.kafka.common.config.SaslConfigs;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.Serializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.kafka.template.kafka.CompositeRebalanceListener;
+import org.kafka.template.kafka.OffsetCommitTracker;
+import org.kafka.template.kafka.RetryTopicMetrics;
+import org.kafka.template.kafka.TimedRebalanceListener;
+import org.kafka.template.kafka.UserDedupCache;
+import org.kafka.template.kafka.UserParallelConsumer;
+import org.kafka.template.kafka.WriteBehindBuffer;
+import org.kafka.template.models.User;
+import org.kafka.template.schema.CachingSchemaRegistryClient;
+import org.kafka.template.sink.OffsetStore;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.*;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
 import org.springframework.kafka.listener.ContainerProperties;
 import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
 import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.DelegatingByTypeSerializer;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
 import org.springframework.util.backoff.FixedBackOff;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 @Slf4j
 @Configuration
 public class KafkaConsumerConfig {
 
+    private final KafkaPerformanceProperties performanceProperties;
+    private final RebalanceProperties rebalanceProperties;
+    private final OffsetCommitTracker offsetCommitTracker;
+    private final CompositeRebalanceListener rebalanceListener;
+    private final CompositeRebalanceListener offsetStoreRebalanceListener;
+    private final RetryTopicMetrics retryTopicMetrics;
+    private final MeterRegistry meterRegistry;
+    private final CachingSchemaRegistryClient schemaRegistryClient;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -49,13 +78,48 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.sasl.jaas.password}")
     private String saslPassword;
 
+    // Listener containers, hence consumers, per application instance; more than the partitions leaves some idle
+    @Value("${spring.kafka.listener.concurrency:1}")
+    private int concurrency;
+
+    // Commits acks without waiting for the group coordinator, and synchronously only on partition revocation
+    @Value("${spring.kafka.listener.async-commits:true}")
+    private boolean asyncCommits;
+
+    // Off in the DLT replay CLI mode, which must not consume any topic
+    @Value("${spring.kafka.listener.auto-startup:true}")
+    private boolean autoStartup;
+
+    public KafkaConsumerConfig(KafkaPerformanceProperties performanceProperties, RebalanceProperties rebalanceProperties,
+                               OffsetCommitTracker offsetCommitTracker, UserDedupCache userDedupCache,
+                               RetryTopicMetrics retryTopicMetrics, MeterRegistry meterRegistry,
+                               CachingSchemaRegistryClient schemaRegistryClient, OffsetStore offsetStore) {
+        this.performanceProperties = performanceProperties;
+        this.rebalanceProperties = rebalanceProperties;
+        this.offsetCommitTracker = offsetCommitTracker;
+        // Offsets are committed before the cached users of the revoked partitions are dropped
+        this.rebalanceListener = new CompositeRebalanceListener(List.of(offsetCommitTracker, userDedupCache));
+        // The listeners writing through the offset store also resume their partitions from it
+        this.offsetStoreRebalanceListener = new CompositeRebalanceListener(List.of(rebalanceListener, offsetStore));
+        this.retryTopicMetrics = retryTopicMetrics;
+        this.meterRegistry = meterRegistry;
+        this.schemaRegistryClient = schemaRegistryClient;
+    }
+
     @Bean
-    public ConsumerFactory<String, Object> consumerFactory() {
+    public ConsumerFactory<String, User> consumerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        config.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, KafkaJsonSchemaDeserializer.class);
+        config.put(KafkaJsonSchemaDeserializerConfig.JSON_VALUE_TYPE, User.class.getName());
         config.put(AbstractKafkaSchemaSerDeConfig.SCHEMA_REGISTRY_URL_CONFIG, schemaRegistryUrl);
+        // Skips records of aborted producer transactions, e.g. a bulk import chunk that failed half way
+        config.put(ConsumerConfig.ISOLATION_LEVEL_CONFIG, "read_committed");
+
+        // Cooperative assignment and, with a group instance id, static membership
+        config.putAll(rebalanceProperties.consumerConfig());
+
+        // Fetch sizes and poll batch of the selected performance profile
+        config.putAll(performanceProperties.consumerConfig());
 
         // Security Protocol
         config.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, securityProtocol);
@@ -68,26 +132,33 @@ public class KafkaConsumerConfig {
                     saslUsername, saslPassword));
         }
 
-        return new DefaultKafkaConsumerFactory<>(config);
+        // Values are read straight into User, without an intermediate Map, with the schemas of the shared schema
+        // cache. A value that cannot be read arrives as null with the exception in a header, and is sent to the DLT
+        // instead of failing the poll
+        DefaultKafkaConsumerFactory<String, User> factory = new DefaultKafkaConsumerFactory<>(config,
+                StringDeserializer::new, () -> new ErrorHandlingDeserializer<>(
+                        new KafkaJsonSchemaDeserializer<>(schemaRegistryClient, config, User.class)));
+        // Client metrics, among them commit-latency-avg/max and commit-rate of the group coordinator
+        factory.addListener(new MicrometerConsumerListener<>(meterRegistry));
+        return factory;
     }
 
     @Bean
-    public ConcurrentKafkaListenerContainerFactory<String, Object>
+    public ConcurrentKafkaListenerContainerFactory<String, User>
     kafkaListenerContainerFactory() {
-        ConcurrentKafkaListenerContainerFactory<String, Object> factory =
+        ConcurrentKafkaListenerContainerFactory<String, User> factory =
                 new ConcurrentKafkaListenerContainerFactory<>();
         factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
         factory.getContainerProperties().setObservationEnabled(true);
+        configureCommits(factory.getContainerProperties(), offsetStoreRebalanceListener);
         factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setAutoStartup(autoStartup);
+        factory.setRecordInterceptor(retryTopicMetrics);
 
-        DeadLetterPublishingRecoverer recoverer = new DeadLetterPublishingRecoverer(dltKafkaTemplate(),
-                (record, ex) -> {
-                    log.error("Receiving DLT message. topic={}, partition={}, offset={}\n{}",
-                            record.topic(), record.partition(), record.offset(), ex.getMessage());
-                    return new TopicPartition(record.topic() + "-dlt", record.partition());
-                });
-
-        DefaultErrorHandler errorHandler = new DefaultErrorHandler(recoverer, new FixedBackOff(1000L, 3));
+        // With retry topics enabled (see RetryTopicConfig) the framework installs its own non-blocking error
+        // handler on these containers; this blocking one only applies with spring.kafka.listener.retry.enabled=false
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(deadLetterPublishingRecoverer(), new FixedBackOff(1000L, 3));
 
         // Add non-retryable exception if needed
         errorHandler.addNotRetryableExceptions(ConstraintViolationException.class, JsonProcessingException.class);
@@ -97,14 +168,108 @@ public class KafkaConsumerConfig {
         return factory;
     }
 
+    /**
+     * Hands UserBatchConsumer a whole poll at a time. Invalid records are sent to the DLT by the listener itself.
+     * When the batch cannot be persisted, the error handler retries it and finally sends each of its records to
+     * the DLT.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, User>
+    batchKafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, User> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setObservationEnabled(true);
+        configureCommits(factory.getContainerProperties(), offsetStoreRebalanceListener);
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setAutoStartup(autoStartup);
+        factory.setBatchListener(true);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer(), new FixedBackOff(1000L, 3)));
+        return factory;
+    }
+
+    /**
+     * Feeds UserParallelConsumer, which acknowledges records out of order from its lanes. With async acks the
+     * container defers the commit of an offset until all offsets before it in the partition are acknowledged.
+     * The lanes finish the records of revoked partitions before their offsets are committed.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "parallel")
+    public ConcurrentKafkaListenerContainerFactory<String, User>
+    parallelKafkaListenerContainerFactory(UserParallelConsumer userParallelConsumer) {
+        ConcurrentKafkaListenerContainerFactory<String, User> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        factory.getContainerProperties().setObservationEnabled(true);
+        configureCommits(factory.getContainerProperties(),
+                new CompositeRebalanceListener(List.of(userParallelConsumer, rebalanceListener)));
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setAutoStartup(autoStartup);
+        // Only sees records that fail before the listener, i.e. unreadable ones, which are not retryable
+        factory.setCommonErrorHandler(new DefaultErrorHandler(deadLetterPublishingRecoverer()));
+        return factory;
+    }
+
+    /**
+     * Feeds UserWriteBehindConsumer, whose records are acknowledged by the flusher thread of the WriteBehindBuffer
+     * once their batch is committed. Async acks let it do so from its own thread, and keep a record that could not
+     * be sent to the DLT from being committed past. The buffer is flushed before partitions are revoked.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "write-behind")
+    public ConcurrentKafkaListenerContainerFactory<String, User>
+    writeBehindKafkaListenerContainerFactory(WriteBehindBuffer writeBehindBuffer) {
+        ConcurrentKafkaListenerContainerFactory<String, User> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        factory.getContainerProperties().setObservationEnabled(true);
+        configureCommits(factory.getContainerProperties(),
+                new CompositeRebalanceListener(List.of(writeBehindBuffer, rebalanceListener)));
+        factory.setConsumerFactory(consumerFactory());
+        factory.setConcurrency(concurrency);
+        factory.setAutoStartup(autoStartup);
+        // Invalid users are thrown back by the listener, unreadable ones fail before it; neither is retryable
+        DefaultErrorHandler errorHandler = new DefaultErrorHandler(deadLetterPublishingRecoverer());
+        errorHandler.addNotRetryableExceptions(ConstraintViolationException.class);
+        factory.setCommonErrorHandler(errorHandler);
+        return factory;
+    }
+
+    /**
+     * MANUAL ack mode already coalesces acks: the container commits the acks of a poll together, once the poll is
+     * processed. Async commits keep the container thread from waiting for that commit. The rebalance callbacks are
+     * timed, since their flushes and commits hold up the rebalance.
+     */
+    private void configureCommits(ContainerProperties containerProperties,
+                                  ConsumerAwareRebalanceListener rebalanceListener) {
+        containerProperties.setSyncCommits(!asyncCommits);
+        containerProperties.setCommitCallback(offsetCommitTracker);
+        containerProperties.setConsumerRebalanceListener(new TimedRebalanceListener(rebalanceListener, meterRegistry));
+    }
+
+    @Bean
+    public DeadLetterPublishingRecoverer deadLetterPublishingRecoverer() {
+        return new DeadLetterPublishingRecoverer(dltKafkaTemplate(),
+                (record, ex) -> {
+                    log.error("Receiving DLT message. topic={}, partition={}, offset={}\n{}",
+                            record.topic(), record.partition(), record.offset(), ex.getMessage());
+                    return new TopicPartition(record.topic() + "-dlt", record.partition());
+                });
+    }
+
     @Bean
     public ProducerFactory<String, Object> dltProducerFactory() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
-        config.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaJsonSchemaSerializer.class);
         config.put(KafkaJsonSchemaSerializerConfig.SCHEMA_REGISTRY_URL_CONFIG, schemaRegistryUrl);
 
+        // Batching, compression and buffering of the selected performance profile
+        config.putAll(performanceProperties.producerConfig());
+
         // Security Protocol
         config.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, securityProtocol);
 
@@ -116,7 +281,18 @@ public class KafkaConsumerConfig {
                     saslUsername, saslPassword));
         }
 
-        return new DefaultKafkaProducerFactory<>(config);
+        return new DefaultKafkaProducerFactory<>(config, new StringSerializer(), dltValueSerializer());
+    }
+
+    /**
+     * Users are written as JSON Schema. Unreadable values reach the DLT as the original bytes, restored by the
+     * recoverer from the deserialization exception.
+     */
+    private Serializer<Object> dltValueSerializer() {
+        Map<Class<?>, Serializer<?>> delegates = new LinkedHashMap<>();
+        delegates.put(byte[].class, new ByteArraySerializer());
+        delegates.put(Object.class, new KafkaJsonSchemaSerializer<>(schemaRegistryClient));
+        return new DelegatingByTypeSerializer(delegates, true);
     }
 
     @Bean
@@ -0,0 +1,38 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the key-ordered parallel listener, see {@link org.kafka.template.kafka.UserParallelConsumer}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.parallel")
+public class ParallelConsumerProperties {
+
+    /**
+     * Workers records are spread over by key. Each works through its records in order.
+     */
+    private int lanes = 16;
+    /**
+     * Runs the lanes on virtual threads instead of a bounded set of platform threads.
+     */
+    private boolean virtualThreads = true;
+    /**
+     * Records handed to the lanes but not yet acknowledged, across all listener containers, before the containers
+     * are paused. They are resumed once half of them are acknowledged.
+     */
+    private int maxInFlight = 1000;
+    private long retryBackoffMs = 1000;
+    private int retryAttempts = 3;
+    /**
+     * How long a record that cannot be sent to the DLT is retried before the listener container is stopped.
+     */
+    private long dltTimeoutMs = 60_000;
+    /**
+     * How long a revocation waits for the lanes to finish the records of the revoked partitions.
+     */
+    private long revocationDrainTimeoutMs = 10_000;
+}
@@ -0,0 +1,48 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.CooperativeStickyAssignor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Group membership of the listener consumers. Cooperative rebalancing only moves the partitions that change owner,
+ * the others keep being consumed during the rebalance. With static membership an instance that restarts within the
+ * session timeout gets its partitions back without any rebalance.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.rebalance")
+public class RebalanceProperties {
+
+    /**
+     * Partition assignors in order of preference. Moving a running group from an eager assignor takes two rolling
+     * deploys: first with both assignors, the cooperative one first, then with the cooperative one only.
+     */
+    private List<String> assignmentStrategy = List.of(CooperativeStickyAssignor.class.getName());
+    /**
+     * Identity that stays the same across restarts of an instance, such as a StatefulSet pod name. Empty for
+     * dynamic membership. Listener containers with several consumers suffix it with the consumer's index.
+     */
+    private String groupInstanceId;
+    /**
+     * How long a static member may be gone, e.g. restarting, before its partitions are reassigned.
+     */
+    private int sessionTimeoutMs = 45000;
+
+    public Map<String, Object> consumerConfig() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG, assignmentStrategy);
+        config.put(ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG, sessionTimeoutMs);
+        if (StringUtils.hasText(groupInstanceId)) {
+            config.put(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG, groupInstanceId);
+        }
+        return config;
+    }
+}
@@ -0,0 +1,54 @@
+package org.kafka.template.config;
+
+import jakarta.validation.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaRetryTopic;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+import org.springframework.kafka.retrytopic.RetryTopicSchedulerWrapper;
+import org.springframework.kafka.retrytopic.TopicSuffixingStrategy;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+import java.util.List;
+
+/**
+ * Non-blocking retries for UserConsumer. A record that fails is forwarded to the next retry topic, e.g.
+ * user-created-retry-5000, -retry-30000 and -retry-180000, and finally to user-created-dlt. Each retry topic is
+ * consumed by a listener container of its own, which waits until the delay of a record has passed, so the main
+ * topic keeps flowing. Invalid and unreadable payloads go to the DLT right away.
+ */
+@Configuration
+@EnableKafkaRetryTopic
+@ConditionalOnExpression("'${spring.kafka.listener.type:single}' == 'single' and ${spring.kafka.listener.retry.enabled:true}")
+public class RetryTopicConfig {
+
+    @Value("${spring.kafka.topics.user-created}")
+    private String userCreatedTopic;
+
+    @Bean
+    public RetryTopicConfiguration userRetryTopicConfiguration(RetryTopicProperties properties,
+                                                               KafkaTemplate<String, Object> dltKafkaTemplate) {
+        return RetryTopicConfigurationBuilder.newInstance()
+                .includeTopic(userCreatedTopic)
+                .listenerFactory("kafkaListenerContainerFactory")
+                .maxAttempts(properties.getAttempts())
+                .exponentialBackoff(properties.getInitialDelayMs(), properties.getMultiplier(), properties.getMaxDelayMs())
+                .setTopicSuffixingStrategy(TopicSuffixingStrategy.SUFFIX_WITH_DELAY_VALUE)
+                // Unreadable values fail with a DeserializationException, which is never retried
+                .notRetryOn(List.of(ConstraintViolationException.class))
+                .traversingCauses()
+                .create(dltKafkaTemplate);
+    }
+
+    // Resumes the retry topic partitions once the delay of their next record has passed
+    @Bean
+    public RetryTopicSchedulerWrapper retryTopicSchedulerWrapper() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setThreadNamePrefix("retry-topic-");
+        return new RetryTopicSchedulerWrapper(scheduler);
+    }
+}
@@ -0,0 +1,26 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Non-blocking retries of the single listener, see {@link RetryTopicConfig}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.retry")
+public class RetryTopicProperties {
+
+    /**
+     * Without retry topics a failing record is retried in place, blocking its partition.
+     */
+    private boolean enabled = true;
+    /**
+     * Deliveries of a record including the first one, i.e. the number of retry topics plus one.
+     */
+    private int attempts = 4;
+    private long initialDelayMs = 5000;
+    private double multiplier = 6.0;
+    private long maxDelayMs = 300000;
+}
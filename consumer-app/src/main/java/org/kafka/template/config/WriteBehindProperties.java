@@ -0,0 +1,46 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the write-behind listener, see {@link org.kafka.template.kafka.WriteBehindBuffer}.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.listener.write-behind")
+public class WriteBehindProperties {
+
+    /**
+     * Records buffered but not yet flushed at which the listener container is paused until the buffer is half empty.
+     * The rest of the poll is still buffered. Each container buffers at most one poll, so more than concurrency
+     * times max.poll.records is never used; the default covers a catch-up poll of 2000 records.
+     */
+    private int capacity = 2000;
+    private int initialBatchSize = 500;
+    private int minBatchSize = 50;
+    /**
+     * Capped by the poll size like the capacity, as a batch cannot hold records that were not polled yet.
+     */
+    private int maxBatchSize = 2000;
+    /**
+     * Flush latency the batch size adapts to: it grows while the p99 of recent flushes stays below half of it,
+     * and is halved when the p99 exceeds it.
+     */
+    private long targetP99Ms = 200;
+    /**
+     * How long a flush waits for more records before it writes a batch that is not full.
+     */
+    private long lingerMs = 50;
+    private long retryBackoffMs = 1000;
+    private int retryAttempts = 3;
+    /**
+     * How long a record that cannot be sent to the DLT is retried before the listener container is stopped.
+     */
+    private long dltTimeoutMs = 60_000;
+    /**
+     * How long a partition revocation waits for the buffered records to be flushed and acknowledged.
+     */
+    private long revocationFlushTimeoutMs = 10_000;
+}
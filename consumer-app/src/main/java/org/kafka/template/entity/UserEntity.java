@@ -6,6 +6,8 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.time.Instant;
+
 @Entity
 @Table(name = "contacts", schema = "kafka_app")
 @Data
@@ -14,11 +16,18 @@ import lombok.NoArgsConstructor;
 @Builder
 public class UserEntity {
 
+    /**
+     * Ids handed out per call of contacts_id_seq, equal to its INCREMENT BY.
+     */
+    public static final int ID_ALLOCATION_SIZE = 500;
+
+    // Ids come from a pooled sequence rather than an identity column, so Hibernate can batch the inserts of a poll
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contacts_id_seq")
+    @SequenceGenerator(name = "contacts_id_seq", schema = "kafka_app", sequenceName = "contacts_id_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
-    @Column(name = "userid")
+    @Column(name = "userid", unique = true)
     private Integer userId;
 
     @Column(name = "email")
@@ -29,4 +38,11 @@ public class UserEntity {
 
     @Column(name = "age")
     private Integer age;
+
+    // Offset and timestamp of the event that last wrote the contact, see UserSink
+    @Column(name = "kafka_offset")
+    private Long kafkaOffset;
+
+    @Column(name = "kafka_timestamp")
+    private Instant kafkaTimestamp;
 }
\ No newline at end of file
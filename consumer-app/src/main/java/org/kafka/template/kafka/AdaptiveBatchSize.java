@@ -0,0 +1,73 @@
+package org.kafka.template.kafka;
+
+import java.util.Arrays;
+
+/**
+ * Batch size of the write-behind flushes, adapted to their measured latency. Every {@link #ADJUST_EVERY} flushes
+ * the p99 of the recent ones is compared with the target: the size grows by a quarter while the p99 stays below
+ * half of the target and is halved once it exceeds the target. After a decrease the samples are dropped, so that the
+ * next decision only sees flushes of the smaller size.
+ * <p>
+ * Only used by the flusher thread; {@link #current()} may be read from any thread.
+ */
+final class AdaptiveBatchSize {
+
+    static final int WINDOW = 100;
+    static final int ADJUST_EVERY = 10;
+
+    private final int min;
+    private final int max;
+    private final long targetP99Nanos;
+    private final long[] samples = new long[WINDOW];
+    private int sampleCount;
+    private int nextSample;
+    private int sinceAdjustment;
+    private volatile int current;
+
+    AdaptiveBatchSize(int initial, int min, int max, long targetP99Nanos) {
+        this.min = min;
+        this.max = max;
+        this.targetP99Nanos = targetP99Nanos;
+        this.current = Math.clamp(initial, min, max);
+    }
+
+    int current() {
+        return current;
+    }
+
+    void record(long latencyNanos) {
+        samples[nextSample] = latencyNanos;
+        nextSample = (nextSample + 1) % WINDOW;
+        sampleCount = Math.min(sampleCount + 1, WINDOW);
+        if (++sinceAdjustment < ADJUST_EVERY) {
+            return;
+        }
+        sinceAdjustment = 0;
+        long p99 = p99();
+        if (p99 > targetP99Nanos) {
+            shrink();
+        } else if (p99 < targetP99Nanos / 2) {
+            current = Math.min(max, current + Math.max(1, current / 4));
+        }
+    }
+
+    /**
+     * A failed flush counts as too slow.
+     */
+    void failed() {
+        shrink();
+    }
+
+    long p99() {
+        long[] sorted = Arrays.copyOf(samples, sampleCount);
+        Arrays.sort(sorted);
+        return sorted.length == 0 ? 0 : sorted[(int) Math.ceil(sorted.length * 0.99) - 1];
+    }
+
+    private void shrink() {
+        current = Math.max(min, current / 2);
+        sampleCount = 0;
+        nextSample = 0;
+        sinceAdjustment = 0;
+    }
+}
@@ -0,0 +1,59 @@
+package org.kafka.template.kafka;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of int keys. Lookups take no lock; a bit set concurrently may be missed, which only turns a
+ * "may contain" into "does not contain".
+ */
+final class BloomFilter {
+
+    private final AtomicLongArray bits;
+    private final int bitCount;
+    private final int hashCount;
+
+    BloomFilter(int expectedInsertions, double falsePositiveRate) {
+        int insertions = Math.max(1, expectedInsertions);
+        double optimalBits = -insertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bitCount = (int) Math.max(Long.SIZE, Math.min(optimalBits, Integer.MAX_VALUE - Long.SIZE));
+        this.bits = new AtomicLongArray(Math.ceilDiv(bitCount, Long.SIZE));
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+    }
+
+    void put(int key) {
+        long hash = mix(key);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(hash, i);
+            long mask = 1L << bit;
+            bits.getAndAccumulate(bit >>> 6, mask, (word, set) -> word | set);
+        }
+    }
+
+    boolean mightContain(int key) {
+        long hash = mix(key);
+        for (int i = 0; i < hashCount; i++) {
+            int bit = bitIndex(hash, i);
+            if ((bits.get(bit >>> 6) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long sizeInBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    // Double hashing: the i-th index is h1 + i * h2
+    private int bitIndex(long hash, int i) {
+        return Math.floorMod((int) hash + i * (int) (hash >>> 32), bitCount);
+    }
+
+    // SplitMix64 finalizer, spreads consecutive user ids over the whole word
+    private static long mix(int key) {
+        long z = key + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
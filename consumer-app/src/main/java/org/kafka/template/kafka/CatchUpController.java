@@ -0,0 +1,144 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.kafka.template.config.CatchUpProperties;
+import org.slf4j.event.Level;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.OptionalDouble;
+
+/**
+ * Switches the listeners of the user-created topic to a catch-up mode while they work through a backlog, e.g. after
+ * an outage. Every check-interval-ms it reads the lag of each partition from the consumer metrics (records-lag, bound
+ * through MicrometerConsumerListener). Once a partition lags by enter-lag records, the containers are restarted with
+ * larger polls and without observations, and the single listener logs every record at debug level only. They are
+ * restarted with their regular settings once the lag of every partition stayed at or below exit-lag.
+ * <p>
+ * A restart closes the consumers. With static membership they rejoin without a rebalance, otherwise every switch
+ * costs one.
+ */
+@Slf4j
+@Component
+public class CatchUpController {
+
+    static final String LAG_METRIC = "kafka.consumer.fetch.manager.records.lag";
+
+    private final CatchUpProperties properties;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final String topic;
+    // Observation setting of each container before catch-up mode turned it off
+    private final Map<String, Boolean> observationEnabled = new HashMap<>();
+    private int drainedChecks;
+    private volatile boolean catchingUp;
+    private volatile double maxLag;
+
+    public CatchUpController(CatchUpProperties properties, KafkaListenerEndpointRegistry listenerRegistry,
+                             MeterRegistry meterRegistry, @Value("${spring.kafka.topics.user-created}") String topic) {
+        this.properties = properties;
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.topic = topic;
+        Gauge.builder("kafka.consumer.catch.up.mode", this, controller -> controller.catchingUp ? 1 : 0)
+                .description("1 while the listeners are in catch-up mode")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.catch.up.lag", this, controller -> controller.maxLag)
+                .description("Lag of the most lagging user-created partition at the last check")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return the level of the per-record log lines, lowered while catching up
+     */
+    public Level recordLogLevel() {
+        return catchingUp ? Level.DEBUG : Level.INFO;
+    }
+
+    @Scheduled(fixedDelayString = "${spring.kafka.listener.catch-up.check-interval-ms:10000}")
+    public synchronized void check() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        OptionalDouble lag = maxPartitionLag();
+        if (lag.isEmpty()) {
+            // No consumer has fetched yet, e.g. right after a restart
+            return;
+        }
+        maxLag = lag.getAsDouble();
+        if (!catchingUp) {
+            if (maxLag >= properties.getEnterLag()) {
+                switchMode(true);
+            }
+        } else if (maxLag > properties.getExitLag()) {
+            drainedChecks = 0;
+        } else if (++drainedChecks >= properties.getExitAfterChecks()) {
+            switchMode(false);
+        }
+    }
+
+    boolean isCatchingUp() {
+        return catchingUp;
+    }
+
+    private OptionalDouble maxPartitionLag() {
+        // A partition whose position is not known yet reports NaN
+        return meterRegistry.find(LAG_METRIC).tag("topic", topic).gauges().stream()
+                .mapToDouble(Gauge::value)
+                .filter(lag -> !Double.isNaN(lag))
+                .max();
+    }
+
+    private void switchMode(boolean catchUp) {
+        catchingUp = catchUp;
+        drainedChecks = 0;
+        String mode = catchUp ? "catch-up" : "regular";
+        Counter.builder("kafka.consumer.catch.up.switches")
+                .description("Times the listeners switched between regular and catch-up mode")
+                .tag("mode", mode)
+                .register(meterRegistry)
+                .increment();
+
+        for (MessageListenerContainer container : listenerRegistry.getListenerContainers()) {
+            String[] topics = container.getContainerProperties().getTopics();
+            if (topics == null || !Arrays.asList(topics).contains(topic)) {
+                continue;
+            }
+            tune(container.getListenerId(), container.getContainerProperties(), catchUp);
+            // The consumers only pick up the new settings when they are created again
+            if (container.isRunning()) {
+                container.stop(container::start);
+            }
+        }
+        log.info("Lag of {} records on {}, switched the listeners to {} mode", (long) maxLag, topic, mode);
+    }
+
+    private void tune(String listenerId, ContainerProperties containerProperties, boolean catchUp) {
+        if (catchUp) {
+            containerProperties.getKafkaConsumerProperties().setProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG,
+                    String.valueOf(properties.getMaxPollRecords()));
+            if (properties.isDisableObservation()) {
+                observationEnabled.put(listenerId, containerProperties.isObservationEnabled());
+                containerProperties.setObservationEnabled(false);
+            }
+        } else {
+            // Back to the poll size of the consumer factory
+            containerProperties.getKafkaConsumerProperties().remove(ConsumerConfig.MAX_POLL_RECORDS_CONFIG);
+            Boolean enabled = observationEnabled.remove(listenerId);
+            if (enabled != null) {
+                containerProperties.setObservationEnabled(enabled);
+            }
+        }
+    }
+}
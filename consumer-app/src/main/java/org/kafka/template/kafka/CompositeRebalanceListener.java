@@ -0,0 +1,40 @@
+package org.kafka.template.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hands every rebalance callback of a listener container to several listeners, in order.
+ */
+public class CompositeRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final List<ConsumerAwareRebalanceListener> listeners;
+
+    public CompositeRebalanceListener(List<ConsumerAwareRebalanceListener> listeners) {
+        this.listeners = List.copyOf(listeners);
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        listeners.forEach(listener -> listener.onPartitionsRevokedBeforeCommit(consumer, partitions));
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        listeners.forEach(listener -> listener.onPartitionsRevokedAfterCommit(consumer, partitions));
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        listeners.forEach(listener -> listener.onPartitionsLost(consumer, partitions));
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        listeners.forEach(listener -> listener.onPartitionsAssigned(consumer, partitions));
+    }
+}
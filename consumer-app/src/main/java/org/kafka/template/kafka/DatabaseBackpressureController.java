@@ -0,0 +1,184 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.kafka.template.config.BackpressureProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a degraded database from turning valid users into DLT records. Every check-interval-ms it looks at the
+ * Hikari pool (threads waiting for a connection, mean wait) and at the writes of {@link UserConsumer} since the
+ * previous check (share failed because the database was unavailable, mean latency). When a threshold is exceeded the
+ * listener containers are paused, and they are resumed after resume-after-healthy-checks healthy checks in a row.
+ * <p>
+ * A paused container keeps polling without fetching, so the consumer stays in the group and no rebalance is
+ * triggered however long the pause lasts. Writes failing with such a database error are not retried towards the DLT:
+ * the listener nacks the record, which is delivered again after the delay returned by {@link #writeFailed}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "single", matchIfMissing = true)
+public class DatabaseBackpressureController {
+
+    private final BackpressureProperties properties;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final MeterRegistry meterRegistry;
+    private final LongAdder writes = new LongAdder();
+    private final LongAdder failedWrites = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private final RedeliveryBackoff redeliveryBackoff;
+    private final Counter redeliveries;
+    private double lastAcquireNanos;
+    private long lastAcquireCount;
+    private int healthyChecks;
+    private volatile boolean paused;
+
+    public DatabaseBackpressureController(BackpressureProperties properties,
+                                          KafkaListenerEndpointRegistry listenerRegistry,
+                                          MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.redeliveryBackoff = new RedeliveryBackoff(properties);
+        this.listenerRegistry = listenerRegistry;
+        this.meterRegistry = meterRegistry;
+        this.redeliveries = Counter.builder("kafka.consumer.backpressure.redeliveries")
+                .description("Records nacked because the database was unavailable, instead of being retried to the DLT")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.backpressure.paused", this, controller -> controller.paused ? 1 : 0)
+                .description("1 while the listener containers are paused because the database is degraded")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return whether the write failed because the database was unavailable and its record should be redelivered
+     * instead of retried towards the DLT
+     */
+    public boolean shouldRedeliver(Throwable failure) {
+        return properties.isEnabled() && isDatabaseUnavailable(failure);
+    }
+
+    public void written(long latencyNanos) {
+        writes.increment();
+        writeNanos.add(latencyNanos);
+        redeliveryBackoff.succeeded();
+    }
+
+    /**
+     * Counts a write that failed because the database was unavailable.
+     *
+     * @return the delay before its record is delivered again
+     */
+    public Duration writeFailed(long latencyNanos) {
+        writes.increment();
+        failedWrites.increment();
+        writeNanos.add(latencyNanos);
+        redeliveries.increment();
+        return redeliveryBackoff.failed();
+    }
+
+    @Scheduled(fixedDelayString = "${spring.kafka.listener.backpressure.check-interval-ms:1000}")
+    public synchronized void check() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        String degradation = degradation();
+        if (degradation != null) {
+            healthyChecks = 0;
+            if (!paused) {
+                pause(degradation);
+            }
+        } else if (paused && ++healthyChecks >= properties.getResumeAfterHealthyChecks()) {
+            resume();
+        }
+    }
+
+    boolean isPaused() {
+        return paused;
+    }
+
+    /**
+     * @return what is degraded, or {@code null} when the database looks healthy
+     */
+    private String degradation() {
+        long attempted = writes.sumThenReset();
+        long failed = failedWrites.sumThenReset();
+        long latencyNanos = writeNanos.sumThenReset();
+
+        double pending = meterRegistry.find("hikaricp.connections.pending").gauges().stream()
+                .mapToDouble(Gauge::value).sum();
+        if (pending > properties.getMaxPendingConnections()) {
+            return "pool-pending";
+        }
+        if (connectionWaitNanos() > TimeUnit.MILLISECONDS.toNanos(properties.getMaxConnectionWaitMs())) {
+            return "pool-wait";
+        }
+        if (attempted >= properties.getMinWrites() && (double) failed / attempted > properties.getMaxErrorRate()) {
+            return "error-rate";
+        }
+        if (attempted > 0 && latencyNanos / attempted > TimeUnit.MILLISECONDS.toNanos(properties.getMaxWriteLatencyMs())) {
+            return "write-latency";
+        }
+        return null;
+    }
+
+    // Mean connection acquire time since the previous check
+    private double connectionWaitNanos() {
+        double totalNanos = 0;
+        long count = 0;
+        for (Timer timer : meterRegistry.find("hikaricp.connections.acquire").timers()) {
+            totalNanos += timer.totalTime(TimeUnit.NANOSECONDS);
+            count += timer.count();
+        }
+        long acquired = count - lastAcquireCount;
+        double waitNanos = acquired > 0 ? (totalNanos - lastAcquireNanos) / acquired : 0;
+        lastAcquireNanos = totalNanos;
+        lastAcquireCount = count;
+        return waitNanos;
+    }
+
+    private void pause(String degradation) {
+        paused = true;
+        Counter.builder("kafka.consumer.backpressure.pauses")
+                .description("Times the listener containers were paused because the database was degraded")
+                .tag("reason", degradation)
+                .register(meterRegistry)
+                .increment();
+        listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::pause);
+        log.warn("Database degraded ({}), pausing the listener containers", degradation);
+    }
+
+    private void resume() {
+        paused = false;
+        healthyChecks = 0;
+        listenerRegistry.getListenerContainers().forEach(MessageListenerContainer::resume);
+        log.info("Database healthy again, resuming the listener containers");
+    }
+
+    static boolean isDatabaseUnavailable(Throwable failure) {
+        for (Throwable cause = failure; cause != null; cause = cause.getCause()) {
+            if (cause instanceof TransientDataAccessException
+                    || cause instanceof RecoverableDataAccessException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof SQLTransientException) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
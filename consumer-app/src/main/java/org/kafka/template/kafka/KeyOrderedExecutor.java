@@ -0,0 +1,50 @@
+package org.kafka.template.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs tasks on a fixed number of single-threaded lanes, picked by the hash of a key. Tasks of the same key run
+ * one after the other in submission order, tasks of different keys can run in parallel.
+ */
+@Slf4j
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private final ExecutorService[] lanes;
+
+    public KeyOrderedExecutor(int lanes, ThreadFactory threadFactory) {
+        this.lanes = new ExecutorService[lanes];
+        for (int i = 0; i < lanes; i++) {
+            this.lanes[i] = Executors.newSingleThreadExecutor(threadFactory);
+        }
+    }
+
+    public void execute(Object key, Runnable task) {
+        lanes[Math.floorMod(Objects.hashCode(key), lanes.length)].execute(task);
+    }
+
+    /**
+     * Lets the lanes finish the tasks already submitted.
+     */
+    @Override
+    public void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                if (!lane.awaitTermination(30, TimeUnit.SECONDS)) {
+                    log.warn("Lane did not finish its records in time, they will be redelivered");
+                    lane.shutdownNow();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
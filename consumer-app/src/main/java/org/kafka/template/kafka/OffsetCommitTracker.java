@@ -0,0 +1,98 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.OffsetCommitCallback;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Commit callback and rebalance listener of every listener container. With async commits the container thread
+ * does not wait for the group coordinator; a failed commit is remembered here and superseded by the next one.
+ * <p>
+ * When partitions are revoked the container commits their pending acks asynchronously once more. This listener
+ * then commits synchronously: it waits for the commits still in flight and commits again what failed, so the
+ * next owner of a partition starts at the last processed offset.
+ */
+@Slf4j
+@Component
+public class OffsetCommitTracker implements OffsetCommitCallback, ConsumerAwareRebalanceListener {
+
+    private final Map<TopicPartition, OffsetAndMetadata> failedCommits = new ConcurrentHashMap<>();
+    private final Counter successfulCommits;
+    private final Counter failedCommitCount;
+    private final Timer revocationCommits;
+
+    public OffsetCommitTracker(MeterRegistry meterRegistry) {
+        this.successfulCommits = Counter.builder("kafka.consumer.offset.commits")
+                .description("Async offset commits completed by the group coordinator")
+                .tag("result", "success")
+                .register(meterRegistry);
+        this.failedCommitCount = Counter.builder("kafka.consumer.offset.commits")
+                .description("Async offset commits completed by the group coordinator")
+                .tag("result", "failure")
+                .register(meterRegistry);
+        this.revocationCommits = Timer.builder("kafka.consumer.offset.commit.revocation")
+                .description("Synchronous offset commits on partition revocation")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void onComplete(Map<TopicPartition, OffsetAndMetadata> offsets, Exception exception) {
+        if (exception == null) {
+            successfulCommits.increment();
+            // A later commit supersedes a failed one unless it is behind it
+            offsets.forEach((partition, committed) -> failedCommits.computeIfPresent(partition,
+                    (key, failed) -> failed.offset() <= committed.offset() ? null : failed));
+            return;
+        }
+        failedCommitCount.increment();
+        offsets.forEach((partition, offset) -> failedCommits.merge(partition, offset,
+                (failed, latest) -> latest.offset() >= failed.offset() ? latest : failed));
+        log.warn("Async offset commit of {} failed, retried with the next commit: {}", offsets.keySet(),
+                exception.getMessage());
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revocationCommits.record(() -> {
+            try {
+                // Blocks until the callbacks of all async commits have run, even with nothing to commit
+                consumer.commitSync(Map.of());
+
+                Map<TopicPartition, OffsetAndMetadata> retry = new HashMap<>();
+                for (TopicPartition partition : partitions) {
+                    OffsetAndMetadata failed = failedCommits.remove(partition);
+                    if (failed != null) {
+                        retry.put(partition, failed);
+                    }
+                }
+                if (!retry.isEmpty()) {
+                    consumer.commitSync(retry);
+                    log.info("Committed offsets of revoked partitions after a failed async commit: {}", retry);
+                }
+            } catch (KafkaException e) {
+                partitions.forEach(failedCommits::remove);
+                log.error("Offsets of revoked partitions {} could not be committed, their records will be "
+                        + "redelivered: {}", partitions, e.getMessage());
+            }
+        });
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Already owned by another consumer, committing for them would fail
+        partitions.forEach(failedCommits::remove);
+    }
+}
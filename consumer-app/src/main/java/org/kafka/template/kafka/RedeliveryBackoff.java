@@ -0,0 +1,33 @@
+package org.kafka.template.kafka;
+
+import org.kafka.template.config.BackpressureProperties;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Delay before a record, or a poll, whose write failed because the database was unavailable is delivered again.
+ * It starts at redelivery-delay-ms and doubles with every further failure in a row, up to max-redelivery-delay-ms.
+ */
+class RedeliveryBackoff {
+
+    private final BackpressureProperties properties;
+    private final AtomicInteger failuresInARow = new AtomicInteger();
+
+    RedeliveryBackoff(BackpressureProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * Counts a failed write and returns the delay before it is delivered again.
+     */
+    Duration failed() {
+        int failures = failuresInARow.incrementAndGet();
+        long delay = properties.getRedeliveryDelayMs() << Math.min(failures - 1, 20);
+        return Duration.ofMillis(Math.min(delay, properties.getMaxRedeliveryDelayMs()));
+    }
+
+    void succeeded() {
+        failuresInARow.set(0);
+    }
+}
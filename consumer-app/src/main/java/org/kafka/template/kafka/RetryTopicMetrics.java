@@ -0,0 +1,53 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.kafka.template.models.User;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counts the outcome of every record consumed from a retry topic, tagged with the topic, so the success rate of
+ * each retry tier is {@code success / (success + failure)}. Records of other topics are not counted.
+ */
+@Component
+public class RetryTopicMetrics implements RecordInterceptor<String, User> {
+
+    private static final String RETRY_TOPIC_MARKER = "-retry";
+
+    private final MeterRegistry meterRegistry;
+
+    public RetryTopicMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public ConsumerRecord<String, User> intercept(ConsumerRecord<String, User> record,
+                                                    Consumer<String, User> consumer) {
+        return record;
+    }
+
+    @Override
+    public void success(ConsumerRecord<String, User> record, Consumer<String, User> consumer) {
+        count(record, "success");
+    }
+
+    @Override
+    public void failure(ConsumerRecord<String, User> record, Exception exception, Consumer<String, User> consumer) {
+        count(record, "failure");
+    }
+
+    private void count(ConsumerRecord<String, User> record, String result) {
+        if (!record.topic().contains(RETRY_TOPIC_MARKER)) {
+            return;
+        }
+        Counter.builder("kafka.consumer.retry.records")
+                .description("Records consumed from a retry topic, by outcome")
+                .tag("topic", record.topic())
+                .tag("result", result)
+                .register(meterRegistry)
+                .increment();
+    }
+}
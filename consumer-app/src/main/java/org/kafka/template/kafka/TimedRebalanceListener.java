@@ -0,0 +1,97 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times the rebalance callbacks of a listener container and counts the partitions that move. The callbacks are the
+ * part of a rebalance spent in this application: flushing and committing before partitions are revoked, seeking
+ * once they are assigned. A revocation is timed from before the container's commit of the pending acks until after
+ * it. The rebalances themselves are measured by the Kafka client, see MicrometerConsumerListener.
+ */
+@Slf4j
+public class TimedRebalanceListener implements ConsumerAwareRebalanceListener {
+
+    private final ConsumerAwareRebalanceListener delegate;
+    private final Timer revocations;
+    private final Timer assignments;
+    private final Timer losses;
+    private final Counter revokedPartitions;
+    private final Counter assignedPartitions;
+    private final Counter lostPartitions;
+    // Callbacks run on the consumer thread, and containers with several consumers share this listener
+    private final ThreadLocal<Long> revocationStart = new ThreadLocal<>();
+
+    public TimedRebalanceListener(ConsumerAwareRebalanceListener delegate, MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.revocations = callbacks(meterRegistry, "revoked");
+        this.assignments = callbacks(meterRegistry, "assigned");
+        this.losses = callbacks(meterRegistry, "lost");
+        this.revokedPartitions = partitions(meterRegistry, "revoked");
+        this.assignedPartitions = partitions(meterRegistry, "assigned");
+        this.lostPartitions = partitions(meterRegistry, "lost");
+    }
+
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        revocationStart.set(System.nanoTime());
+        delegate.onPartitionsRevokedBeforeCommit(consumer, partitions);
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        try {
+            delegate.onPartitionsRevokedAfterCommit(consumer, partitions);
+        } finally {
+            Long start = revocationStart.get();
+            revocationStart.remove();
+            if (start != null) {
+                long nanos = System.nanoTime() - start;
+                revocations.record(nanos, TimeUnit.NANOSECONDS);
+                revokedPartitions.increment(partitions.size());
+                log.info("Partitions revoked after {} ms of flushing and committing: {}",
+                        TimeUnit.NANOSECONDS.toMillis(nanos), partitions);
+            }
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        lostPartitions.increment(partitions.size());
+        losses.record(() -> delegate.onPartitionsLost(consumer, partitions));
+        log.warn("Partitions lost, already owned by another consumer: {}", partitions);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        long start = System.nanoTime();
+        try {
+            delegate.onPartitionsAssigned(consumer, partitions);
+        } finally {
+            assignments.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            assignedPartitions.increment(partitions.size());
+        }
+    }
+
+    private static Timer callbacks(MeterRegistry meterRegistry, String callback) {
+        return Timer.builder("kafka.consumer.rebalance.callbacks")
+                .description("Time spent in the rebalance callbacks of the listener containers")
+                .tag("callback", callback)
+                .register(meterRegistry);
+    }
+
+    private static Counter partitions(MeterRegistry meterRegistry, String change) {
+        return Counter.builder("kafka.consumer.rebalance.partitions")
+                .description("Partitions assigned to, revoked from or lost by the listener containers")
+                .tag("change", change)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,127 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.observation.annotation.Observed;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.kafka.template.config.BackpressureProperties;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.OffsetStore;
+import org.kafka.template.sink.UserSink;
+import org.kafka.template.utils.ValidatorUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.SerializationUtils;
+import org.springframework.core.log.LogAccessor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Batch counterpart of {@link UserConsumer}, enabled with {@code spring.kafka.listener.type=batch}. Every poll is
+ * validated as a whole and its valid users are written by the {@link UserSink} in one transaction, together with
+ * the offsets of the poll when they are kept by the {@link OffsetStore}. Records that fail validation are sent to the
+ * DLT one by one once the valid users are written, and do not hold back the rest of the poll.
+ * <p>
+ * A poll whose write fails because the database is unavailable is nacked and delivered again, with a delay that
+ * doubles up to max-redelivery-delay-ms, rather than retried by the error handler towards the DLT with its valid users.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "batch")
+public class UserBatchConsumer {
+
+    private static final LogAccessor LOG_ACCESSOR = new LogAccessor(UserBatchConsumer.class);
+
+    private final ValidatorUtils validatorUtils;
+    private final OffsetStore offsetStore;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final BackpressureProperties backpressureProperties;
+    private final RedeliveryBackoff redeliveryBackoff;
+
+    public UserBatchConsumer(ValidatorUtils validatorUtils, OffsetStore offsetStore,
+                             DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+                             BackpressureProperties backpressureProperties) {
+        this.validatorUtils = validatorUtils;
+        this.offsetStore = offsetStore;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.backpressureProperties = backpressureProperties;
+        this.redeliveryBackoff = new RedeliveryBackoff(backpressureProperties);
+    }
+
+    @Observed
+    @KafkaListener(topics = "${spring.kafka.topics.user-created}", groupId = "user-group", containerFactory = "batchKafkaListenerContainerFactory")
+    public void consume(List<ConsumerRecord<String, User>> records, Acknowledgment ack) {
+        List<ConsumedUser> users = new ArrayList<>(records.size());
+        List<Rejected> rejected = new ArrayList<>();
+        for (int index = 0; index < records.size(); index++) {
+            User user = toValidUser(records.get(index), index, rejected);
+            if (user != null) {
+                users.add(ConsumedUser.of(user, records.get(index)));
+            }
+        }
+
+        // Acknowledged only once the sink has committed. Any other failure is retried by the error handler with the
+        // whole batch. The offsets cover the rejected records as well, so the whole poll is stored as consumed
+        try {
+            offsetStore.write(users, OffsetStore.nextOffsets(records));
+        } catch (RuntimeException e) {
+            if (!backpressureProperties.isEnabled() || !DatabaseBackpressureController.isDatabaseUnavailable(e)) {
+                throw e;
+            }
+            Duration delay = redeliveryBackoff.failed();
+            log.warn("Database unavailable, redelivering a batch of {} records in {} ms: {}", records.size(),
+                    delay.toMillis(), e.getMessage());
+            ack.nack(0, delay);
+            return;
+        }
+        redeliveryBackoff.succeeded();
+
+        // Only now, so that a batch retried after a failed write does not send its rejected records again
+        for (Rejected rejection : rejected) {
+            try {
+                deadLetterPublishingRecoverer.accept(rejection.record(), rejection.cause());
+            } catch (RuntimeException e) {
+                // The error handler retries the batch from this record, whose users are already written
+                throw new BatchListenerFailedException("User could not be sent to the DLT", e, rejection.index());
+            }
+        }
+        ack.acknowledge();
+
+        log.info("Saved {} users of a batch of {} records", users.size(), records.size());
+    }
+
+    private User toValidUser(ConsumerRecord<String, User> record, int index, List<Rejected> rejected) {
+        // Batches are handed over as polled, so unreadable values arrive here as null
+        DeserializationException unreadable = SerializationUtils.getExceptionFromHeader(record,
+                SerializationUtils.VALUE_DESERIALIZER_EXCEPTION_HEADER, LOG_ACCESSOR);
+        if (unreadable != null) {
+            log.error("Unreadable user payload received: {}", unreadable.getMessage());
+            rejected.add(new Rejected(record, index, unreadable));
+            return null;
+        }
+        try {
+            User user = record.value();
+            validatorUtils.validate(user);
+
+            if (user.getAge() != null && user.getAge() < 18) {
+                log.warn("Underage user detected: {}", user);
+            }
+            return user;
+        } catch (ConstraintViolationException e) {
+            log.error("Invalid user payload received: {}", e.getMessage());
+            rejected.add(new Rejected(record, index, e));
+        }
+        return null;
+    }
+
+    private record Rejected(ConsumerRecord<String, User> record, int index, Exception cause) {
+    }
+}
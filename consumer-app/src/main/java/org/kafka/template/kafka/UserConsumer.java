@@ -1,62 +1,119 @@
 package org.kafka.template.kafka;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.micrometer.observation.annotation.Observed;
 import jakarta.validation.ConstraintViolationException;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
-import org.kafka.template.entity.UserEntity;
-import org.kafka.template.mapper.UserMapper;
+import org.apache.kafka.common.TopicPartition;
 import org.kafka.template.models.User;
-import org.kafka.template.repository.UserRepository;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.OffsetStore;
 import org.kafka.template.utils.ValidatorUtils;
+import org.slf4j.event.Level;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
 @Service
 @Slf4j
+@ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "single", matchIfMissing = true)
 public class UserConsumer {
 
-    private final ObjectMapper mapper = new ObjectMapper();
     private final ValidatorUtils validatorUtils;
-    private final UserRepository userRepository;
-    private final UserMapper userMapper;
+    private final OffsetStore offsetStore;
+    private final UserDedupCache userDedupCache;
+    private final DatabaseBackpressureController backpressureController;
+    private final CatchUpController catchUpController;
 
-    public UserConsumer(ValidatorUtils validatorUtils, UserRepository userRepository, UserMapper userMapper) {
-        this.userRepository = userRepository;
-        this.userMapper = userMapper;
+    public UserConsumer(ValidatorUtils validatorUtils, OffsetStore offsetStore, UserDedupCache userDedupCache,
+                        DatabaseBackpressureController backpressureController, CatchUpController catchUpController) {
+        this.offsetStore = offsetStore;
         this.validatorUtils = validatorUtils;
+        this.userDedupCache = userDedupCache;
+        this.backpressureController = backpressureController;
+        this.catchUpController = catchUpController;
     }
 
     @Observed
     @KafkaListener(topics = "${spring.kafka.topics.user-created}", groupId = "user-group", containerFactory = "kafkaListenerContainerFactory")
-    public void consume(ConsumerRecord<String, Object> record, Acknowledgment ack) {
+    public void consume(ConsumerRecord<String, User> record, Acknowledgment ack) {
+        // Lowered to debug while working through a backlog
+        Level recordLogLevel = catchUpController.recordLogLevel();
         try {
 
-            log.info("Received record: {}", record.value());
-            User user = mapper.convertValue(record.value(), User.class);
+            log.atLevel(recordLogLevel).log("Received record: {}", record.value());
+            User user = record.value();
             validatorUtils.validate(user);
 
-            log.info("Consumed valid user: {}. partition: {}, offset: {}, key: {}", user, record.partition(), record.offset(), record.key());
+            log.atLevel(recordLogLevel).log("Consumed valid user: {}. partition: {}, offset: {}, key: {}", user, record.partition(), record.offset(), record.key());
 
             if (user.getAge() != null && user.getAge() < 18) {
                 log.warn("Underage user detected: {}", user);
             }
 
-            UserEntity userEntity = userMapper.toUserEntity(user);
-            userRepository.save(userEntity);
-            log.info("User saved to database with key: {}", userEntity.getId());
+            if (userDedupCache.isUnchanged(user)) {
+                log.atLevel(recordLogLevel).log("User {} is unchanged since it was last saved, skipping the write", user.getId());
+                offsetStore.write(List.of(), nextOffset(record));
+                ack.acknowledge();
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                offsetStore.write(List.of(ConsumedUser.of(user, record)), nextOffset(record));
+            } catch (RuntimeException e) {
+                if (!backpressureController.shouldRedeliver(e)) {
+                    throw e;
+                }
+                // A valid user is not sent towards the DLT because the database is briefly unavailable
+                Duration delay = backpressureController.writeFailed(System.nanoTime() - start);
+                log.warn("Database unavailable, redelivering user {} in {} ms: {}", user.getId(), delay.toMillis(),
+                        e.getMessage());
+                ack.nack(delay);
+                return;
+            }
+            backpressureController.written(System.nanoTime() - start);
+            userDedupCache.written(user, record);
+            log.atLevel(recordLogLevel).log("User saved to database with user id: {}", user.getId());
             ack.acknowledge();
 
         } catch (ConstraintViolationException e) {
             log.error("Invalid user payload received: {}", e.getMessage());
+            storeOffsetOfForwarded(record);
             ack.acknowledge();
             throw e; // Re-throw to trigger error handling if necessary
         } catch (Exception e) {
             log.error("Error during message validation or processing", e);
+            if (record.value() != null) {
+                // The user goes on to the retry topics or the DLT, so an older version must not be skipped meanwhile
+                userDedupCache.forget(record.value().getId());
+            }
+            storeOffsetOfForwarded(record);
             ack.acknowledge();
             throw new RuntimeException("Error processing user message", e);
         }
     }
+
+    /**
+     * Stores the offset past a record the error handler forwards to the retry topics or the DLT, in a transaction of
+     * its own since the user's one rolled back. Otherwise the database offset store would resume the partition before
+     * the record after a reassignment and forward it again.
+     */
+    private void storeOffsetOfForwarded(ConsumerRecord<String, User> record) {
+        try {
+            offsetStore.write(List.of(), nextOffset(record));
+        } catch (RuntimeException e) {
+            log.warn("Offset of forwarded record {}-{}@{} not stored, it may be forwarded again after a reassignment: {}",
+                    record.topic(), record.partition(), record.offset(), e.getMessage());
+        }
+    }
+
+    private static Map<TopicPartition, Long> nextOffset(ConsumerRecord<?, ?> record) {
+        return Map.of(new TopicPartition(record.topic(), record.partition()), record.offset() + 1);
+    }
 }
@@ -0,0 +1,204 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.kafka.template.config.DedupProperties;
+import org.kafka.template.models.User;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers the content last written for each user id, so that {@link UserConsumer} skips writes that would not
+ * change the contact, e.g. records redelivered after a rebalance or a restart. A Bloom filter of the cached user ids
+ * answers for users never written without taking the cache lock; the cache itself is a bounded LRU of
+ * user id to a 64-bit hash of the written content.
+ * <p>
+ * Entries are dropped together with the partition they were read from when it is revoked or lost, since its next
+ * owner may write newer events of those users meanwhile, and one by one when a user's write fails. Only valid while all events of a user go to the same
+ * partition, i.e. not with hot keys spread by HotKeySpreadingPartitioner.
+ */
+@Slf4j
+@Component
+public class UserDedupCache implements ConsumerAwareRebalanceListener {
+
+    // LinkedHashMap entry, boxed key and the Applied record, roughly
+    static final long ENTRY_BYTES = 96;
+
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final DedupProperties properties;
+    private final Map<Integer, Applied> applied;
+    private final Counter newUsers;
+    private final Counter uncachedUsers;
+    private final Counter changedUsers;
+    private final Counter unchangedUsers;
+    private volatile BloomFilter bloomFilter;
+    private int bloomInsertions;
+
+    public UserDedupCache(DedupProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.applied = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Applied> eldest) {
+                return size() > properties.getCapacity();
+            }
+        };
+        this.bloomFilter = newBloomFilter();
+        this.newUsers = lookups(meterRegistry, "new");
+        this.uncachedUsers = lookups(meterRegistry, "not-cached");
+        this.changedUsers = lookups(meterRegistry, "changed");
+        this.unchangedUsers = lookups(meterRegistry, "unchanged");
+        Gauge.builder("kafka.consumer.dedup.entries", this, UserDedupCache::size)
+                .description("Users whose last written content is cached")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.dedup.memory", this, UserDedupCache::memoryBytes)
+                .description("Estimated memory of the dedup cache and its Bloom filter")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return {@code true} when the user was last written with exactly this content, so writing it again would
+     * not change the contact
+     */
+    public boolean isUnchanged(User user) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        if (!bloomFilter.mightContain(user.getId())) {
+            newUsers.increment();
+            return false;
+        }
+        Applied last;
+        synchronized (this) {
+            last = applied.get(user.getId());
+        }
+        if (last == null) {
+            uncachedUsers.increment();
+            return false;
+        }
+        if (last.contentHash() != contentHash(user)) {
+            changedUsers.increment();
+            return false;
+        }
+        unchangedUsers.increment();
+        return true;
+    }
+
+    /**
+     * Records the content of a user once it is written, read from the record's partition.
+     */
+    public void written(User user, ConsumerRecord<?, ?> record) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Applied written = new Applied(new TopicPartition(record.topic(), record.partition()), contentHash(user));
+        synchronized (this) {
+            applied.put(user.getId(), written);
+            // Evicted ids stay in the filter, so it is rebuilt before it fills up
+            if (++bloomInsertions > 2 * properties.getCapacity()) {
+                rebuildBloomFilter();
+            } else {
+                bloomFilter.put(user.getId());
+            }
+        }
+    }
+
+    /**
+     * Drops a user whose latest event failed to be written and went on towards the retry topics or the DLT. The
+     * contact is written from there later, so the cached content no longer tells what the database holds.
+     */
+    public void forget(Integer userId) {
+        if (!properties.isEnabled() || userId == null) {
+            return;
+        }
+        // The id stays in the Bloom filter until the next rebuild, which only costs a cache lookup
+        synchronized (this) {
+            applied.remove(userId);
+        }
+    }
+
+    @Override
+    public void onPartitionsRevokedAfterCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        forget(partitions);
+    }
+
+    synchronized void forget(Collection<TopicPartition> partitions) {
+        Set<TopicPartition> revoked = new HashSet<>(partitions);
+        if (applied.values().removeIf(entry -> revoked.contains(entry.partition()))) {
+            rebuildBloomFilter();
+            log.debug("Dropped cached users of revoked partitions {}, {} left", partitions, applied.size());
+        }
+    }
+
+    synchronized int size() {
+        return applied.size();
+    }
+
+    long memoryBytes() {
+        return size() * ENTRY_BYTES + bloomFilter.sizeInBytes();
+    }
+
+    private void rebuildBloomFilter() {
+        BloomFilter rebuilt = newBloomFilter();
+        applied.keySet().forEach(rebuilt::put);
+        bloomFilter = rebuilt;
+        bloomInsertions = applied.size();
+    }
+
+    private BloomFilter newBloomFilter() {
+        return new BloomFilter(2 * properties.getCapacity(), properties.getBloomFalsePositiveRate());
+    }
+
+    /**
+     * 64-bit FNV-1a of the written fields. Unlike a 32-bit hash, a collision between two versions of the same user
+     * is not a practical concern.
+     */
+    static long contentHash(User user) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, user.getName());
+        hash = hash(hash, user.getEmail());
+        hash = hash(hash, user.getAge() == null ? null : user.getAge().toString());
+        return hash;
+    }
+
+    private static long hash(long hash, String field) {
+        if (field == null) {
+            // Keeps a null apart from an empty string
+            return (hash ^ 0xFF) * FNV_PRIME;
+        }
+        for (byte b : field.getBytes(StandardCharsets.UTF_8)) {
+            hash = (hash ^ (b & 0xFF)) * FNV_PRIME;
+        }
+        // Field separator, so that "ab" + "c" differs from "a" + "bc"
+        return (hash ^ 0xFE) * FNV_PRIME;
+    }
+
+    private static Counter lookups(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("kafka.consumer.dedup.lookups")
+                .description("Users checked against the dedup cache before they are written; unchanged ones are skipped")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Applied(TopicPartition partition, long contentHash) {
+    }
+}
@@ -0,0 +1,295 @@
+package org.kafka.template.kafka;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.kafka.template.config.ParallelConsumerProperties;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.UserSink;
+import org.kafka.template.utils.ValidatorUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Key-ordered counterpart of {@link UserConsumer}, enabled with {@code spring.kafka.listener.type=parallel}. The
+ * container thread only hands each record to the {@link KeyOrderedExecutor} lane of its key (the user id), so the
+ * records of one partition are saved in parallel while every user's events stay in order.
+ * <p>
+ * Records are acknowledged out of order from the lanes. The container runs with async acks and only commits an
+ * offset once every record before it is acknowledged, i.e. the highest contiguous completed offset per partition.
+ * Failed saves are retried in the lane, then sent to the DLT. Before partitions are revoked, the records of those
+ * partitions still in the lanes are finished, so that their offsets are committed before the partitions move.
+ * <p>
+ * The container thread never waits for the lanes: once {@code max-in-flight} records are in them, the container is
+ * paused, and the lanes resume it when half of them are acknowledged.
+ * <p>
+ * Since nothing after an unacknowledged record is committed, every record has to end up acknowledged: a DLT that
+ * cannot be reached is retried with a growing backoff for up to {@code dlt-timeout-ms}. A record the DLT still does
+ * not take, or one left by a lane interrupted on shutdown, stops the listener container, so the record is
+ * redelivered from the committed offset instead of holding back the commits of its partition.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "parallel")
+public class UserParallelConsumer implements ConsumerAwareRebalanceListener {
+
+    static final String LISTENER_ID = "userParallelConsumer";
+    private static final long MAX_DLT_BACKOFF_MS = 30_000;
+
+    private final ValidatorUtils validatorUtils;
+    private final UserSink userSink;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final FixedBackOff retryBackOff;
+    private final ExponentialBackOff dltBackOff;
+    private final int maxInFlight;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // Guards pausing and resuming the container for the lanes
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    private volatile boolean paused;
+    private final KeyOrderedExecutor lanes;
+    private final long revocationDrainTimeoutMs;
+    // Records handed to the lanes and not finished yet, per partition
+    private final Map<TopicPartition, AtomicInteger> unfinished = new ConcurrentHashMap<>();
+
+    public UserParallelConsumer(ValidatorUtils validatorUtils, UserSink userSink,
+                                DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+                                KafkaListenerEndpointRegistry listenerRegistry, ParallelConsumerProperties properties) {
+        this.validatorUtils = validatorUtils;
+        this.userSink = userSink;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.listenerRegistry = listenerRegistry;
+        this.retryBackOff = new FixedBackOff(properties.getRetryBackoffMs(), properties.getRetryAttempts());
+        this.dltBackOff = new ExponentialBackOff(properties.getRetryBackoffMs(), 2.0);
+        this.dltBackOff.setMaxInterval(Math.max(properties.getRetryBackoffMs(), MAX_DLT_BACKOFF_MS));
+        this.dltBackOff.setMaxElapsedTime(properties.getDltTimeoutMs());
+        this.maxInFlight = properties.getMaxInFlight();
+        this.lanes = new KeyOrderedExecutor(properties.getLanes(), properties.isVirtualThreads()
+                ? Thread.ofVirtual().name("user-lane-", 0).factory()
+                : Thread.ofPlatform().name("user-lane-", 0).daemon().factory());
+        this.revocationDrainTimeoutMs = properties.getRevocationDrainTimeoutMs();
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = "${spring.kafka.topics.user-created}", groupId = "user-group", containerFactory = "parallelKafkaListenerContainerFactory")
+    public void consume(ConsumerRecord<String, User> record, Acknowledgment ack) {
+        if (inFlight.incrementAndGet() >= maxInFlight) {
+            pauseOrResume();
+        }
+        TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+        unfinished.computeIfAbsent(partition, key -> new AtomicInteger()).incrementAndGet();
+        // Records without a key keep the order of their partition
+        Object key = record.key() != null ? record.key() : record.partition();
+        try {
+            lanes.execute(key, () -> process(record, ack, partition));
+        } catch (RejectedExecutionException e) {
+            finished(partition);
+            throw e;
+        }
+    }
+
+    private void process(ConsumerRecord<String, User> record, Acknowledgment ack, TopicPartition partition) {
+        try {
+            if (handle(record)) {
+                ack.acknowledge();
+            } else {
+                giveUp(record);
+            }
+        } finally {
+            finished(partition);
+        }
+    }
+
+    private void finished(TopicPartition partition) {
+        if (inFlight.decrementAndGet() <= maxInFlight / 2 && paused) {
+            pauseOrResume();
+        }
+        if (unfinished.get(partition).decrementAndGet() == 0) {
+            synchronized (unfinished) {
+                unfinished.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Pauses the container while the lanes are full, rather than blocking its thread past {@code max.poll.interval.ms},
+     * and resumes it once they are half empty. The pause takes effect at the next poll, so the rest of the current
+     * one still goes to the lanes.
+     */
+    private void pauseOrResume() {
+        pauseLock.lock();
+        try {
+            if (!paused && inFlight.get() >= maxInFlight) {
+                paused = true;
+                container().pause();
+                log.warn("{} records in the lanes, pausing the listener container", inFlight.get());
+            }
+            // Checked again right after pausing, for lanes that finished before they could see the pause
+            if (paused && inFlight.get() <= maxInFlight / 2) {
+                paused = false;
+                container().resume();
+                log.info("Lanes down to {} records, resuming the listener container", inFlight.get());
+            }
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the lanes to finish the records of the revoked partitions, so that the container commits their
+     * acks with the revocation.
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!awaitFinished(partitions, revocationDrainTimeoutMs)) {
+            log.warn("Lanes did not finish the records of revoked partitions {} within {} ms, they will be "
+                    + "redelivered", partitions, revocationDrainTimeoutMs);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Already owned by another consumer, their offsets can no longer be committed
+    }
+
+    boolean awaitFinished(Collection<TopicPartition> partitions, long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (unfinished) {
+            while (partitions.stream().anyMatch(this::hasUnfinished)) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    unfinished.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean hasUnfinished(TopicPartition partition) {
+        AtomicInteger count = unfinished.get(partition);
+        return count != null && count.get() > 0;
+    }
+
+    private boolean handle(ConsumerRecord<String, User> record) {
+        User user = record.value();
+        try {
+            validatorUtils.validate(user);
+        } catch (ConstraintViolationException e) {
+            log.error("Invalid user payload received: {}", e.getMessage());
+            return sendToDlt(record, e);
+        }
+
+        if (user.getAge() != null && user.getAge() < 18) {
+            log.warn("Underage user detected: {}", user);
+        }
+        return save(ConsumedUser.of(user, record), record);
+    }
+
+    /**
+     * @return {@code false} when the lane gave up before the record was saved or sent to the DLT
+     */
+    private boolean save(ConsumedUser user, ConsumerRecord<String, User> record) {
+        BackOffExecution backOff = retryBackOff.start();
+        while (true) {
+            try {
+                userSink.write(List.of(user));
+                log.debug("User saved to database with user id: {}", user.user().getId());
+                return true;
+            } catch (RuntimeException e) {
+                long delay = backOff.nextBackOff();
+                if (delay == BackOffExecution.STOP) {
+                    return sendToDlt(record, e);
+                }
+                log.warn("Saving user failed, retrying in {} ms: {}", delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Retries for up to dlt-timeout-ms, as the partition cannot commit past the record until the DLT takes it.
+     *
+     * @return {@code false} when the DLT is still unreachable after that, or the lane was interrupted first
+     */
+    private boolean sendToDlt(ConsumerRecord<String, User> record, Exception cause) {
+        BackOffExecution backOff = dltBackOff.start();
+        while (true) {
+            try {
+                deadLetterPublishingRecoverer.accept(record, cause);
+                return true;
+            } catch (RuntimeException e) {
+                long delay = backOff.nextBackOff();
+                if (delay == BackOffExecution.STOP) {
+                    return false;
+                }
+                log.error("User could not be sent to the DLT, retrying in {} ms: {}", delay, e.getMessage());
+                try {
+                    Thread.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+    }
+
+    /**
+     * Stops the container of a record that is left unacknowledged, so that it is redelivered from the committed
+     * offset instead of the container going on without ever committing its partition again.
+     */
+    private void giveUp(ConsumerRecord<String, User> record) {
+        String reason = Thread.currentThread().isInterrupted()
+                ? "Lane interrupted"
+                : "DLT unreachable for " + dltBackOff.getMaxElapsedTime() + " ms";
+        MessageListenerContainer container = container();
+        if (container != null && container.isRunning()) {
+            log.error("{} before user at {}-{}@{} was processed, stopping the listener container",
+                    reason, record.topic(), record.partition(), record.offset());
+            container.stop();
+        } else {
+            log.warn("{} before user at {}-{}@{} was processed, it will be redelivered",
+                    reason, record.topic(), record.partition(), record.offset());
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return listenerRegistry.getListenerContainer(LISTENER_ID);
+    }
+
+    @PreDestroy
+    void close() {
+        lanes.close();
+    }
+}
@@ -0,0 +1,43 @@
+package org.kafka.template.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.kafka.template.models.User;
+import org.kafka.template.utils.ValidatorUtils;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Service;
+
+/**
+ * Write-behind counterpart of {@link UserConsumer}, enabled with {@code spring.kafka.listener.type=write-behind}.
+ * Valid users are handed to the {@link WriteBehindBuffer}, which writes them in batches and acknowledges their
+ * records once the batch is committed. Invalid users are thrown back to the container, whose error handler sends
+ * them to the DLT.
+ */
+@Service
+@Slf4j
+@ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "write-behind")
+public class UserWriteBehindConsumer {
+
+    static final String LISTENER_ID = "userWriteBehindConsumer";
+
+    private final ValidatorUtils validatorUtils;
+    private final WriteBehindBuffer writeBehindBuffer;
+
+    public UserWriteBehindConsumer(ValidatorUtils validatorUtils, WriteBehindBuffer writeBehindBuffer) {
+        this.validatorUtils = validatorUtils;
+        this.writeBehindBuffer = writeBehindBuffer;
+    }
+
+    @KafkaListener(id = LISTENER_ID, topics = "${spring.kafka.topics.user-created}", groupId = "user-group", containerFactory = "writeBehindKafkaListenerContainerFactory")
+    public void consume(ConsumerRecord<String, User> record, Acknowledgment ack) {
+        User user = record.value();
+        validatorUtils.validate(user);
+
+        if (user.getAge() != null && user.getAge() < 18) {
+            log.warn("Underage user detected: {}", user);
+        }
+        writeBehindBuffer.add(record, ack);
+    }
+}
@@ -0,0 +1,319 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.kafka.template.config.WriteBehindProperties;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.UserSink;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.BackOffExecution;
+import org.springframework.util.backoff.ExponentialBackOff;
+import org.springframework.util.backoff.FixedBackOff;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind stage of {@link UserWriteBehindConsumer}. The listener thread only queues each valid user; a flusher
+ * thread writes them to the {@link UserSink} in batches sized by {@link AdaptiveBatchSize}, and acknowledges their
+ * records once the batch is committed. Consumption therefore no longer waits for every database commit.
+ * <p>
+ * Once the buffer holds {@code capacity} records, the listener container is paused, and the flusher resumes it once
+ * the buffer is half empty. The listener itself never blocks, since a pause only takes effect at the next poll: the
+ * rest of the current poll is still buffered. Batches that still fail after the retries are sent to the DLT record
+ * by record. On partition revocation the buffered records are flushed first, so that
+ * their offsets are committed before the partitions move.
+ * <p>
+ * With async acks the container does not poll again until every record of its last poll is acknowledged, so each
+ * container buffers at most one poll, i.e. {@code max.poll.records}. A bigger capacity or batch size gains nothing.
+ * For the same reason an unacknowledged record would stop its container for good: a DLT that cannot be reached is
+ * retried with a growing backoff for up to {@code dlt-timeout-ms}. If it still does not take the record, or the
+ * flusher is interrupted on shutdown, the flusher stops the container, so that the records are redelivered from
+ * the committed offsets.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.kafka.listener.type", havingValue = "write-behind")
+public class WriteBehindBuffer implements ConsumerAwareRebalanceListener {
+
+    private static final long IDLE_POLL_MS = 100;
+    private static final long MAX_DLT_BACKOFF_MS = 30_000;
+
+    private final UserSink userSink;
+    private final DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+    private final KafkaListenerEndpointRegistry listenerRegistry;
+    private final WriteBehindProperties properties;
+    private final BlockingQueue<Pending> queue;
+    private final AdaptiveBatchSize batchSize;
+    private final FixedBackOff retryBackOff;
+    private final ExponentialBackOff dltBackOff;
+    // Queued plus being flushed
+    private final AtomicInteger unflushed = new AtomicInteger();
+    // Guards pausing and resuming the container for the buffer
+    private final ReentrantLock pauseLock = new ReentrantLock();
+    private volatile boolean paused;
+    private final Timer flushes;
+    private final Counter pauses;
+    private final Thread flusher;
+    private volatile boolean running = true;
+
+    public WriteBehindBuffer(UserSink userSink, DeadLetterPublishingRecoverer deadLetterPublishingRecoverer,
+                             KafkaListenerEndpointRegistry listenerRegistry, WriteBehindProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.userSink = userSink;
+        this.deadLetterPublishingRecoverer = deadLetterPublishingRecoverer;
+        this.listenerRegistry = listenerRegistry;
+        this.properties = properties;
+        // Capacity is where the container is paused; the rest of a poll still comes in after that
+        this.queue = new LinkedBlockingQueue<>();
+        this.batchSize = new AdaptiveBatchSize(properties.getInitialBatchSize(), properties.getMinBatchSize(),
+                properties.getMaxBatchSize(), TimeUnit.MILLISECONDS.toNanos(properties.getTargetP99Ms()));
+        this.retryBackOff = new FixedBackOff(properties.getRetryBackoffMs(), properties.getRetryAttempts());
+        this.dltBackOff = new ExponentialBackOff(properties.getRetryBackoffMs(), 2.0);
+        this.dltBackOff.setMaxInterval(Math.max(properties.getRetryBackoffMs(), MAX_DLT_BACKOFF_MS));
+        this.dltBackOff.setMaxElapsedTime(properties.getDltTimeoutMs());
+        this.flushes = Timer.builder("kafka.consumer.write.behind.flush")
+                .description("Batches written by the write-behind flusher")
+                .publishPercentiles(0.99)
+                .register(meterRegistry);
+        this.pauses = Counter.builder("kafka.consumer.write.behind.pauses")
+                .description("Times the listener container was paused because the write-behind buffer was full")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.write.behind.buffered", queue, BlockingQueue::size)
+                .description("Records waiting in the write-behind buffer")
+                .register(meterRegistry);
+        Gauge.builder("kafka.consumer.write.behind.batch.size", batchSize, AdaptiveBatchSize::current)
+                .description("Current adaptive batch size of the write-behind flusher")
+                .register(meterRegistry);
+        this.flusher = Thread.ofPlatform().name("user-write-behind").daemon().start(this::flushLoop);
+    }
+
+    /**
+     * Queues a valid user, and pauses the listener container once the buffer is full.
+     */
+    public void add(ConsumerRecord<String, User> record, Acknowledgment ack) {
+        unflushed.incrementAndGet();
+        queue.add(new Pending(record, ConsumedUser.of(record.value(), record), ack));
+        if (queue.size() >= properties.getCapacity()) {
+            pauseOrResume();
+        }
+    }
+
+    private void pauseOrResume() {
+        pauseLock.lock();
+        try {
+            if (!paused && queue.size() >= properties.getCapacity()) {
+                paused = true;
+                pauses.increment();
+                container().pause();
+                log.warn("Write-behind buffer full with {} records, pausing the listener container", queue.size());
+            }
+            // Checked again right after pausing, in case the flusher drained the buffer before it could see the pause
+            if (paused && queue.size() <= properties.getCapacity() / 2) {
+                paused = false;
+                container().resume();
+                log.info("Write-behind buffer down to {} records, resuming the listener container", queue.size());
+            }
+        } finally {
+            pauseLock.unlock();
+        }
+    }
+
+    /**
+     * Waits for the buffered records to be flushed, so that the container commits their offsets with the revocation.
+     */
+    @Override
+    public void onPartitionsRevokedBeforeCommit(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (!awaitFlushed(properties.getRevocationFlushTimeoutMs())) {
+            log.warn("Write-behind buffer not flushed within {} ms of the revocation of {}, its records will be "
+                    + "redelivered", properties.getRevocationFlushTimeoutMs(), partitions);
+        }
+    }
+
+    @Override
+    public void onPartitionsLost(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        // Already owned by another consumer, their offsets can no longer be committed
+    }
+
+    boolean awaitFlushed(long timeoutMs) {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        synchronized (unflushed) {
+            while (unflushed.get() > 0) {
+                long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remaining <= 0) {
+                    return false;
+                }
+                try {
+                    unflushed.wait(remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    int currentBatchSize() {
+        return batchSize.current();
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>();
+        while (running || !queue.isEmpty()) {
+            try {
+                if (collect(batch)) {
+                    flush(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopUnlessStopped("Write-behind flusher interrupted", batch.size() + queue.size());
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Takes up to the current batch size from the queue, waiting at most linger-ms for records after the first.
+     */
+    private boolean collect(List<Pending> batch) throws InterruptedException {
+        Pending first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        int size = batchSize.current();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getLingerMs());
+        while (batch.size() < size) {
+            if (queue.drainTo(batch, size - batch.size()) > 0) {
+                continue;
+            }
+            Pending next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return true;
+    }
+
+    void flush(List<Pending> batch) throws InterruptedException {
+        List<ConsumedUser> users = batch.stream().map(Pending::user).toList();
+        BackOffExecution backOff = retryBackOff.start();
+        try {
+            while (true) {
+                long start = System.nanoTime();
+                try {
+                    userSink.write(users);
+                    long latency = System.nanoTime() - start;
+                    flushes.record(latency, TimeUnit.NANOSECONDS);
+                    batchSize.record(latency);
+                    batch.forEach(pending -> pending.ack().acknowledge());
+                    log.debug("Flushed {} users in {} ms", batch.size(), TimeUnit.NANOSECONDS.toMillis(latency));
+                    return;
+                } catch (RuntimeException e) {
+                    batchSize.failed();
+                    long delay = backOff.nextBackOff();
+                    if (delay == BackOffExecution.STOP) {
+                        for (int i = 0; i < batch.size(); i++) {
+                            if (!sendToDlt(batch.get(i), e)) {
+                                stopUnlessStopped("Write-behind flusher could not reach the DLT for "
+                                        + properties.getDltTimeoutMs() + " ms", batch.size() - i);
+                                return;
+                            }
+                        }
+                        return;
+                    }
+                    log.warn("Flushing {} users failed, retrying in {} ms: {}", batch.size(), delay, e.getMessage());
+                    Thread.sleep(delay);
+                }
+            }
+        } finally {
+            flushed(batch.size());
+        }
+    }
+
+    /**
+     * Retries for up to dlt-timeout-ms, since its container cannot poll again before the record is acknowledged.
+     *
+     * @return {@code false} when the DLT still did not take the record
+     */
+    private boolean sendToDlt(Pending pending, Exception cause) throws InterruptedException {
+        BackOffExecution backOff = dltBackOff.start();
+        while (true) {
+            try {
+                deadLetterPublishingRecoverer.accept(pending.record(), cause);
+                pending.ack().acknowledge();
+                return true;
+            } catch (RuntimeException e) {
+                long delay = backOff.nextBackOff();
+                if (delay == BackOffExecution.STOP) {
+                    return false;
+                }
+                log.error("User could not be sent to the DLT, retrying in {} ms: {}", delay, e.getMessage());
+                Thread.sleep(delay);
+            }
+        }
+    }
+
+    /**
+     * Stops the container when the flusher gives up on records that are left unacknowledged, so that they are
+     * redelivered from the committed offsets rather than the container waiting for their acks forever.
+     */
+    private void stopUnlessStopped(String reason, int abandoned) {
+        MessageListenerContainer container = container();
+        if (container != null && container.isRunning()) {
+            log.error("{} with {} records unflushed, stopping the listener container", reason, abandoned);
+            container.stop();
+        }
+    }
+
+    private void flushed(int count) {
+        synchronized (unflushed) {
+            unflushed.addAndGet(-count);
+            unflushed.notifyAll();
+        }
+        if (paused && queue.size() <= properties.getCapacity() / 2) {
+            pauseOrResume();
+        }
+    }
+
+    private MessageListenerContainer container() {
+        return listenerRegistry.getListenerContainer(UserWriteBehindConsumer.LISTENER_ID);
+    }
+
+    @PreDestroy
+    void close() throws InterruptedException {
+        // The containers are stopped by now; what is still buffered is written, its acks are no longer committed
+        running = false;
+        flusher.join(properties.getRevocationFlushTimeoutMs());
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+        }
+    }
+
+    record Pending(ConsumerRecord<String, User> record, ConsumedUser user, Acknowledgment ack) {
+    }
+}
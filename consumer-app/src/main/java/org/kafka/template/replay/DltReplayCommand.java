@@ -0,0 +1,64 @@
+package org.kafka.template.replay;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.ExitCodeGenerator;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * CLI mode of the DLT replay, e.g.
+ * {@code java -jar consumer-app.jar --dlt-replay --from-offset=1000 --exception=DataAccessException --dry-run}.
+ * ConsumerModuleApplication then starts neither the web server nor the listeners, and exits once the replay is
+ * done, with exit code 1 when some users could not be written and 2 when the replay was aborted.
+ */
+@Slf4j
+@Component
+public class DltReplayCommand implements ApplicationRunner, ExitCodeGenerator {
+
+    public static final String OPTION = "dlt-replay";
+
+    private final DltReplayService dltReplayService;
+    private int exitCode;
+
+    public DltReplayCommand(DltReplayService dltReplayService) {
+        this.dltReplayService = dltReplayService;
+    }
+
+    public static boolean isRequested(String... args) {
+        return List.of(args).contains("--" + OPTION);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!args.containsOption(OPTION)) {
+            return;
+        }
+        DltReplayFilter filter = new DltReplayFilter(
+                option(args, "from-offset") == null ? null : Long.valueOf(option(args, "from-offset")),
+                option(args, "to-offset") == null ? null : Long.valueOf(option(args, "to-offset")),
+                option(args, "from-time") == null ? null : Instant.parse(option(args, "from-time")),
+                option(args, "to-time") == null ? null : Instant.parse(option(args, "to-time")),
+                option(args, "exception"));
+        DltReplayReport report = dltReplayService.replay(filter, args.containsOption("dry-run"));
+        log.info("DLT replay report: {}", report);
+        if (report.aborted()) {
+            exitCode = 2;
+        } else {
+            exitCode = report.failed() > 0 ? 1 : 0;
+        }
+    }
+
+    @Override
+    public int getExitCode() {
+        return exitCode;
+    }
+
+    private static String option(ApplicationArguments args, String name) {
+        List<String> values = args.getOptionValues(name);
+        return values == null || values.isEmpty() ? null : values.get(0);
+    }
+}
@@ -0,0 +1,49 @@
+package org.kafka.template.replay;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * {@code GET /actuator/dltreplay} reports the running or last replay. {@code POST /actuator/dltreplay} starts one in
+ * the background, with an optional JSON body of filters, e.g.
+ * {@code {"fromTime": "2025-01-01T10:00:00Z", "exception": "DataAccessException", "dryRun": true}}.
+ */
+@Component
+@Endpoint(id = "dltreplay")
+public class DltReplayEndpoint {
+
+    private final DltReplayService dltReplayService;
+
+    public DltReplayEndpoint(DltReplayService dltReplayService) {
+        this.dltReplayService = dltReplayService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> status() {
+        return dltReplayService.status()
+                .<Map<String, Object>>map(report -> report.aborted()
+                        ? Map.of("message", "DLT replay aborted: " + report.abortReason(), "replay", report)
+                        : Map.of("replay", report))
+                .orElse(Map.of("message", "No DLT replay has run yet"));
+    }
+
+    @WriteOperation
+    public Map<String, Object> replay(@Nullable Long fromOffset, @Nullable Long toOffset, @Nullable String fromTime,
+                                      @Nullable String toTime, @Nullable String exception, @Nullable Boolean dryRun) {
+        DltReplayFilter filter = new DltReplayFilter(fromOffset, toOffset, parse(fromTime), parse(toTime), exception);
+        if (!dltReplayService.start(filter, Boolean.TRUE.equals(dryRun))) {
+            return Map.of("message", "A DLT replay is already running", "replay", dltReplayService.status().orElseThrow());
+        }
+        return Map.of("message", "DLT replay started", "filter", filter);
+    }
+
+    private static Instant parse(String time) {
+        return time == null ? null : Instant.parse(time);
+    }
+}
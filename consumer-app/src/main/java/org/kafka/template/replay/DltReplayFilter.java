@@ -0,0 +1,44 @@
+package org.kafka.template.replay;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Selects the DLT records to replay. Every bound is optional and inclusive. Offsets apply to each partition of the
+ * DLT, the time window to the DLT timestamp, i.e. when the record failed. {@code exception} matches the class
+ * name of the exception or of its cause, or the exception message, recorded in the DLT headers.
+ */
+public record DltReplayFilter(Long fromOffset, Long toOffset, Instant fromTime, Instant toTime, String exception) {
+
+    public static final DltReplayFilter ALL = new DltReplayFilter(null, null, null, null, null);
+
+    public boolean matches(ConsumerRecord<?, ?> record) {
+        if (fromOffset != null && record.offset() < fromOffset || toOffset != null && record.offset() > toOffset) {
+            return false;
+        }
+        Instant timestamp = Instant.ofEpochMilli(record.timestamp());
+        if (fromTime != null && timestamp.isBefore(fromTime) || toTime != null && timestamp.isAfter(toTime)) {
+            return false;
+        }
+        return exception == null
+                || header(record, KafkaHeaders.DLT_EXCEPTION_FQCN).contains(exception)
+                || header(record, KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN).contains(exception)
+                || header(record, KafkaHeaders.DLT_EXCEPTION_MESSAGE).contains(exception);
+    }
+
+    /**
+     * @return whether no later record of the partition can match, so the partition is done
+     */
+    public boolean isPast(ConsumerRecord<?, ?> record) {
+        return toOffset != null && record.offset() >= toOffset;
+    }
+
+    private static String header(ConsumerRecord<?, ?> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header == null || header.value() == null ? "" : new String(header.value(), StandardCharsets.UTF_8);
+    }
+}
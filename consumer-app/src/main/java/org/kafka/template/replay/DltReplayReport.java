@@ -0,0 +1,18 @@
+package org.kafka.template.replay;
+
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+/**
+ * Progress of a DLT replay. {@code replayed} counts the users written, or only validated on a dry run.
+ * {@code abortReason} is set when the replay stopped before the end of the DLT, e.g. because it was unreachable.
+ */
+public record DltReplayReport(boolean running, boolean dryRun, DltReplayFilter filter, Instant startedAt,
+                              Instant finishedAt, long remaining, long scanned, long replayed, long filtered,
+                              long invalid, long failed, @Nullable String abortReason) {
+
+    public boolean aborted() {
+        return abortReason != null;
+    }
+}
@@ -0,0 +1,324 @@
+package org.kafka.template.replay;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndTimestamp;
+import org.apache.kafka.common.TopicPartition;
+import org.kafka.template.config.DltReplayProperties;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.UserSink;
+import org.kafka.template.utils.ValidatorUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays user-created-dlt through the processing path of UserConsumer: every matching user is validated and
+ * upserted by the {@link UserSink}. Users keep the offset and timestamp of their original record, so
+ * a replay never overwrites a contact that a newer event has written since.
+ * <p>
+ * The DLT is read without a consumer group, up to its end offsets at the start of the replay. Valid users are
+ * written in batches by {@code parallelism} writers, at most {@code ratePerSecond} users per second. A dry run
+ * only validates. Invalid records stay in the DLT, a failed batch is logged and the replay goes on. Any other
+ * failure, e.g. the DLT being unreachable, aborts the replay and is kept in its report.
+ */
+@Slf4j
+@Service
+public class DltReplayService {
+
+    static final String CLIENT_ID_PREFIX = "dlt-replay";
+
+    private final ConsumerFactory<String, User> consumerFactory;
+    private final ValidatorUtils validatorUtils;
+    private final UserSink userSink;
+    private final DltReplayProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final String dltTopic;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private volatile Progress progress;
+
+    public DltReplayService(ConsumerFactory<String, User> consumerFactory, ValidatorUtils validatorUtils,
+                            UserSink userSink, DltReplayProperties properties, MeterRegistry meterRegistry,
+                            @Value("${spring.kafka.topics.user-created}") String userCreatedTopic) {
+        this.consumerFactory = consumerFactory;
+        this.validatorUtils = validatorUtils;
+        this.userSink = userSink;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.dltTopic = userCreatedTopic + "-dlt";
+
+        Gauge.builder("kafka.consumer.dlt.replay.remaining", this, DltReplayService::remaining)
+                .description("DLT records left to scan by the running replay")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a replay in the background.
+     *
+     * @return {@code false} when a replay is already running
+     */
+    public boolean start(DltReplayFilter filter, boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        Progress started = new Progress(filter, dryRun);
+        progress = started;
+        Thread.ofPlatform().name(CLIENT_ID_PREFIX).start(() -> run(started));
+        return true;
+    }
+
+    /**
+     * Replays on the calling thread and returns once every batch is written.
+     */
+    public DltReplayReport replay(DltReplayFilter filter, boolean dryRun) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("A DLT replay is already running");
+        }
+        Progress started = new Progress(filter, dryRun);
+        progress = started;
+        run(started);
+        return started.report();
+    }
+
+    /**
+     * @return the running or last replay, empty when none has run yet
+     */
+    public Optional<DltReplayReport> status() {
+        return Optional.ofNullable(progress).map(Progress::report);
+    }
+
+    private void run(Progress progress) {
+        log.info("Replaying {} with {}, dry run: {}", dltTopic, progress.filter, progress.dryRun);
+        try (ExecutorService writers = Executors.newFixedThreadPool(properties.getParallelism(),
+                Thread.ofPlatform().name(CLIENT_ID_PREFIX + "-writer-", 0).factory());
+             Consumer<String, User> consumer = consumerFactory.createConsumer(null, CLIENT_ID_PREFIX, null,
+                     consumerOverrides())) {
+            replay(consumer, writers, progress);
+        } catch (RuntimeException e) {
+            progress.abortReason = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            log.error("DLT replay aborted: {}", e.getMessage(), e);
+        } finally {
+            progress.finishedAt = Instant.now();
+            progress.remaining.set(0);
+            running.set(false);
+            log.info("DLT replay finished: {}", progress.report());
+        }
+    }
+
+    private void replay(Consumer<String, User> consumer, ExecutorService writers, Progress progress) {
+        List<TopicPartition> partitions = consumer.partitionsFor(dltTopic).stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+        consumer.assign(partitions);
+        Map<TopicPartition, Long> ends = new HashMap<>(consumer.endOffsets(partitions));
+        seek(consumer, partitions, ends, progress.filter);
+
+        Set<TopicPartition> open = new HashSet<>(partitions);
+        Semaphore writeSlots = new Semaphore(properties.getParallelism());
+        Throttle throttle = new Throttle(properties.getRatePerSecond());
+        List<ConsumedUser> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (!closeFinished(consumer, open, ends, progress)) {
+            for (ConsumerRecord<String, User> record : consumer.poll(Duration.ofMillis(properties.getPollTimeoutMs()))) {
+                TopicPartition partition = new TopicPartition(record.topic(), record.partition());
+                if (!open.contains(partition) || record.offset() >= ends.get(partition)) {
+                    continue;
+                }
+                count(progress, progress.scanned, "scanned", 1);
+                if (!progress.filter.matches(record)) {
+                    count(progress, progress.filtered, "filtered", 1);
+                } else {
+                    ConsumedUser user = toValidUser(record, progress);
+                    if (user != null) {
+                        batch.add(user);
+                    }
+                    if (batch.size() >= properties.getBatchSize()) {
+                        flush(batch, progress, writers, writeSlots, throttle);
+                    }
+                }
+                if (progress.filter.isPast(record)) {
+                    ends.put(partition, record.offset());
+                }
+            }
+        }
+        flush(batch, progress, writers, writeSlots, throttle);
+    }
+
+    private static void seek(Consumer<String, User> consumer, List<TopicPartition> partitions,
+                             Map<TopicPartition, Long> ends, DltReplayFilter filter) {
+        Map<TopicPartition, Long> beginnings = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, OffsetAndTimestamp> byTime = new HashMap<>();
+        if (filter.fromTime() != null) {
+            Map<TopicPartition, Long> timestamps = new HashMap<>();
+            partitions.forEach(partition -> timestamps.put(partition, filter.fromTime().toEpochMilli()));
+            byTime.putAll(consumer.offsetsForTimes(timestamps));
+        }
+        for (TopicPartition partition : partitions) {
+            long start = beginnings.get(partition);
+            if (filter.fromOffset() != null) {
+                start = Math.max(start, filter.fromOffset());
+            }
+            if (filter.fromTime() != null) {
+                OffsetAndTimestamp first = byTime.get(partition);
+                start = first == null ? ends.get(partition) : Math.max(start, first.offset());
+            }
+            consumer.seek(partition, Math.min(start, ends.get(partition)));
+        }
+    }
+
+    /**
+     * Pauses the partitions that have reached their end and updates the remaining records.
+     *
+     * @return whether every partition has reached its end
+     */
+    private static boolean closeFinished(Consumer<String, User> consumer, Set<TopicPartition> open,
+                                         Map<TopicPartition, Long> ends, Progress progress) {
+        long remaining = 0;
+        List<TopicPartition> finished = new ArrayList<>();
+        for (TopicPartition partition : open) {
+            long left = ends.get(partition) - consumer.position(partition);
+            if (left <= 0) {
+                finished.add(partition);
+            } else {
+                remaining += left;
+            }
+        }
+        if (!finished.isEmpty()) {
+            consumer.pause(finished);
+            finished.forEach(open::remove);
+        }
+        progress.remaining.set(remaining);
+        return open.isEmpty();
+    }
+
+    private ConsumedUser toValidUser(ConsumerRecord<String, User> record, Progress progress) {
+        try {
+            User user = record.value();
+            if (user == null) {
+                throw new IllegalArgumentException("Unreadable user payload");
+            }
+            validatorUtils.validate(user);
+            return ConsumedUser.of(user, record);
+        } catch (ConstraintViolationException | IllegalArgumentException e) {
+            count(progress, progress.invalid, "invalid", 1);
+            log.warn("Skipping invalid DLT record {}-{}@{}: {}", record.topic(), record.partition(), record.offset(),
+                    e.getMessage());
+            return null;
+        }
+    }
+
+    private void flush(List<ConsumedUser> batch, Progress progress, ExecutorService writers, Semaphore writeSlots,
+                       Throttle throttle) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<ConsumedUser> users = List.copyOf(batch);
+        batch.clear();
+        if (progress.dryRun) {
+            count(progress, progress.replayed, "validated", users.size());
+            return;
+        }
+
+        throttle.acquire(users.size());
+        writeSlots.acquireUninterruptibly();
+        writers.execute(() -> {
+            try {
+                userSink.write(users);
+                count(progress, progress.replayed, "replayed", users.size());
+            } catch (RuntimeException e) {
+                count(progress, progress.failed, "failed", users.size());
+                log.error("Replaying a batch of {} users failed: {}", users.size(), e.getMessage());
+            } finally {
+                writeSlots.release();
+            }
+        });
+    }
+
+    private void count(Progress progress, AtomicLong counter, String result, long amount) {
+        counter.addAndGet(amount);
+        meterRegistry.counter("kafka.consumer.dlt.replay.records", "result", result, "dry.run",
+                String.valueOf(progress.dryRun)).increment(amount);
+    }
+
+    private double remaining() {
+        Progress current = progress;
+        return current == null ? 0 : current.remaining.get();
+    }
+
+    private static Properties consumerOverrides() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        return overrides;
+    }
+
+    private static final class Progress {
+
+        private final DltReplayFilter filter;
+        private final boolean dryRun;
+        private final Instant startedAt = Instant.now();
+        private final AtomicLong remaining = new AtomicLong();
+        private final AtomicLong scanned = new AtomicLong();
+        private final AtomicLong replayed = new AtomicLong();
+        private final AtomicLong filtered = new AtomicLong();
+        private final AtomicLong invalid = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private volatile Instant finishedAt;
+        private volatile String abortReason;
+
+        private Progress(DltReplayFilter filter, boolean dryRun) {
+            this.filter = filter;
+            this.dryRun = dryRun;
+        }
+
+        private DltReplayReport report() {
+            return new DltReplayReport(finishedAt == null, dryRun, filter, startedAt, finishedAt, remaining.get(),
+                    scanned.get(), replayed.get(), filtered.get(), invalid.get(), failed.get(), abortReason);
+        }
+    }
+
+    /**
+     * Spaces out batches so that the users written per second stay below the rate. Used by the polling thread only.
+     */
+    private static final class Throttle {
+
+        private final long nanosPerUser;
+        private long next = System.nanoTime();
+
+        private Throttle(int ratePerSecond) {
+            this.nanosPerUser = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+        }
+
+        private void acquire(int users) {
+            long now = System.nanoTime();
+            if (next > now) {
+                LockSupport.parkNanos(next - now);
+            }
+            next = Math.max(next, now) + users * nanosPerUser;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package org.kafka.template.sink;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.kafka.template.models.User;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A valid user together with the offset and timestamp of its record. They decide which event of a user wins
+ * when contacts are upserted: the later timestamp, then the higher offset.
+ * <p>
+ * Records forwarded to a retry topic or the DLT are stamped with the forwarding time and get an offset of that
+ * topic, so their position on user-created is taken from the original headers the recoverer adds instead.
+ */
+public record ConsumedUser(User user, long offset, Instant timestamp) {
+
+    public static final Comparator<ConsumedUser> EVENT_ORDER =
+            Comparator.comparing(ConsumedUser::timestamp).thenComparingLong(ConsumedUser::offset);
+
+    public static ConsumedUser of(User user, ConsumerRecord<?, ?> record) {
+        return new ConsumedUser(user, originalLong(record, KafkaHeaders.DLT_ORIGINAL_OFFSET, record.offset()),
+                Instant.ofEpochMilli(originalLong(record, KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, record.timestamp())));
+    }
+
+    // Every hop may append its own original headers, the first one is always the user-created record
+    private static long originalLong(ConsumerRecord<?, ?> record, String name, long fallback) {
+        Iterator<Header> headers = record.headers().headers(name).iterator();
+        if (!headers.hasNext()) {
+            return fallback;
+        }
+        byte[] value = headers.next().value();
+        return value == null || value.length != Long.BYTES ? fallback : ByteBuffer.wrap(value).getLong();
+    }
+
+    /**
+     * Keeps the latest event of every user id. PostgreSQL refuses to upsert the same key twice in one statement.
+     */
+    public static List<ConsumedUser> latestPerUser(List<ConsumedUser> users) {
+        Map<Integer, ConsumedUser> latest = new LinkedHashMap<>();
+        for (ConsumedUser consumed : users) {
+            latest.merge(consumed.user().getId(), consumed,
+                    (current, candidate) -> EVENT_ORDER.compare(candidate, current) > 0 ? candidate : current);
+        }
+        return new ArrayList<>(latest.values());
+    }
+}
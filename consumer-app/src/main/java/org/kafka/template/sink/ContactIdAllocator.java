@@ -0,0 +1,39 @@
+package org.kafka.template.sink;
+
+import org.kafka.template.entity.UserEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reserves contact ids for the JDBC sinks from contacts_id_seq in whole blocks, the way Hibernate's pooled optimizer
+ * does: a value v stands for the ids v - ID_ALLOCATION_SIZE + 1 to v. The ids therefore never collide with those of
+ * JPA inserts, and a poll costs one sequence round trip.
+ */
+@Component
+public class ContactIdAllocator {
+
+    static final String NEXT_ID_BLOCKS = "SELECT nextval('kafka_app.contacts_id_seq') FROM generate_series(1, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ContactIdAllocator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<Long> reserve(int count) {
+        List<Long> ids = new ArrayList<>(count);
+        while (ids.size() < count) {
+            int blocks = Math.ceilDiv(count - ids.size(), UserEntity.ID_ALLOCATION_SIZE);
+            for (Long hi : jdbcTemplate.queryForList(NEXT_ID_BLOCKS, Long.class, blocks)) {
+                // The first value of a fresh sequence is 1 and only stands for itself
+                for (long id = Math.max(1, hi - UserEntity.ID_ALLOCATION_SIZE + 1); id <= hi && ids.size() < count; id++) {
+                    ids.add(id);
+                }
+            }
+        }
+        return ids;
+    }
+}
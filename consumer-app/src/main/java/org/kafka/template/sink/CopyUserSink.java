@@ -0,0 +1,143 @@
+package org.kafka.template.sink;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kafka.template.models.User;
+import org.postgresql.PGConnection;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Loads a poll with binary COPY into a contacts_staging temporary table and upserts it into contacts with a single
+ * INSERT ... SELECT ... ON CONFLICT, all in one transaction. Far faster than batched statements for backfills and
+ * replays.
+ * <p>
+ * Every pooled connection gets a staging table of its own, created on its first load and emptied by each commit,
+ * so concurrent listener threads load in parallel instead of queueing on a lock of a shared table.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.kafka.listener.sink", havingValue = "copy")
+public class CopyUserSink implements UserSink {
+
+    static final String CREATE_STAGING_TABLE = """
+            CREATE TEMP TABLE IF NOT EXISTS contacts_staging (
+                id int8 NOT NULL,
+                userid int8 NULL,
+                email text NULL,
+                name text NULL,
+                age int4 NULL,
+                kafka_offset int8 NOT NULL,
+                kafka_timestamp timestamptz NOT NULL
+            ) ON COMMIT DELETE ROWS""";
+    static final String COPY_STAGING = "COPY pg_temp.contacts_staging (id, userid, email, name, age, kafka_offset, kafka_timestamp) "
+            + "FROM STDIN (FORMAT BINARY)";
+    static final String MERGE_STAGING = """
+            INSERT INTO kafka_app.contacts AS c (id, userid, email, name, age, kafka_offset, kafka_timestamp)
+            SELECT id, userid, email, name, age, kafka_offset, kafka_timestamp FROM pg_temp.contacts_staging
+            """ + ON_CONFLICT_KEEP_NEWEST;
+
+    private static final byte[] SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+    private static final short FIELD_COUNT = 7;
+    // Binary timestamptz counts microseconds from 2000-01-01 UTC
+    private static final Instant POSTGRES_EPOCH = Instant.parse("2000-01-01T00:00:00Z");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContactIdAllocator contactIdAllocator;
+
+    public CopyUserSink(JdbcTemplate jdbcTemplate, ContactIdAllocator contactIdAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contactIdAllocator = contactIdAllocator;
+    }
+
+    @Override
+    @Transactional
+    public void write(List<ConsumedUser> users) {
+        List<ConsumedUser> latest = ConsumedUser.latestPerUser(users);
+        if (latest.isEmpty()) {
+            return;
+        }
+        byte[] copyData = encode(latest, contactIdAllocator.reserve(latest.size()));
+
+        // A no-op once the connection has its table, which the previous commit left empty
+        jdbcTemplate.execute(CREATE_STAGING_TABLE);
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                return connection.unwrap(PGConnection.class).getCopyAPI()
+                        .copyIn(COPY_STAGING, new ByteArrayInputStream(copyData));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        int merged = jdbcTemplate.update(MERGE_STAGING);
+        log.debug("Copied {} users into staging, upserted {} into contacts", copied, merged);
+    }
+
+    /**
+     * PostgreSQL binary COPY format: signature, flags and header extension, one tuple per user, then the trailer.
+     */
+    static byte[] encode(List<ConsumedUser> users, List<Long> ids) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 * users.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.write(SIGNATURE);
+            out.writeInt(0);
+            out.writeInt(0);
+            for (int i = 0; i < users.size(); i++) {
+                ConsumedUser consumed = users.get(i);
+                User user = consumed.user();
+                out.writeShort(FIELD_COUNT);
+                writeInt8(out, ids.get(i));
+                writeInt8(out, user.getId() == null ? null : user.getId().longValue());
+                writeText(out, user.getEmail());
+                writeText(out, user.getName());
+                writeInt4(out, user.getAge());
+                writeInt8(out, consumed.offset());
+                writeInt8(out, ChronoUnit.MICROS.between(POSTGRES_EPOCH, consumed.timestamp()));
+            }
+            out.writeShort(-1);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeInt8(DataOutputStream out, Long value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(Long.BYTES);
+        out.writeLong(value);
+    }
+
+    private static void writeInt4(DataOutputStream out, Integer value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(Integer.BYTES);
+        out.writeInt(value);
+    }
+
+    private static void writeText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+}
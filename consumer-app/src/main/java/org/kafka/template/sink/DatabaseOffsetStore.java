@@ -0,0 +1,99 @@
+package org.kafka.template.sink;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.support.KafkaUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.Assert;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps the consumed offsets in kafka_app.consumer_offsets, written in the same transaction as the users: either both
+ * are committed or neither. When a partition is assigned, the consumer seeks to the offset stored for it, whatever
+ * Kafka has committed, so a crash between the database commit and the offset commit neither loses nor repeats a
+ * write. A batch costs one offset row per partition it holds.
+ * <p>
+ * Stored offsets only move forward, so a consumer that still writes for a partition already moved to another one
+ * cannot rewind it. To reprocess a partition, lower its row along with the Kafka offsets.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "spring.kafka.listener.offset-store", havingValue = "database")
+public class DatabaseOffsetStore implements OffsetStore {
+
+    static final String CREATE_OFFSETS_TABLE = """
+            CREATE TABLE IF NOT EXISTS kafka_app.consumer_offsets (
+                group_id text NOT NULL,
+                topic text NOT NULL,
+                partition int4 NOT NULL,
+                next_offset int8 NOT NULL,
+                PRIMARY KEY (group_id, topic, partition)
+            )""";
+    static final String UPSERT_OFFSET = """
+            INSERT INTO kafka_app.consumer_offsets AS o (group_id, topic, partition, next_offset)
+            VALUES (?, ?, ?, ?)
+            ON CONFLICT (group_id, topic, partition) DO UPDATE SET next_offset = EXCLUDED.next_offset
+            WHERE o.next_offset < EXCLUDED.next_offset""";
+    static final String SELECT_OFFSETS =
+            "SELECT topic, partition, next_offset FROM kafka_app.consumer_offsets WHERE group_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final UserSink userSink;
+
+    public DatabaseOffsetStore(JdbcTemplate jdbcTemplate, UserSink userSink) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userSink = userSink;
+    }
+
+    @PostConstruct
+    void createOffsetsTable() {
+        jdbcTemplate.execute(CREATE_OFFSETS_TABLE);
+    }
+
+    /**
+     * Must run on the listener container thread, which knows the consumer group.
+     */
+    @Override
+    @Transactional
+    public void write(List<ConsumedUser> users, Map<TopicPartition, Long> nextOffsets) {
+        String groupId = KafkaUtils.getConsumerGroupId();
+        Assert.state(groupId != null, "Offsets can only be stored from a listener container thread");
+
+        // Joins the transaction, so the users and their offsets commit together
+        userSink.write(users);
+
+        List<Object[]> rows = new ArrayList<>(nextOffsets.size());
+        nextOffsets.forEach((partition, offset) ->
+                rows.add(new Object[]{groupId, partition.topic(), partition.partition(), offset}));
+        jdbcTemplate.batchUpdate(UPSERT_OFFSET, rows);
+    }
+
+    @Override
+    public void onPartitionsAssigned(Consumer<?, ?> consumer, Collection<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return;
+        }
+        Map<TopicPartition, Long> stored = new HashMap<>();
+        jdbcTemplate.query(SELECT_OFFSETS, row -> {
+            stored.put(new TopicPartition(row.getString("topic"), row.getInt("partition")), row.getLong("next_offset"));
+        }, consumer.groupMetadata().groupId());
+
+        for (TopicPartition partition : partitions) {
+            Long offset = stored.get(partition);
+            if (offset != null) {
+                consumer.seek(partition, offset);
+                log.info("Resuming {} from offset {} stored in the database", partition, offset);
+            }
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package org.kafka.template.sink;
+
+import org.kafka.template.models.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Upserts the users with a batched INSERT ... ON CONFLICT in one transaction. With the driver's
+ * reWriteBatchedInserts the batch goes out as multi-row statements.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.listener.sink", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcUserSink implements UserSink {
+
+    static final String UPSERT = """
+            INSERT INTO kafka_app.contacts AS c (id, userid, email, name, age, kafka_offset, kafka_timestamp)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """ + ON_CONFLICT_KEEP_NEWEST;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ContactIdAllocator contactIdAllocator;
+
+    public JdbcUserSink(JdbcTemplate jdbcTemplate, ContactIdAllocator contactIdAllocator) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.contactIdAllocator = contactIdAllocator;
+    }
+
+    @Override
+    @Transactional
+    public void write(List<ConsumedUser> users) {
+        List<ConsumedUser> latest = ConsumedUser.latestPerUser(users);
+        if (latest.isEmpty()) {
+            return;
+        }
+        List<Long> ids = contactIdAllocator.reserve(latest.size());
+
+        List<Object[]> rows = new ArrayList<>(latest.size());
+        for (int i = 0; i < latest.size(); i++) {
+            ConsumedUser consumed = latest.get(i);
+            User user = consumed.user();
+            rows.add(new Object[]{ids.get(i), user.getId(), user.getEmail(), user.getName(), user.getAge(),
+                    consumed.offset(), OffsetDateTime.ofInstant(consumed.timestamp(), ZoneOffset.UTC)});
+        }
+        jdbcTemplate.batchUpdate(UPSERT, rows);
+    }
+}
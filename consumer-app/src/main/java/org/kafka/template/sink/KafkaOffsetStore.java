@@ -0,0 +1,28 @@
+package org.kafka.template.sink;
+
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Leaves offsets to Kafka: the container commits them once the records are acknowledged, after the users' transaction.
+ * A crash in between redelivers the records, which the upserts make harmless.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.listener.offset-store", havingValue = "kafka", matchIfMissing = true)
+public class KafkaOffsetStore implements OffsetStore {
+
+    private final UserSink userSink;
+
+    public KafkaOffsetStore(UserSink userSink) {
+        this.userSink = userSink;
+    }
+
+    @Override
+    public void write(List<ConsumedUser> users, Map<TopicPartition, Long> nextOffsets) {
+        userSink.write(users);
+    }
+}
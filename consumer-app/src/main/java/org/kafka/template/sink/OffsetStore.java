@@ -0,0 +1,35 @@
+package org.kafka.template.sink;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes users through the {@link UserSink} together with the position to resume their partitions from, selected
+ * with {@code spring.kafka.listener.offset-store}. With {@code kafka} the position is only the offset the container
+ * commits on acknowledgment. With {@code database} it is also stored in the transaction of the users, and the
+ * partitions are resumed from there when they are assigned.
+ */
+public interface OffsetStore extends ConsumerAwareRebalanceListener {
+
+    /**
+     * @param nextOffsets per partition, the offset of the next record to consume
+     */
+    void write(List<ConsumedUser> users, Map<TopicPartition, Long> nextOffsets);
+
+    /**
+     * The offset following the last of the records, per partition.
+     */
+    static Map<TopicPartition, Long> nextOffsets(Collection<? extends ConsumerRecord<?, ?>> records) {
+        Map<TopicPartition, Long> nextOffsets = new HashMap<>();
+        for (ConsumerRecord<?, ?> record : records) {
+            nextOffsets.merge(new TopicPartition(record.topic(), record.partition()), record.offset() + 1, Math::max);
+        }
+        return nextOffsets;
+    }
+}
@@ -0,0 +1,25 @@
+package org.kafka.template.sink;
+
+import java.util.List;
+
+/**
+ * Upserts consumed users into kafka_app.contacts by user id, selected with {@code spring.kafka.listener.sink}.
+ * An event only overwrites a contact written by an older event, so replays and redeliveries change nothing.
+ * When {@link #write} returns, the users are committed and their records may be acknowledged.
+ */
+public interface UserSink {
+
+    /**
+     * Conflict clause of the upserts into {@code kafka_app.contacts AS c}. A contact is only updated by a newer
+     * event: a later record timestamp, or the same timestamp and a higher offset. Contacts written before events were
+     * tracked count as oldest. A redelivered event equals the stored one and leaves the row untouched, no dead tuple.
+     */
+    String ON_CONFLICT_KEEP_NEWEST = """
+            ON CONFLICT (userid) DO UPDATE
+            SET email = EXCLUDED.email, name = EXCLUDED.name, age = EXCLUDED.age,
+                kafka_offset = EXCLUDED.kafka_offset, kafka_timestamp = EXCLUDED.kafka_timestamp
+            WHERE (COALESCE(c.kafka_timestamp, '-infinity'::timestamptz), COALESCE(c.kafka_offset, -1))
+                < (EXCLUDED.kafka_timestamp, EXCLUDED.kafka_offset)""";
+
+    void write(List<ConsumedUser> users);
+}
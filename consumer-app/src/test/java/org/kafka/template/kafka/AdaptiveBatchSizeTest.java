@@ -0,0 +1,99 @@
+package org.kafka.template.kafka;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveBatchSizeTest {
+
+    private static final long TARGET = 100;
+
+    @Test
+    void record_FastFlushes_ShouldGrowByAQuarterUpToMax() {
+        // Given
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 10, 130, TARGET);
+
+        // When
+        recordFlushes(batchSize, AdaptiveBatchSize.ADJUST_EVERY, 10);
+
+        // Then
+        assertEquals(125, batchSize.current());
+
+        // When
+        recordFlushes(batchSize, AdaptiveBatchSize.ADJUST_EVERY, 10);
+
+        // Then
+        assertEquals(130, batchSize.current());
+    }
+
+    @Test
+    void record_P99AboveTarget_ShouldHalve() {
+        // Given
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 10, 1000, TARGET);
+
+        // When
+        recordFlushes(batchSize, AdaptiveBatchSize.ADJUST_EVERY - 1, 10);
+        batchSize.record(500);
+
+        // Then
+        assertEquals(50, batchSize.current());
+    }
+
+    @Test
+    void record_AfterDecrease_ShouldOnlyJudgeNewFlushes() {
+        // Given
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 10, 1000, TARGET);
+        recordFlushes(batchSize, AdaptiveBatchSize.ADJUST_EVERY, 500);
+
+        // When
+        recordFlushes(batchSize, AdaptiveBatchSize.ADJUST_EVERY, 10);
+
+        // Then
+        assertEquals(62, batchSize.current());
+    }
+
+    @Test
+    void record_P99BetweenHalfAndTarget_ShouldKeepSize() {
+        // Given
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 10, 1000, TARGET);
+
+        // When
+        recordFlushes(batchSize, AdaptiveBatchSize.ADJUST_EVERY, 80);
+
+        // Then
+        assertEquals(100, batchSize.current());
+    }
+
+    @Test
+    void failed_ShouldHalveDownToMin() {
+        // Given
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(30, 10, 1000, TARGET);
+
+        // When
+        batchSize.failed();
+        batchSize.failed();
+
+        // Then
+        assertEquals(10, batchSize.current());
+    }
+
+    @Test
+    void p99_ShouldIgnoreFastestSamples() {
+        // Given
+        AdaptiveBatchSize batchSize = new AdaptiveBatchSize(100, 10, 1000, Long.MAX_VALUE);
+
+        // When
+        recordFlushes(batchSize, 98, 10);
+        batchSize.record(40);
+        batchSize.record(50);
+
+        // Then
+        assertEquals(40, batchSize.p99());
+    }
+
+    private static void recordFlushes(AdaptiveBatchSize batchSize, int count, long latency) {
+        for (int i = 0; i < count; i++) {
+            batchSize.record(latency);
+        }
+    }
+}
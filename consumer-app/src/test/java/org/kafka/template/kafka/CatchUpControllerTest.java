@@ -0,0 +1,159 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.config.CatchUpProperties;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.event.Level;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CatchUpControllerTest {
+
+    private static final String TOPIC = "user-created";
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private MessageListenerContainer retryContainer;
+
+    private final AtomicLong lag = new AtomicLong();
+    private MeterRegistry meterRegistry;
+    private CatchUpProperties properties;
+    private ContainerProperties containerProperties;
+    private CatchUpController controller;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CatchUpProperties();
+        properties.setEnterLag(1000);
+        properties.setExitLag(10);
+        properties.setExitAfterChecks(2);
+        properties.setMaxPollRecords(2000);
+        containerProperties = new ContainerProperties(TOPIC);
+        containerProperties.setObservationEnabled(true);
+        lenient().when(container.getContainerProperties()).thenReturn(containerProperties);
+        lenient().when(container.getListenerId()).thenReturn("userConsumer");
+        lenient().when(container.isRunning()).thenReturn(true);
+        lenient().when(retryContainer.getContainerProperties()).thenReturn(new ContainerProperties(TOPIC + "-retry-5000"));
+        lenient().when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container, retryContainer));
+        controller = new CatchUpController(properties, listenerRegistry, meterRegistry, TOPIC);
+    }
+
+    @Test
+    void check_LagAboveEnterLag_ShouldRestartTheTopicsContainersWithLargerPolls() {
+        // Given
+        registerLag(TOPIC, "0", lag);
+        lag.set(5000);
+
+        // When
+        controller.check();
+
+        // Then
+        assertTrue(controller.isCatchingUp());
+        assertEquals(Level.DEBUG, controller.recordLogLevel());
+        assertEquals("2000", containerProperties.getKafkaConsumerProperties().getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+        assertFalse(containerProperties.isObservationEnabled());
+        verify(container).stop(any(Runnable.class));
+        verify(retryContainer, never()).stop(any(Runnable.class));
+        assertEquals(1.0, meterRegistry.get("kafka.consumer.catch.up.mode").gauge().value());
+        assertEquals(1.0, meterRegistry.get("kafka.consumer.catch.up.switches").tag("mode", "catch-up").counter().count());
+    }
+
+    @Test
+    void check_LagDrained_ShouldSwitchBackAfterEnoughChecks() {
+        // Given
+        registerLag(TOPIC, "0", lag);
+        lag.set(5000);
+        controller.check();
+        lag.set(5);
+
+        // When
+        controller.check();
+        boolean catchingUpAfterOneCheck = controller.isCatchingUp();
+        controller.check();
+
+        // Then
+        assertTrue(catchingUpAfterOneCheck);
+        assertFalse(controller.isCatchingUp());
+        assertEquals(Level.INFO, controller.recordLogLevel());
+        assertNull(containerProperties.getKafkaConsumerProperties().getProperty(ConsumerConfig.MAX_POLL_RECORDS_CONFIG));
+        assertTrue(containerProperties.isObservationEnabled());
+        verify(container, times(2)).stop(any(Runnable.class));
+    }
+
+    @Test
+    void check_LagRisingAgain_ShouldRestartTheDrainedCount() {
+        // Given
+        registerLag(TOPIC, "0", lag);
+        lag.set(5000);
+        controller.check();
+
+        // When
+        lag.set(5);
+        controller.check();
+        lag.set(500);
+        controller.check();
+        lag.set(5);
+        controller.check();
+
+        // Then
+        assertTrue(controller.isCatchingUp());
+    }
+
+    @Test
+    void check_OnlyOtherTopicsLag_ShouldStayRegular() {
+        // Given
+        registerLag("user-created-dlt", "0", lag);
+        lag.set(5000);
+
+        // When
+        controller.check();
+
+        // Then
+        assertFalse(controller.isCatchingUp());
+        verifyNoInteractions(listenerRegistry);
+    }
+
+    @Test
+    void check_Disabled_ShouldNotReadTheLag() {
+        // Given
+        properties.setEnabled(false);
+        registerLag(TOPIC, "0", lag);
+        lag.set(5000);
+
+        // When
+        controller.check();
+
+        // Then
+        assertFalse(controller.isCatchingUp());
+        assertEquals(0.0, meterRegistry.get("kafka.consumer.catch.up.lag").gauge().value());
+    }
+
+    private void registerLag(String topic, String partition, AtomicLong value) {
+        Gauge.builder(CatchUpController.LAG_METRIC, value, AtomicLong::get)
+                .tag("topic", topic)
+                .tag("partition", partition)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,52 @@
+package org.kafka.template.kafka;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.List;
+
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CompositeRebalanceListenerTest {
+
+    private static final List<TopicPartition> PARTITIONS = List.of(new TopicPartition("user-created", 0));
+
+    @Mock
+    private Consumer<String, Object> consumer;
+
+    @Mock
+    private ConsumerAwareRebalanceListener first;
+
+    @Mock
+    private ConsumerAwareRebalanceListener second;
+
+    @Test
+    void shouldHandEveryCallbackToAllListenersInOrder() {
+        // Given
+        CompositeRebalanceListener listener = new CompositeRebalanceListener(List.of(first, second));
+        InOrder inOrder = inOrder(first, second);
+
+        // When
+        listener.onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+        listener.onPartitionsRevokedAfterCommit(consumer, PARTITIONS);
+        listener.onPartitionsLost(consumer, PARTITIONS);
+        listener.onPartitionsAssigned(consumer, PARTITIONS);
+
+        // Then
+        inOrder.verify(first).onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+        inOrder.verify(second).onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+        inOrder.verify(first).onPartitionsRevokedAfterCommit(consumer, PARTITIONS);
+        inOrder.verify(second).onPartitionsRevokedAfterCommit(consumer, PARTITIONS);
+        inOrder.verify(first).onPartitionsLost(consumer, PARTITIONS);
+        inOrder.verify(second).onPartitionsLost(consumer, PARTITIONS);
+        inOrder.verify(first).onPartitionsAssigned(consumer, PARTITIONS);
+        inOrder.verify(second).onPartitionsAssigned(consumer, PARTITIONS);
+    }
+}
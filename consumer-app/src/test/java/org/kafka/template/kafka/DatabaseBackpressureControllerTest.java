@@ -0,0 +1,201 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.BackpressureProperties;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseBackpressureControllerTest extends BaseLogTest {
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    private BackpressureProperties properties;
+    private MeterRegistry meterRegistry;
+    private DatabaseBackpressureController controller;
+
+    @BeforeEach
+    void setUp() {
+        properties = new BackpressureProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        controller = new DatabaseBackpressureController(properties, listenerRegistry, meterRegistry);
+        lenient().when(listenerRegistry.getListenerContainers()).thenReturn(List.of(container));
+        setUpLogger(DatabaseBackpressureController.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void shouldRedeliver_DatabaseUnavailable_ShouldBeTrue() {
+        assertTrue(controller.shouldRedeliver(new CannotGetJdbcConnectionException("Connection is not available")));
+        assertTrue(controller.shouldRedeliver(new CannotCreateTransactionException("Could not open JDBC Connection",
+                new CannotGetJdbcConnectionException("Connection is not available"))));
+        assertTrue(controller.shouldRedeliver(new QueryTimeoutException("Statement timed out")));
+    }
+
+    @Test
+    void shouldRedeliver_InvalidData_ShouldBeFalse() {
+        assertFalse(controller.shouldRedeliver(new DataIntegrityViolationException("Duplicate key")));
+    }
+
+    @Test
+    void shouldRedeliver_Disabled_ShouldBeFalse() {
+        // Given
+        properties.setEnabled(false);
+
+        // When / Then
+        assertFalse(controller.shouldRedeliver(new QueryTimeoutException("Statement timed out")));
+    }
+
+    @Test
+    void writeFailed_ShouldDoubleDelayUpToMaxAndResetAfterSuccess() {
+        assertEquals(Duration.ofSeconds(1), controller.writeFailed(0));
+        assertEquals(Duration.ofSeconds(2), controller.writeFailed(0));
+        assertEquals(Duration.ofSeconds(4), controller.writeFailed(0));
+        for (int i = 0; i < 10; i++) {
+            controller.writeFailed(0);
+        }
+        assertEquals(Duration.ofSeconds(30), controller.writeFailed(0));
+
+        controller.written(0);
+        assertEquals(Duration.ofSeconds(1), controller.writeFailed(0));
+        assertEquals(15.0, meterRegistry.get("kafka.consumer.backpressure.redeliveries").counter().count());
+    }
+
+    @Test
+    void check_HighErrorRate_ShouldPauseContainers() {
+        // Given
+        for (int i = 0; i < 5; i++) {
+            controller.writeFailed(0);
+        }
+
+        // When
+        controller.check();
+
+        // Then
+        verify(container).pause();
+        assertTrue(controller.isPaused());
+        assertEquals(1.0, meterRegistry.get("kafka.consumer.backpressure.pauses").tag("reason", "error-rate")
+                .counter().count());
+        assertLog(Level.WARN, "Database degraded (error-rate), pausing the listener containers");
+    }
+
+    @Test
+    void check_FewFailures_ShouldNotJudgeErrorRate() {
+        // Given
+        controller.writeFailed(0);
+
+        // When
+        controller.check();
+
+        // Then
+        verifyNoInteractions(container);
+    }
+
+    @Test
+    void check_SlowWrites_ShouldPauseContainers() {
+        // Given
+        controller.written(TimeUnit.SECONDS.toNanos(2));
+
+        // When
+        controller.check();
+
+        // Then
+        verify(container).pause();
+        assertLog(Level.WARN, "Database degraded (write-latency)");
+    }
+
+    @Test
+    void check_ThreadsWaitingForConnections_ShouldPauseContainers() {
+        // Given
+        Gauge.builder("hikaricp.connections.pending", () -> 10).register(meterRegistry);
+
+        // When
+        controller.check();
+
+        // Then
+        verify(container).pause();
+        assertLog(Level.WARN, "Database degraded (pool-pending)");
+    }
+
+    @Test
+    void check_SlowConnectionAcquire_ShouldPauseContainers() {
+        // Given
+        Timer acquire = meterRegistry.timer("hikaricp.connections.acquire");
+        acquire.record(10, TimeUnit.MILLISECONDS);
+        controller.check();
+        acquire.record(2, TimeUnit.SECONDS);
+
+        // When
+        controller.check();
+
+        // Then
+        verify(container).pause();
+        assertLog(Level.WARN, "Database degraded (pool-wait)");
+    }
+
+    @Test
+    void check_HealthyInARow_ShouldResumeContainers() {
+        // Given
+        controller.written(TimeUnit.SECONDS.toNanos(2));
+        controller.check();
+
+        // When
+        controller.check();
+        controller.check();
+        verify(container, never()).resume();
+        controller.check();
+
+        // Then
+        verify(container).resume();
+        assertFalse(controller.isPaused());
+        assertLog(Level.INFO, "Database healthy again, resuming the listener containers");
+    }
+
+    @Test
+    void check_DegradedAgainWhilePaused_ShouldRestartHealthyCount() {
+        // Given
+        controller.written(TimeUnit.SECONDS.toNanos(2));
+        controller.check();
+        controller.check();
+        controller.check();
+
+        // When
+        controller.written(TimeUnit.SECONDS.toNanos(2));
+        controller.check();
+        controller.check();
+
+        // Then
+        verify(container, times(1)).pause();
+        verify(container, never()).resume();
+    }
+}
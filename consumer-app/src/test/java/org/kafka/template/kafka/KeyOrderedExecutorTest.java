@@ -0,0 +1,64 @@
+package org.kafka.template.kafka;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class KeyOrderedExecutorTest {
+
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor(4, Thread.ofVirtual().factory());
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    void execute_ShouldRunTheTasksOfAKeyInSubmissionOrder() {
+        // Given
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            int sequence = i;
+            String key = "user-" + (i % 10);
+            executor.execute(key, () -> seen.computeIfAbsent(key, k -> Collections.synchronizedList(new ArrayList<>())).add(sequence));
+        }
+        executor.close();
+
+        // Then
+        assertEquals(10, seen.size());
+        seen.forEach((key, sequences) -> assertEquals(sequences.stream().sorted().toList(), sequences));
+    }
+
+    @Test
+    void execute_ShouldRunDifferentKeysInParallel() throws InterruptedException {
+        // Given two keys on different lanes (Integer keys hash to themselves), whose tasks only finish once both run
+        CountDownLatch bothRunning = new CountDownLatch(2);
+
+        // When
+        for (Integer key : List.of(0, 1)) {
+            executor.execute(key, () -> {
+                bothRunning.countDown();
+                try {
+                    bothRunning.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+        }
+
+        // Then
+        assertTrue(bothRunning.await(5, TimeUnit.SECONDS));
+    }
+}
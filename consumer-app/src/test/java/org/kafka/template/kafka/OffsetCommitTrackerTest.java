@@ -0,0 +1,135 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.consumer.RetriableCommitFailedException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.RebalanceInProgressException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OffsetCommitTrackerTest extends BaseLogTest {
+
+    private static final TopicPartition PARTITION = new TopicPartition("user-created", 0);
+    private static final TopicPartition OTHER_PARTITION = new TopicPartition("user-created", 1);
+
+    @Mock
+    private Consumer<String, Object> consumer;
+
+    private MeterRegistry meterRegistry;
+    private OffsetCommitTracker offsetCommitTracker;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        offsetCommitTracker = new OffsetCommitTracker(meterRegistry);
+        setUpLogger(OffsetCommitTracker.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void onComplete_Success_ShouldCountCommit() {
+        // When
+        offsetCommitTracker.onComplete(Map.of(PARTITION, new OffsetAndMetadata(10)), null);
+
+        // Then
+        assertEquals(1.0, commits("success"));
+        assertEquals(0.0, commits("failure"));
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_FailedAsyncCommit_ShouldCommitItSynchronously() {
+        // Given
+        offsetCommitTracker.onComplete(Map.of(PARTITION, new OffsetAndMetadata(10)),
+                new RetriableCommitFailedException("Coordinator not available"));
+
+        // When
+        offsetCommitTracker.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+
+        // Then
+        verify(consumer).commitSync(Map.of());
+        verify(consumer).commitSync(Map.of(PARTITION, new OffsetAndMetadata(10)));
+        assertEquals(1.0, commits("failure"));
+        assertEquals(1, meterRegistry.get("kafka.consumer.offset.commit.revocation").timer().count());
+        assertLog(Level.WARN, "Async offset commit of [user-created-0] failed");
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_FailedCommitSupersededByLaterOne_ShouldOnlyWaitForInFlightCommits() {
+        // Given
+        offsetCommitTracker.onComplete(Map.of(PARTITION, new OffsetAndMetadata(10)),
+                new RetriableCommitFailedException("Coordinator not available"));
+        offsetCommitTracker.onComplete(Map.of(PARTITION, new OffsetAndMetadata(15)), null);
+
+        // When
+        offsetCommitTracker.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+
+        // Then
+        verify(consumer).commitSync(Map.of());
+        verifyNoMoreInteractions(consumer);
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_ShouldOnlyRetryRevokedPartitions() {
+        // Given
+        offsetCommitTracker.onComplete(Map.of(PARTITION, new OffsetAndMetadata(10),
+                OTHER_PARTITION, new OffsetAndMetadata(20)), new RetriableCommitFailedException("Timeout"));
+
+        // When
+        offsetCommitTracker.onPartitionsRevokedAfterCommit(consumer, List.of(OTHER_PARTITION));
+
+        // Then
+        verify(consumer).commitSync(Map.of(OTHER_PARTITION, new OffsetAndMetadata(20)));
+        verify(consumer, never()).commitSync(Map.of(PARTITION, new OffsetAndMetadata(10)));
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_CommitFails_ShouldLogAndNotThrow() {
+        // Given
+        doThrow(new RebalanceInProgressException("Rebalance in progress")).when(consumer).commitSync(Map.of());
+
+        // When
+        offsetCommitTracker.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+
+        // Then
+        assertLog(Level.ERROR, "Offsets of revoked partitions [user-created-0] could not be committed");
+    }
+
+    @Test
+    void onPartitionsLost_ShouldForgetFailedCommits() {
+        // Given
+        offsetCommitTracker.onComplete(Map.of(PARTITION, new OffsetAndMetadata(10)),
+                new RetriableCommitFailedException("Timeout"));
+
+        // When
+        offsetCommitTracker.onPartitionsLost(consumer, List.of(PARTITION));
+        offsetCommitTracker.onPartitionsRevokedAfterCommit(consumer, List.of(PARTITION));
+
+        // Then
+        verify(consumer).commitSync(Map.of());
+        verifyNoMoreInteractions(consumer);
+    }
+
+    private double commits(String result) {
+        return meterRegistry.get("kafka.consumer.offset.commits").tag("result", result).counter().count();
+    }
+}
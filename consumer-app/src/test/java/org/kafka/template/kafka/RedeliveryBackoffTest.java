@@ -0,0 +1,29 @@
+package org.kafka.template.kafka;
+
+import org.junit.jupiter.api.Test;
+import org.kafka.template.config.BackpressureProperties;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RedeliveryBackoffTest {
+
+    @Test
+    void failed_ShouldDoubleUpToMaxAndStartOverAfterSuccess() {
+        // Given
+        BackpressureProperties properties = new BackpressureProperties();
+        properties.setRedeliveryDelayMs(100);
+        properties.setMaxRedeliveryDelayMs(300);
+        RedeliveryBackoff backoff = new RedeliveryBackoff(properties);
+
+        // When & Then
+        assertEquals(Duration.ofMillis(100), backoff.failed());
+        assertEquals(Duration.ofMillis(200), backoff.failed());
+        assertEquals(Duration.ofMillis(300), backoff.failed());
+        assertEquals(Duration.ofMillis(300), backoff.failed());
+
+        backoff.succeeded();
+        assertEquals(Duration.ofMillis(100), backoff.failed());
+    }
+}
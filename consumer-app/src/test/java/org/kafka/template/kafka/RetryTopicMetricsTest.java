@@ -0,0 +1,79 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.creators.UserCreator;
+import org.kafka.template.models.User;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class RetryTopicMetricsTest {
+
+    @Mock
+    private Consumer<String, User> consumer;
+
+    private MeterRegistry meterRegistry;
+    private RetryTopicMetrics retryTopicMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryTopicMetrics = new RetryTopicMetrics(meterRegistry);
+    }
+
+    @Test
+    void intercept_ShouldPassRecordThrough() {
+        // Given
+        ConsumerRecord<String, User> record = createConsumerRecord("user-created");
+
+        // When & Then
+        assertSame(record, retryTopicMetrics.intercept(record, consumer));
+    }
+
+    @Test
+    void successAndFailure_OnRetryTopic_ShouldCountOutcomePerTopic() {
+        // Given
+        ConsumerRecord<String, User> record = createConsumerRecord("user-created-retry-5000");
+
+        // When
+        retryTopicMetrics.success(record, consumer);
+        retryTopicMetrics.success(record, consumer);
+        retryTopicMetrics.failure(record, new IllegalStateException("Connection refused"), consumer);
+
+        // Then
+        assertEquals(2.0, count("user-created-retry-5000", "success"));
+        assertEquals(1.0, count("user-created-retry-5000", "failure"));
+    }
+
+    @Test
+    void successAndFailure_OnMainTopic_ShouldNotCount() {
+        // Given
+        ConsumerRecord<String, User> record = createConsumerRecord("user-created");
+
+        // When
+        retryTopicMetrics.success(record, consumer);
+        retryTopicMetrics.failure(record, new IllegalStateException("Connection refused"), consumer);
+
+        // Then
+        assertTrue(meterRegistry.find("kafka.consumer.retry.records").counters().isEmpty());
+    }
+
+    private double count(String topic, String result) {
+        return meterRegistry.get("kafka.consumer.retry.records").tag("topic", topic).tag("result", result)
+                .counter().count();
+    }
+
+    private ConsumerRecord<String, User> createConsumerRecord(String topic) {
+        return new ConsumerRecord<>(topic, 0, 0L, "user-key", UserCreator.createRandomUser());
+    }
+}
@@ -0,0 +1,84 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.listener.ConsumerAwareRebalanceListener;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TimedRebalanceListenerTest {
+
+    private static final List<TopicPartition> PARTITIONS =
+            List.of(new TopicPartition("user-created", 0), new TopicPartition("user-created", 1));
+
+    @Mock
+    private Consumer<String, Object> consumer;
+
+    @Mock
+    private ConsumerAwareRebalanceListener delegate;
+
+    private MeterRegistry meterRegistry;
+    private TimedRebalanceListener listener;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        listener = new TimedRebalanceListener(delegate, meterRegistry);
+    }
+
+    @Test
+    void revocation_ShouldBeTimedFromBeforeToAfterTheCommit() {
+        // When
+        listener.onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+        listener.onPartitionsRevokedAfterCommit(consumer, PARTITIONS);
+
+        // Then
+        verify(delegate).onPartitionsRevokedBeforeCommit(consumer, PARTITIONS);
+        verify(delegate).onPartitionsRevokedAfterCommit(consumer, PARTITIONS);
+        assertEquals(1, callbacks("revoked"));
+        assertEquals(2.0, partitions("revoked"));
+    }
+
+    @Test
+    void assignment_ShouldBeTimedEvenWhenTheDelegateFails() {
+        // Given
+        doThrow(new IllegalStateException("Seek failed")).when(delegate).onPartitionsAssigned(consumer, PARTITIONS);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> listener.onPartitionsAssigned(consumer, PARTITIONS));
+        assertEquals(1, callbacks("assigned"));
+        assertEquals(2.0, partitions("assigned"));
+    }
+
+    @Test
+    void loss_ShouldOnlyBeHandedToTheDelegateAsLost() {
+        // When
+        listener.onPartitionsLost(consumer, PARTITIONS);
+
+        // Then
+        verify(delegate).onPartitionsLost(consumer, PARTITIONS);
+        verifyNoMoreInteractions(delegate);
+        assertEquals(1, callbacks("lost"));
+        assertEquals(2.0, partitions("lost"));
+    }
+
+    private long callbacks(String callback) {
+        return meterRegistry.get("kafka.consumer.rebalance.callbacks").tag("callback", callback).timer().count();
+    }
+
+    private double partitions(String change) {
+        return meterRegistry.get("kafka.consumer.rebalance.partitions").tag("change", change).counter().count();
+    }
+}
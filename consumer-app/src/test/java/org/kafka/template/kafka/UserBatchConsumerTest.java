@@ -0,0 +1,207 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import jakarta.validation.ConstraintViolationException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.BackpressureProperties;
+import org.kafka.template.creators.UserCreator;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.KafkaOffsetStore;
+import org.kafka.template.sink.UserSink;
+import org.kafka.template.utils.ValidatorUtils;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.serializer.DeserializationException;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserBatchConsumerTest extends BaseLogTest {
+
+    @Mock
+    private ValidatorUtils validatorUtils;
+
+    @Mock
+    private UserSink userSink;
+
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private UserBatchConsumer userBatchConsumer;
+
+    @BeforeEach
+    void setUp() {
+        userBatchConsumer = new UserBatchConsumer(validatorUtils, new KafkaOffsetStore(userSink),
+                deadLetterPublishingRecoverer, new BackpressureProperties());
+        setUpLogger(UserBatchConsumer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void consume_ValidBatch_ShouldSaveAllUsersAtOnceAndAcknowledge() {
+        // Given
+        User first = UserCreator.createRandomUser();
+        User second = UserCreator.createRandomUser();
+        ConsumerRecord<String, User> firstRecord = createConsumerRecord(first, 0L);
+        ConsumerRecord<String, User> secondRecord = createConsumerRecord(second, 1L);
+
+        // When
+        userBatchConsumer.consume(List.of(firstRecord, secondRecord), acknowledgment);
+
+        // Then
+        verify(userSink).write(List.of(ConsumedUser.of(first, firstRecord), ConsumedUser.of(second, secondRecord)));
+        verify(acknowledgment).acknowledge();
+        verifyNoInteractions(deadLetterPublishingRecoverer);
+        assertLog(Level.INFO, "Saved 2 users of a batch of 2 records");
+    }
+
+    @Test
+    void consume_InvalidRecord_ShouldGoToDltWhileTheRestIsSaved() {
+        // Given
+        User valid = UserCreator.createRandomUser();
+        User invalid = User.builder().id(4).build();
+        ConsumerRecord<String, User> validRecord = createConsumerRecord(valid, 0L);
+        ConsumerRecord<String, User> invalidRecord = createConsumerRecord(invalid, 1L);
+        ConstraintViolationException exception = new ConstraintViolationException("name: Name cannot be null", null);
+        lenient().doThrow(exception).when(validatorUtils).validate(invalid);
+
+        // When
+        userBatchConsumer.consume(List.of(validRecord, invalidRecord), acknowledgment);
+
+        // Then
+        verify(deadLetterPublishingRecoverer).accept(invalidRecord, exception);
+        verify(userSink).write(List.of(ConsumedUser.of(valid, validRecord)));
+        verify(acknowledgment).acknowledge();
+        assertLog(Level.ERROR, "Invalid user payload received: name: Name cannot be null");
+        assertLog(Level.INFO, "Saved 1 users of a batch of 2 records");
+    }
+
+    @Test
+    void consume_UnreadableRecord_ShouldGoToDlt() {
+        // Given
+        ConsumerRecord<String, User> record = createUnreadableRecord(0L);
+
+        // When
+        userBatchConsumer.consume(List.of(record), acknowledgment);
+
+        // Then
+        verify(deadLetterPublishingRecoverer).accept(eq(record), any(DeserializationException.class));
+        verifyNoInteractions(validatorUtils);
+        verify(acknowledgment).acknowledge();
+        assertLog(Level.ERROR, "Unreadable user payload received");
+    }
+
+    @Test
+    void consume_UnderageUser_ShouldLogWarning() {
+        // Given
+        User user = UserCreator.createRandomUser();
+        user.setAge(14);
+
+        // When
+        userBatchConsumer.consume(List.of(createConsumerRecord(user, 0L)), acknowledgment);
+
+        // Then
+        assertLog(Level.WARN, "Underage user detected: " + user);
+    }
+
+    @Test
+    void consume_DatabaseFailure_ShouldRethrowWithoutAcknowledging() {
+        // Given
+        User user = UserCreator.createRandomUser();
+        doThrow(new DataIntegrityViolationException("Value too long")).when(userSink).write(any());
+        List<ConsumerRecord<String, User>> records = List.of(createConsumerRecord(user, 0L));
+
+        // When & Then
+        assertThrows(DataIntegrityViolationException.class, () -> userBatchConsumer.consume(records, acknowledgment));
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    @Test
+    void consume_DatabaseUnavailable_ShouldNackTheBatchWithoutSendingAnythingToTheDlt() {
+        // Given
+        User valid = UserCreator.createRandomUser();
+        User invalid = User.builder().id(4).build();
+        lenient().doThrow(new ConstraintViolationException("name: Name cannot be null", null)).when(validatorUtils).validate(invalid);
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+        List<ConsumerRecord<String, User>> records = List.of(createConsumerRecord(valid, 0L), createConsumerRecord(invalid, 1L));
+
+        // When the same batch fails twice
+        userBatchConsumer.consume(records, acknowledgment);
+        userBatchConsumer.consume(records, acknowledgment);
+
+        // Then it is redelivered with a growing delay, and the invalid record waits for a successful write
+        verify(acknowledgment).nack(0, Duration.ofSeconds(1));
+        verify(acknowledgment).nack(0, Duration.ofSeconds(2));
+        verify(acknowledgment, never()).acknowledge();
+        verifyNoInteractions(deadLetterPublishingRecoverer);
+        assertLog(Level.WARN, "Database unavailable, redelivering a batch of 2 records in 1000 ms: Connection refused");
+    }
+
+    @Test
+    void consume_DltUnreachable_ShouldFailTheBatchFromTheRejectedRecord() {
+        // Given
+        User valid = UserCreator.createRandomUser();
+        User invalid = User.builder().id(4).build();
+        ConsumerRecord<String, User> invalidRecord = createConsumerRecord(invalid, 1L);
+        lenient().doThrow(new ConstraintViolationException("name: Name cannot be null", null)).when(validatorUtils).validate(invalid);
+        doThrow(new KafkaException("Broker unreachable")).when(deadLetterPublishingRecoverer).accept(eq(invalidRecord), any());
+        List<ConsumerRecord<String, User>> records = List.of(createConsumerRecord(valid, 0L), invalidRecord);
+
+        // When
+        BatchListenerFailedException thrown = assertThrows(BatchListenerFailedException.class,
+                () -> userBatchConsumer.consume(records, acknowledgment));
+
+        // Then
+        assertEquals(1, thrown.getIndex());
+        verify(userSink).write(any());
+        verify(acknowledgment, never()).acknowledge();
+    }
+
+    private ConsumerRecord<String, User> createConsumerRecord(User value, long offset) {
+        return new ConsumerRecord<>("user-created", 0, offset, "user-key", value);
+    }
+
+    private ConsumerRecord<String, User> createUnreadableRecord(long offset) {
+        // Deserializes the way the consumer factory does, leaving the value null and the exception in a header
+        RecordHeaders headers = new RecordHeaders();
+        try (ErrorHandlingDeserializer<User> deserializer = new ErrorHandlingDeserializer<>((topic, data) -> {
+            throw new SerializationException("Unknown magic byte!");
+        })) {
+            User value = deserializer.deserialize("user-created", headers, "invalid-json".getBytes(StandardCharsets.UTF_8));
+            return new ConsumerRecord<>("user-created", 0, offset, 0L, TimestampType.CREATE_TIME, 0, 0, "user-key",
+                    value, headers, Optional.empty());
+        }
+    }
+}
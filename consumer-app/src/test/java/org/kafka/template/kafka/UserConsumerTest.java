@@ -5,25 +5,44 @@ import org.junit.jupiter.api.AfterEach;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.NullSource;
 import org.junit.jupiter.params.provider.ValueSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.DedupProperties;
 import org.kafka.template.creators.UserCreator;
-import org.kafka.template.entity.UserEntity;
-import org.kafka.template.mapper.UserMapper;
 import org.kafka.template.models.User;
-import org.kafka.template.repository.UserRepository;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.KafkaOffsetStore;
+import org.kafka.template.sink.OffsetStore;
+import org.kafka.template.sink.UserSink;
 import org.kafka.template.utils.ValidatorUtils;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.kafka.support.KafkaHeaders;
 
 import jakarta.validation.ConstraintViolationException;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,10 +52,13 @@ class UserConsumerTest extends BaseLogTest {
     private ValidatorUtils validatorUtils;
 
     @Mock
-    private UserRepository userRepository;
+    private UserSink userSink;
 
     @Mock
-    private UserMapper userMapper;
+    private DatabaseBackpressureController backpressureController;
+
+    @Mock
+    private CatchUpController catchUpController;
 
     @Mock
     private Acknowledgment acknowledgment;
@@ -45,7 +67,10 @@ class UserConsumerTest extends BaseLogTest {
 
     @BeforeEach
     void setUp() {
-        userConsumer = new UserConsumer(validatorUtils, userRepository, userMapper);
+        userConsumer = new UserConsumer(validatorUtils, new KafkaOffsetStore(userSink),
+                new UserDedupCache(new DedupProperties(), new SimpleMeterRegistry()), backpressureController,
+                catchUpController);
+        lenient().when(catchUpController.recordLogLevel()).thenReturn(org.slf4j.event.Level.INFO);
         setUpLogger(UserConsumer.class);
     }
 
@@ -62,12 +87,7 @@ class UserConsumerTest extends BaseLogTest {
         User user = UserCreator.createRandomUser();
         user.setAge(age);
 
-        UserEntity userEntity = new UserEntity();
-        userEntity.setAge(age);
-        userEntity.setId(1L);
-        when(userMapper.toUserEntity(any(User.class))).thenReturn(userEntity);
-
-        ConsumerRecord<String, Object> record = createConsumerRecord("user-key", user, 0, 100L);
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", user, 0, 100L);
 
         doNothing().when(validatorUtils).validate(any(User.class));
 
@@ -76,6 +96,7 @@ class UserConsumerTest extends BaseLogTest {
 
         // Then
         verify(validatorUtils).validate(any(User.class));
+        verify(userSink).write(List.of(ConsumedUser.of(user, record)));
         verify(acknowledgment).acknowledge();
 
         // And assert logs
@@ -83,18 +104,27 @@ class UserConsumerTest extends BaseLogTest {
         assertLog(Level.INFO, "Consumed valid user: " + user + ". partition: 0, offset: 100, key: user-key");
     }
 
+    @Test
+    void consume_CatchingUp_ShouldNotLogRecordsAtInfo() {
+        // Given
+        User user = UserCreator.createRandomUser();
+        when(catchUpController.recordLogLevel()).thenReturn(org.slf4j.event.Level.DEBUG);
+
+        // When
+        userConsumer.consume(createConsumerRecord("user-key", user, 0, 100L), acknowledgment);
+
+        // Then
+        verify(acknowledgment).acknowledge();
+        assertTrue(listAppender.list.stream().noneMatch(event -> event.getLevel().equals(Level.INFO)));
+    }
+
     @Test
     void consume_ValidUnderageUser_ShouldLogWarning() {
         // Given
         User user = UserCreator.createRandomUser();
         user.setAge(14); // Underage user
 
-        UserEntity userEntity = new UserEntity();
-        userEntity.setAge(14);
-        userEntity.setId(1L);
-        when(userMapper.toUserEntity(any(User.class))).thenReturn(userEntity);
-
-        ConsumerRecord<String, Object> record = createConsumerRecord("user-key", user, 1, 200L);
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", user, 1, 200L);
 
         doNothing().when(validatorUtils).validate(any(User.class));
 
@@ -110,13 +140,66 @@ class UserConsumerTest extends BaseLogTest {
         assertLog(Level.WARN, "Underage user detected");
     }
 
+    @Test
+    void consume_RedeliveredUnchangedUser_ShouldSkipWrite() {
+        // Given
+        User user = UserCreator.createRandomUser();
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", user, 0, 300L);
+        ConsumerRecord<String, User> redelivered = createConsumerRecord("user-key", user, 0, 300L);
+        userConsumer.consume(record, acknowledgment);
+
+        // When
+        userConsumer.consume(redelivered, acknowledgment);
+
+        // Then only the offset is stored for the redelivery
+        verify(userSink).write(List.of(ConsumedUser.of(user, record)));
+        verify(userSink).write(List.of());
+        verify(acknowledgment, times(2)).acknowledge();
+        assertLog(Level.INFO, "User " + user.getId() + " is unchanged since it was last saved, skipping the write");
+    }
+
+    @Test
+    void consume_ChangedUser_ShouldWriteAgain() {
+        // Given
+        User user = UserCreator.createRandomUser();
+        userConsumer.consume(createConsumerRecord("user-key", user, 0, 300L), acknowledgment);
+        User changed = User.builder().id(user.getId()).name(user.getName()).email("changed@example.com")
+                .age(user.getAge()).build();
+
+        // When
+        userConsumer.consume(createConsumerRecord("user-key", changed, 0, 301L), acknowledgment);
+
+        // Then
+        verify(userSink, times(2)).write(any());
+    }
+
+    @Test
+    void consume_PreviousVersionAfterFailedWrite_ShouldNotBeSkipped() {
+        // Given v1 is saved and v2 fails on its way to the retry topics
+        User v1 = UserCreator.createRandomUser();
+        User v2 = User.builder().id(v1.getId()).name(v1.getName()).email("changed@example.com")
+                .age(v1.getAge()).build();
+        userConsumer.consume(createConsumerRecord("user-key", v1, 0, 300L), acknowledgment);
+        doThrow(new IllegalStateException("Constraint violated"))
+                .doNothing()
+                .when(userSink).write(any());
+        assertThrows(RuntimeException.class,
+                () -> userConsumer.consume(createConsumerRecord("user-key", v2, 0, 301L), acknowledgment));
+
+        // When v1 arrives again
+        userConsumer.consume(createConsumerRecord("user-key", v1, 0, 302L), acknowledgment);
+
+        // Then it is written, as the retried v2 may have overwritten it meanwhile
+        verify(userSink, times(3)).write(argThat(users -> !users.isEmpty()));
+    }
+
     @Test
     void consume_InvalidUser_ShouldLogErrorAndRethrowException() {
         // Given
         User user = UserCreator.createRandomUser();
         user.setEmail("invalid-email-format"); // Invalid email format
 
-        ConsumerRecord<String, Object> record = createConsumerRecord("user-key", user, 0, 400L);
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", user, 0, 400L);
 
         ConstraintViolationException exception = new ConstraintViolationException("Invalid email format", null);
         doThrow(exception).when(validatorUtils).validate(any(User.class));
@@ -135,9 +218,10 @@ class UserConsumerTest extends BaseLogTest {
     }
 
     @Test
-    void consume_JsonProcessingError_ShouldHandleGracefully() {
+    void consume_DatabaseError_ShouldHandleGracefully() {
         // Given
-        ConsumerRecord<String, Object> record = createConsumerRecord("user-key", "invalid-json", 0, 600L);
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", UserCreator.createRandomUser(), 0, 600L);
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
 
         // When & Then
         RuntimeException thrown = assertThrows(
@@ -152,7 +236,112 @@ class UserConsumerTest extends BaseLogTest {
         assertLog(Level.ERROR, "Error during message validation or processing");
     }
 
-    private ConsumerRecord<String, Object> createConsumerRecord(String key, Object value, int partition, long offset) {
+    @Test
+    void consume_DatabaseUnavailable_ShouldNackInsteadOfFailing() {
+        // Given
+        User user = UserCreator.createRandomUser();
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", user, 0, 700L);
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("Connection refused");
+        doThrow(failure).when(userSink).write(any());
+        when(backpressureController.shouldRedeliver(failure)).thenReturn(true);
+        when(backpressureController.writeFailed(anyLong())).thenReturn(Duration.ofSeconds(2));
+
+        // When
+        userConsumer.consume(record, acknowledgment);
+
+        // Then
+        verify(acknowledgment).nack(Duration.ofSeconds(2));
+        verify(acknowledgment, never()).acknowledge();
+        assertLog(Level.WARN, "Database unavailable, redelivering user " + user.getId() + " in 2000 ms");
+    }
+
+    @Test
+    void consume_RedeliveredUnchangedUser_ShouldStoreItsOffsetAlone() {
+        // Given
+        OffsetStore offsetStore = mock(OffsetStore.class);
+        UserConsumer consumer = new UserConsumer(validatorUtils, offsetStore,
+                new UserDedupCache(new DedupProperties(), new SimpleMeterRegistry()), backpressureController,
+                catchUpController);
+        User user = UserCreator.createRandomUser();
+        consumer.consume(createConsumerRecord("user-key", user, 0, 300L), acknowledgment);
+
+        // When
+        consumer.consume(createConsumerRecord("user-key", user, 0, 301L), acknowledgment);
+
+        // Then
+        verify(offsetStore).write(List.of(), Map.of(new TopicPartition("user-created", 0), 302L));
+    }
+
+    @Test
+    void consume_FailedUser_ShouldStoreItsOffsetBeforeItIsForwarded() {
+        // Given
+        OffsetStore offsetStore = mock(OffsetStore.class);
+        UserConsumer consumer = new UserConsumer(validatorUtils, offsetStore,
+                new UserDedupCache(new DedupProperties(), new SimpleMeterRegistry()), backpressureController,
+                catchUpController);
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", UserCreator.createRandomUser(), 0, 600L);
+        doAnswer(invocation -> {
+            if (!invocation.<List<ConsumedUser>>getArgument(0).isEmpty()) {
+                throw new IllegalStateException("Constraint violated");
+            }
+            return null;
+        }).when(offsetStore).write(any(), any());
+
+        // When
+        assertThrows(RuntimeException.class, () -> consumer.consume(record, acknowledgment));
+
+        // Then
+        verify(offsetStore).write(List.of(), Map.of(new TopicPartition("user-created", 0), 601L));
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void consume_InvalidUser_ShouldStoreItsOffsetBeforeItIsForwarded() {
+        // Given
+        OffsetStore offsetStore = mock(OffsetStore.class);
+        UserConsumer consumer = new UserConsumer(validatorUtils, offsetStore,
+                new UserDedupCache(new DedupProperties(), new SimpleMeterRegistry()), backpressureController,
+                catchUpController);
+        ConsumerRecord<String, User> record = createConsumerRecord("user-key", UserCreator.createRandomUser(), 1, 700L);
+        doThrow(new ConstraintViolationException("Invalid email format", null)).when(validatorUtils).validate(any(User.class));
+
+        // When
+        assertThrows(ConstraintViolationException.class, () -> consumer.consume(record, acknowledgment));
+
+        // Then
+        verify(offsetStore).write(List.of(), Map.of(new TopicPartition("user-created", 1), 701L));
+    }
+
+    @Test
+    void consume_RetriedOlderEvent_ShouldNotWinOverTheNewerEventAlreadyWritten() {
+        // Given v2 is written from user-created while v1 waits in a retry topic
+        Instant v1Time = Instant.parse("2025-01-01T10:00:00Z");
+        Instant v2Time = Instant.parse("2025-01-01T10:00:05Z");
+        User v1 = UserCreator.createRandomUser();
+        User v2 = User.builder().id(v1.getId()).name(v1.getName()).email("changed@example.com").age(v1.getAge()).build();
+        userConsumer.consume(new ConsumerRecord<>("user-created", 0, 301L, v2Time.toEpochMilli(),
+                TimestampType.CREATE_TIME, 0, 0, "user-key", v2, new RecordHeaders(), Optional.empty()), acknowledgment);
+        RecordHeaders original = new RecordHeaders();
+        original.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(300L).array());
+        original.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, ByteBuffer.allocate(Long.BYTES).putLong(v1Time.toEpochMilli()).array());
+        // Stamped when it was forwarded, after v2
+        ConsumerRecord<String, User> retried = new ConsumerRecord<>("user-created-retry-5000", 0, 0L,
+                v2Time.plusSeconds(5).toEpochMilli(), TimestampType.CREATE_TIME, 0, 0, "user-key", v1, original,
+                Optional.empty());
+
+        // When
+        userConsumer.consume(retried, acknowledgment);
+
+        // Then v1 is upserted with its position on user-created, which the stored v2 outranks
+        ArgumentCaptor<List<ConsumedUser>> written = ArgumentCaptor.forClass(List.class);
+        verify(userSink, times(2)).write(written.capture());
+        ConsumedUser stored = written.getAllValues().get(0).get(0);
+        ConsumedUser retriedV1 = written.getAllValues().get(1).get(0);
+        assertEquals(new ConsumedUser(v1, 300L, v1Time), retriedV1);
+        assertTrue(ConsumedUser.EVENT_ORDER.compare(retriedV1, stored) < 0);
+    }
+
+    private ConsumerRecord<String, User> createConsumerRecord(String key, User value, int partition, long offset) {
         return new ConsumerRecord<>("user-created", partition, offset, key, value);
     }
 }
@@ -0,0 +1,170 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kafka.template.config.DedupProperties;
+import org.kafka.template.models.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDedupCacheTest {
+
+    private DedupProperties properties;
+    private MeterRegistry meterRegistry;
+    private UserDedupCache userDedupCache;
+
+    @BeforeEach
+    void setUp() {
+        properties = new DedupProperties();
+        properties.setCapacity(2);
+        meterRegistry = new SimpleMeterRegistry();
+        userDedupCache = new UserDedupCache(properties, meterRegistry);
+    }
+
+    @Test
+    void isUnchanged_UserNeverWritten_ShouldBeAnsweredByBloomFilter() {
+        // When / Then
+        assertFalse(userDedupCache.isUnchanged(user(1, "john@example.com")));
+        assertEquals(1.0, lookups("new"));
+    }
+
+    @Test
+    void isUnchanged_SameContentWritten_ShouldSkip() {
+        // Given
+        userDedupCache.written(user(1, "john@example.com"), record(0));
+
+        // When / Then
+        assertTrue(userDedupCache.isUnchanged(user(1, "john@example.com")));
+        assertEquals(1.0, lookups("unchanged"));
+    }
+
+    @Test
+    void isUnchanged_ContentChanged_ShouldWrite() {
+        // Given
+        userDedupCache.written(user(1, "john@example.com"), record(0));
+
+        // When / Then
+        assertFalse(userDedupCache.isUnchanged(user(1, "johnny@example.com")));
+        assertFalse(userDedupCache.isUnchanged(user(1, null)));
+        assertEquals(2.0, lookups("changed"));
+    }
+
+    @Test
+    void written_AboveCapacity_ShouldEvictLeastRecentlyUsedUser() {
+        // Given
+        userDedupCache.written(user(1, "a@example.com"), record(0));
+        userDedupCache.written(user(2, "b@example.com"), record(0));
+        userDedupCache.isUnchanged(user(1, "a@example.com"));
+
+        // When
+        userDedupCache.written(user(3, "c@example.com"), record(0));
+
+        // Then
+        assertEquals(2, userDedupCache.size());
+        assertTrue(userDedupCache.isUnchanged(user(1, "a@example.com")));
+        assertFalse(userDedupCache.isUnchanged(user(2, "b@example.com")));
+    }
+
+    @Test
+    void written_ManyUsers_ShouldKeepBloomFilterInStepWithCache() {
+        // When
+        for (int id = 1; id <= 20; id++) {
+            userDedupCache.written(user(id, "user" + id + "@example.com"), record(0));
+        }
+
+        // Then
+        assertTrue(userDedupCache.isUnchanged(user(20, "user20@example.com")));
+        assertEquals(2, userDedupCache.size());
+    }
+
+    @Test
+    void onPartitionsRevokedAfterCommit_ShouldForgetUsersOfRevokedPartitionsOnly() {
+        // Given
+        userDedupCache.written(user(1, "a@example.com"), record(0));
+        userDedupCache.written(user(2, "b@example.com"), record(1));
+
+        // When
+        userDedupCache.onPartitionsRevokedAfterCommit(null, List.of(new TopicPartition("user-created", 0)));
+
+        // Then
+        assertFalse(userDedupCache.isUnchanged(user(1, "a@example.com")));
+        assertTrue(userDedupCache.isUnchanged(user(2, "b@example.com")));
+    }
+
+    @Test
+    void onPartitionsLost_ShouldForgetUsersOfLostPartitions() {
+        // Given
+        userDedupCache.written(user(1, "a@example.com"), record(0));
+
+        // When
+        userDedupCache.onPartitionsLost(null, List.of(new TopicPartition("user-created", 0)));
+
+        // Then
+        assertEquals(0, userDedupCache.size());
+    }
+
+    @Test
+    void forget_ShouldDropOnlyThatUser() {
+        // Given
+        userDedupCache.written(user(1, "a@example.com"), record(0));
+        userDedupCache.written(user(2, "b@example.com"), record(0));
+
+        // When
+        userDedupCache.forget(1);
+
+        // Then
+        assertFalse(userDedupCache.isUnchanged(user(1, "a@example.com")));
+        assertEquals(1.0, lookups("not-cached"));
+        assertTrue(userDedupCache.isUnchanged(user(2, "b@example.com")));
+    }
+
+    @Test
+    void isUnchanged_Disabled_ShouldAlwaysWrite() {
+        // Given
+        properties.setEnabled(false);
+        userDedupCache.written(user(1, "a@example.com"), record(0));
+
+        // When / Then
+        assertFalse(userDedupCache.isUnchanged(user(1, "a@example.com")));
+        assertEquals(0, userDedupCache.size());
+    }
+
+    @Test
+    void memory_ShouldCountEntriesAndBloomFilter() {
+        // Given
+        long empty = userDedupCache.memoryBytes();
+
+        // When
+        userDedupCache.written(user(1, "a@example.com"), record(0));
+
+        // Then
+        assertEquals(empty + UserDedupCache.ENTRY_BYTES, userDedupCache.memoryBytes());
+        assertEquals(1.0, meterRegistry.get("kafka.consumer.dedup.entries").gauge().value());
+    }
+
+    @Test
+    void contentHash_ShouldTellFieldBoundariesAndNullsApart() {
+        assertNotEquals(UserDedupCache.contentHash(new User(1, "ab", "c", null)),
+                UserDedupCache.contentHash(new User(1, "a", "bc", null)));
+        assertNotEquals(UserDedupCache.contentHash(new User(1, "a", "", null)),
+                UserDedupCache.contentHash(new User(1, "a", null, null)));
+    }
+
+    private double lookups(String result) {
+        return meterRegistry.get("kafka.consumer.dedup.lookups").tag("result", result).counter().count();
+    }
+
+    private static User user(int id, String email) {
+        return new User(id, "John Doe", email, 30);
+    }
+
+    private static ConsumerRecord<String, User> record(int partition) {
+        return new ConsumerRecord<>("user-created", partition, 0L, "key", null);
+    }
+}
@@ -0,0 +1,303 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import jakarta.validation.ConstraintViolationException;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.ParallelConsumerProperties;
+import org.kafka.template.creators.UserCreator;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.UserSink;
+import org.kafka.template.utils.ValidatorUtils;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserParallelConsumerTest extends BaseLogTest {
+
+    @Mock
+    private ValidatorUtils validatorUtils;
+
+    @Mock
+    private UserSink userSink;
+
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private Consumer<String, User> consumer;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    private ParallelConsumerProperties properties;
+    private UserParallelConsumer userParallelConsumer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ParallelConsumerProperties();
+        properties.setLanes(4);
+        properties.setRetryBackoffMs(1);
+        properties.setRetryAttempts(2);
+        properties.setRevocationDrainTimeoutMs(1000);
+        userParallelConsumer = new UserParallelConsumer(validatorUtils, userSink, deadLetterPublishingRecoverer,
+                listenerRegistry, properties);
+        setUpLogger(UserParallelConsumer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        userParallelConsumer.close();
+        tearDownLogger();
+    }
+
+    @Test
+    void consume_ValidUser_ShouldBeSavedAndAcknowledgedFromItsLane() throws InterruptedException {
+        // Given
+        User user = UserCreator.createRandomUser();
+        ConsumerRecord<String, User> record = createConsumerRecord(user, 100L);
+
+        // When
+        userParallelConsumer.consume(record, acknowledgment);
+
+        // Then
+        verify(acknowledgment, timeout(1000)).acknowledge();
+        verify(userSink).write(List.of(ConsumedUser.of(user, record)));
+    }
+
+    @Test
+    void consume_EventsOfOneUser_ShouldBeSavedInOrder() throws InterruptedException {
+        // Given
+        User first = User.builder().id(1).name("John").build();
+        User second = User.builder().id(1).name("John Doe").build();
+        ConsumerRecord<String, User> firstRecord = createConsumerRecord(first, 1L);
+        ConsumerRecord<String, User> secondRecord = createConsumerRecord(second, 2L);
+
+        // When
+        userParallelConsumer.consume(firstRecord, acknowledgment);
+        userParallelConsumer.consume(secondRecord, acknowledgment);
+
+        // Then
+        verify(acknowledgment, timeout(1000).times(2)).acknowledge();
+        var inOrder = inOrder(userSink);
+        inOrder.verify(userSink).write(List.of(ConsumedUser.of(first, firstRecord)));
+        inOrder.verify(userSink).write(List.of(ConsumedUser.of(second, secondRecord)));
+    }
+
+    @Test
+    void consume_InvalidUser_ShouldGoToDltAndBeAcknowledged() throws InterruptedException {
+        // Given
+        User user = User.builder().id(4).build();
+        ConsumerRecord<String, User> record = createConsumerRecord(user, 100L);
+        ConstraintViolationException exception = new ConstraintViolationException("name: Name cannot be null", null);
+        doThrow(exception).when(validatorUtils).validate(user);
+
+        // When
+        userParallelConsumer.consume(record, acknowledgment);
+
+        // Then
+        verify(acknowledgment, timeout(1000)).acknowledge();
+        verify(deadLetterPublishingRecoverer).accept(record, exception);
+        verifyNoInteractions(userSink);
+        assertLog(Level.ERROR, "Invalid user payload received: name: Name cannot be null");
+    }
+
+    @Test
+    void consume_UnderageUser_ShouldLogWarning() throws InterruptedException {
+        // Given
+        User user = UserCreator.createRandomUser();
+        user.setAge(14);
+
+        // When
+        userParallelConsumer.consume(createConsumerRecord(user, 100L), acknowledgment);
+
+        // Then
+        verify(acknowledgment, timeout(1000)).acknowledge();
+        assertLog(Level.WARN, "Underage user detected: " + user);
+    }
+
+    @Test
+    void consume_SaveKeepsFailing_ShouldRetryThenGoToDlt() throws InterruptedException {
+        // Given
+        User user = UserCreator.createRandomUser();
+        ConsumerRecord<String, User> record = createConsumerRecord(user, 100L);
+        DataAccessResourceFailureException exception = new DataAccessResourceFailureException("Connection refused");
+        doThrow(exception).when(userSink).write(any());
+
+        // When
+        userParallelConsumer.consume(record, acknowledgment);
+
+        // Then
+        verify(acknowledgment, timeout(1000)).acknowledge();
+        verify(userSink, times(3)).write(any());
+        verify(deadLetterPublishingRecoverer).accept(record, exception);
+        assertLog(Level.WARN, "Saving user failed, retrying in 1 ms: Connection refused");
+    }
+
+    @Test
+    void consume_DltBrieflyUnreachable_ShouldRetryUntilTheRecordIsAcknowledged() throws InterruptedException {
+        // Given
+        User user = User.builder().id(4).build();
+        ConsumerRecord<String, User> record = createConsumerRecord(user, 100L);
+        Acknowledgment nextAcknowledgment = mock(Acknowledgment.class);
+        doThrow(new ConstraintViolationException("name: Name cannot be null", null)).when(validatorUtils).validate(user);
+        doThrow(new KafkaException("Broker unreachable"))
+                .doThrow(new KafkaException("Broker unreachable"))
+                .doNothing()
+                .when(deadLetterPublishingRecoverer).accept(eq(record), any());
+
+        // When a later record of the same partition follows
+        userParallelConsumer.consume(record, acknowledgment);
+        userParallelConsumer.consume(new ConsumerRecord<>("user-created", 0, 101L, "other-key",
+                UserCreator.createRandomUser()), nextAcknowledgment);
+
+        // Then the gap before it is filled, so the partition can commit again
+        verify(nextAcknowledgment, timeout(1000)).acknowledge();
+        verify(acknowledgment, timeout(1000)).acknowledge();
+        verify(deadLetterPublishingRecoverer, times(3)).accept(eq(record), any());
+        verifyNoInteractions(listenerRegistry);
+        assertLog(Level.ERROR, "User could not be sent to the DLT, retrying in 1 ms: Broker unreachable");
+    }
+
+    @Test
+    void consume_LaneInterruptedBeforeDlt_ShouldStopTheContainer() throws InterruptedException {
+        // Given
+        User user = User.builder().id(4).build();
+        ConsumerRecord<String, User> record = createConsumerRecord(user, 100L);
+        doThrow(new ConstraintViolationException("name: Name cannot be null", null)).when(validatorUtils).validate(user);
+        doAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Broker unreachable");
+        }).when(deadLetterPublishingRecoverer).accept(eq(record), any());
+        when(listenerRegistry.getListenerContainer(UserParallelConsumer.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+
+        // When
+        userParallelConsumer.consume(record, acknowledgment);
+
+        // Then the record is redelivered from the committed offset rather than left as a gap
+        verify(container, timeout(1000)).stop();
+        verify(acknowledgment, never()).acknowledge();
+        assertLog(Level.ERROR, "Lane interrupted before user at user-created-0@100 was processed, stopping the listener container");
+    }
+
+    @Test
+    void consume_DltUnreachableBeyondTimeout_ShouldStopTheContainer() {
+        // Given
+        properties.setDltTimeoutMs(10);
+        userParallelConsumer.close();
+        userParallelConsumer = new UserParallelConsumer(validatorUtils, userSink, deadLetterPublishingRecoverer,
+                listenerRegistry, properties);
+        User user = User.builder().id(4).build();
+        ConsumerRecord<String, User> record = createConsumerRecord(user, 100L);
+        doThrow(new ConstraintViolationException("name: Name cannot be null", null)).when(validatorUtils).validate(user);
+        doThrow(new KafkaException("Broker unreachable")).when(deadLetterPublishingRecoverer).accept(eq(record), any());
+        when(listenerRegistry.getListenerContainer(UserParallelConsumer.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+
+        // When
+        userParallelConsumer.consume(record, acknowledgment);
+
+        // Then the lane gives the record up instead of retrying forever
+        verify(container, timeout(1000)).stop();
+        verify(acknowledgment, never()).acknowledge();
+        assertLog(Level.ERROR, "DLT unreachable for 10 ms before user at user-created-0@100 was processed, stopping the listener container");
+    }
+
+    @Test
+    void consume_LanesFull_ShouldPauseTheContainerInsteadOfWaitingAndResumeOnceDrained() throws InterruptedException {
+        // Given
+        properties.setMaxInFlight(2);
+        userParallelConsumer.close();
+        userParallelConsumer = new UserParallelConsumer(validatorUtils, userSink, deadLetterPublishingRecoverer,
+                listenerRegistry, properties);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(userSink).write(any());
+        when(listenerRegistry.getListenerContainer(UserParallelConsumer.LISTENER_ID)).thenReturn(container);
+
+        // When the container thread hands over more records than the lanes may hold
+        userParallelConsumer.consume(createConsumerRecord(UserCreator.createRandomUser(), 100L), acknowledgment);
+        userParallelConsumer.consume(createConsumerRecord(UserCreator.createRandomUser(), 101L), acknowledgment);
+        userParallelConsumer.consume(createConsumerRecord(UserCreator.createRandomUser(), 102L), acknowledgment);
+
+        // Then it is never blocked, the container is paused once and resumed after the lanes drain
+        verify(container).pause();
+        verify(container, never()).resume();
+        release.countDown();
+        verify(acknowledgment, timeout(1000).times(3)).acknowledge();
+        verify(container, timeout(1000)).resume();
+    }
+
+    @Test
+    void onPartitionsRevokedBeforeCommit_RecordsInLanes_ShouldWaitUntilTheyAreAcknowledged() throws InterruptedException {
+        // Given
+        doAnswer(invocation -> {
+            Thread.sleep(100);
+            return null;
+        }).when(userSink).write(any());
+        userParallelConsumer.consume(createConsumerRecord(UserCreator.createRandomUser(), 100L), acknowledgment);
+
+        // When
+        userParallelConsumer.onPartitionsRevokedBeforeCommit(consumer, List.of(new TopicPartition("user-created", 0)));
+
+        // Then
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void awaitFinished_RecordStuckInLane_ShouldOnlyWaitForItsPartition() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            release.await();
+            return null;
+        }).when(userSink).write(any());
+        userParallelConsumer.consume(createConsumerRecord(UserCreator.createRandomUser(), 100L), acknowledgment);
+
+        // When
+        boolean stuckPartitionFinished = userParallelConsumer.awaitFinished(List.of(new TopicPartition("user-created", 0)), 50);
+        boolean otherPartitionFinished = userParallelConsumer.awaitFinished(List.of(new TopicPartition("user-created", 1)), 50);
+        release.countDown();
+
+        // Then
+        assertFalse(stuckPartitionFinished);
+        assertTrue(otherPartitionFinished);
+        verify(acknowledgment, timeout(1000)).acknowledge();
+    }
+
+    private ConsumerRecord<String, User> createConsumerRecord(User value, long offset) {
+        return new ConsumerRecord<>("user-created", 0, offset, "user-key", value);
+    }
+}
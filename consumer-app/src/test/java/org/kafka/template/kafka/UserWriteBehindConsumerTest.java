@@ -0,0 +1,87 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import jakarta.validation.ConstraintViolationException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.creators.UserCreator;
+import org.kafka.template.models.User;
+import org.kafka.template.utils.ValidatorUtils;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.support.Acknowledgment;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserWriteBehindConsumerTest extends BaseLogTest {
+
+    @Mock
+    private ValidatorUtils validatorUtils;
+
+    @Mock
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private UserWriteBehindConsumer userWriteBehindConsumer;
+
+    @BeforeEach
+    void setUp() {
+        userWriteBehindConsumer = new UserWriteBehindConsumer(validatorUtils, writeBehindBuffer);
+        setUpLogger(UserWriteBehindConsumer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void consume_ValidUser_ShouldBeBufferedWithoutAcknowledging() throws InterruptedException {
+        // Given
+        ConsumerRecord<String, User> record = createConsumerRecord(UserCreator.createRandomUser());
+
+        // When
+        userWriteBehindConsumer.consume(record, acknowledgment);
+
+        // Then
+        verify(writeBehindBuffer).add(record, acknowledgment);
+        verifyNoInteractions(acknowledgment);
+    }
+
+    @Test
+    void consume_UnderageUser_ShouldLogWarning() throws InterruptedException {
+        // Given
+        User user = UserCreator.createRandomUser();
+        user.setAge(15);
+
+        // When
+        userWriteBehindConsumer.consume(createConsumerRecord(user), acknowledgment);
+
+        // Then
+        assertLog(Level.WARN, "Underage user detected");
+    }
+
+    @Test
+    void consume_InvalidUser_ShouldThrowToErrorHandler() throws InterruptedException {
+        // Given
+        doThrow(new ConstraintViolationException("Invalid email format", null)).when(validatorUtils).validate(any(User.class));
+
+        // When / Then
+        assertThrows(ConstraintViolationException.class,
+                () -> userWriteBehindConsumer.consume(createConsumerRecord(UserCreator.createRandomUser()), acknowledgment));
+        verify(writeBehindBuffer, never()).add(any(), any());
+    }
+
+    private ConsumerRecord<String, User> createConsumerRecord(User user) {
+        return new ConsumerRecord<>("user-created", 0, 1L, String.valueOf(user.getId()), user);
+    }
+}
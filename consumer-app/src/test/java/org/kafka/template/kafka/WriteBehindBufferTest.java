@@ -0,0 +1,247 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.WriteBehindProperties;
+import org.kafka.template.creators.UserCreator;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.UserSink;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WriteBehindBufferTest extends BaseLogTest {
+
+    @Mock
+    private UserSink userSink;
+
+    @Mock
+    private DeadLetterPublishingRecoverer deadLetterPublishingRecoverer;
+
+    @Mock
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Mock
+    private MessageListenerContainer container;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    private WriteBehindProperties properties;
+    private WriteBehindBuffer writeBehindBuffer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new WriteBehindProperties();
+        properties.setCapacity(2);
+        properties.setLingerMs(20);
+        properties.setRetryBackoffMs(1);
+        properties.setRetryAttempts(1);
+        properties.setRevocationFlushTimeoutMs(1000);
+        setUpLogger(WriteBehindBuffer.class);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        writeBehindBuffer.close();
+        tearDownLogger();
+    }
+
+    @Test
+    void add_ShouldWriteInOneBatchAndAcknowledgeAfterwards() throws InterruptedException {
+        // Given
+        properties.setLingerMs(200);
+        writeBehindBuffer = newBuffer();
+        ConsumerRecord<String, User> first = record(1L);
+        ConsumerRecord<String, User> second = record(2L);
+
+        // When
+        writeBehindBuffer.add(first, acknowledgment);
+        writeBehindBuffer.add(second, acknowledgment);
+
+        // Then
+        assertTrue(writeBehindBuffer.awaitFlushed(1000));
+        verify(userSink).write(List.of(ConsumedUser.of(first.value(), first), ConsumedUser.of(second.value(), second)));
+        verify(acknowledgment, times(2)).acknowledge();
+    }
+
+    @Test
+    void add_SinkDown_ShouldRetryThenSendEveryRecordToDlt() throws InterruptedException {
+        // Given
+        writeBehindBuffer = newBuffer();
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+        ConsumerRecord<String, User> record = record(1L);
+
+        // When
+        writeBehindBuffer.add(record, acknowledgment);
+
+        // Then
+        assertTrue(writeBehindBuffer.awaitFlushed(1000));
+        verify(userSink, times(2)).write(any());
+        verify(deadLetterPublishingRecoverer).accept(eq(record), any(DataAccessResourceFailureException.class));
+        verify(acknowledgment).acknowledge();
+        assertLog(Level.WARN, "Flushing 1 users failed, retrying in 1 ms");
+    }
+
+    @Test
+    void add_DltBrieflyDown_ShouldRetryUntilTheRecordIsAcknowledged() throws InterruptedException {
+        // Given
+        writeBehindBuffer = newBuffer();
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+        doThrow(new IllegalStateException("Broker unavailable"))
+                .doThrow(new IllegalStateException("Broker unavailable"))
+                .doNothing()
+                .when(deadLetterPublishingRecoverer).accept(any(), any());
+
+        // When
+        writeBehindBuffer.add(record(1L), acknowledgment);
+
+        // Then the container is not left waiting for the ack of its poll
+        assertTrue(writeBehindBuffer.awaitFlushed(1000));
+        verify(deadLetterPublishingRecoverer, times(3)).accept(any(), any());
+        verify(acknowledgment).acknowledge();
+        verifyNoInteractions(listenerRegistry);
+        assertLog(Level.ERROR, "User could not be sent to the DLT, retrying in 1 ms: Broker unavailable");
+    }
+
+    @Test
+    void add_FlusherInterruptedBeforeDlt_ShouldStopTheContainer() throws InterruptedException {
+        // Given
+        writeBehindBuffer = newBuffer();
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+        doAnswer(invocation -> {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Broker unavailable");
+        }).when(deadLetterPublishingRecoverer).accept(any(), any());
+        when(listenerRegistry.getListenerContainer(UserWriteBehindConsumer.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+
+        // When
+        writeBehindBuffer.add(record(1L), acknowledgment);
+
+        // Then the record is redelivered from the committed offset
+        verify(container, timeout(1000)).stop();
+        verify(acknowledgment, never()).acknowledge();
+        assertLog(Level.ERROR, "Write-behind flusher interrupted with 1 records unflushed, stopping the listener container");
+    }
+
+    @Test
+    void add_DltDownBeyondTimeout_ShouldStopTheContainer() throws InterruptedException {
+        // Given
+        properties.setDltTimeoutMs(10);
+        writeBehindBuffer = newBuffer();
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+        doThrow(new IllegalStateException("Broker unavailable")).when(deadLetterPublishingRecoverer).accept(any(), any());
+        when(listenerRegistry.getListenerContainer(UserWriteBehindConsumer.LISTENER_ID)).thenReturn(container);
+        when(container.isRunning()).thenReturn(true);
+
+        // When
+        writeBehindBuffer.add(record(1L), acknowledgment);
+
+        // Then the flusher gives the record up instead of retrying forever
+        assertTrue(writeBehindBuffer.awaitFlushed(1000));
+        verify(container).stop();
+        verify(acknowledgment, never()).acknowledge();
+        assertLog(Level.ERROR, "Write-behind flusher could not reach the DLT for 10 ms with 1 records unflushed, stopping the listener container");
+    }
+
+    @Test
+    void add_BufferFull_ShouldPauseContainerAndResumeOnceDrained() throws InterruptedException {
+        // Given
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(1, TimeUnit.SECONDS)).when(userSink).write(any());
+        properties.setLingerMs(0);
+        when(listenerRegistry.getListenerContainer(UserWriteBehindConsumer.LISTENER_ID)).thenReturn(container);
+        writeBehindBuffer = newBuffer();
+
+        // When the rest of the poll comes in after the pause
+        for (long offset = 1; offset <= 10; offset++) {
+            writeBehindBuffer.add(record(offset), acknowledgment);
+        }
+
+        // Then the listener was never blocked
+        verify(container, atLeastOnce()).pause();
+        release.countDown();
+        assertTrue(writeBehindBuffer.awaitFlushed(1000));
+        verify(container, timeout(1000).atLeastOnce()).resume();
+        verify(acknowledgment, times(10)).acknowledge();
+        assertLog(Level.WARN, "Write-behind buffer full with 2 records, pausing the listener container");
+    }
+
+    @Test
+    void onPartitionsRevokedBeforeCommit_ShouldWaitForBufferedRecords() throws InterruptedException {
+        // Given
+        writeBehindBuffer = newBuffer();
+        writeBehindBuffer.add(record(1L), acknowledgment);
+
+        // When
+        writeBehindBuffer.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("user-created", 0)));
+
+        // Then
+        verify(acknowledgment).acknowledge();
+    }
+
+    @Test
+    void onPartitionsRevokedBeforeCommit_FlushTooSlow_ShouldLogAndReturn() throws InterruptedException {
+        // Given
+        properties.setRevocationFlushTimeoutMs(50);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> release.await(1, TimeUnit.SECONDS)).when(userSink).write(any());
+        writeBehindBuffer = newBuffer();
+        writeBehindBuffer.add(record(1L), acknowledgment);
+
+        // When
+        writeBehindBuffer.onPartitionsRevokedBeforeCommit(null, List.of(new TopicPartition("user-created", 0)));
+
+        // Then
+        assertLog(Level.WARN, "Write-behind buffer not flushed within 50 ms");
+        release.countDown();
+    }
+
+    @Test
+    void flush_SinkFails_ShouldShrinkBatchSize() throws InterruptedException {
+        // Given
+        writeBehindBuffer = newBuffer();
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+        int initial = writeBehindBuffer.currentBatchSize();
+
+        // When
+        writeBehindBuffer.add(record(1L), acknowledgment);
+
+        // Then
+        assertTrue(writeBehindBuffer.awaitFlushed(1000));
+        assertTrue(writeBehindBuffer.currentBatchSize() < initial);
+    }
+
+    private WriteBehindBuffer newBuffer() {
+        return new WriteBehindBuffer(userSink, deadLetterPublishingRecoverer, listenerRegistry, properties,
+                new SimpleMeterRegistry());
+    }
+
+    private static ConsumerRecord<String, User> record(long offset) {
+        User user = UserCreator.createRandomUser();
+        return new ConsumerRecord<>("user-created", 0, offset, String.valueOf(user.getId()), user);
+    }
+}
@@ -0,0 +1,93 @@
+package org.kafka.template.replay;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.DefaultApplicationArguments;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DltReplayCommandTest {
+
+    @Mock
+    private DltReplayService dltReplayService;
+
+    private DltReplayCommand dltReplayCommand;
+
+    @BeforeEach
+    void setUp() {
+        dltReplayCommand = new DltReplayCommand(dltReplayService);
+    }
+
+    @Test
+    void isRequested_ShouldDetectOption() {
+        assertTrue(DltReplayCommand.isRequested("--dlt-replay", "--dry-run"));
+        assertFalse(DltReplayCommand.isRequested("--server.port=9091"));
+    }
+
+    @Test
+    void run_WithoutOption_ShouldNotReplay() {
+        // When
+        dltReplayCommand.run(new DefaultApplicationArguments("--server.port=9091"));
+
+        // Then
+        verifyNoInteractions(dltReplayService);
+        assertEquals(0, dltReplayCommand.getExitCode());
+    }
+
+    @Test
+    void run_ShouldReplayWithFilterFromOptions() {
+        // Given
+        DltReplayFilter filter = new DltReplayFilter(10L, 20L, Instant.parse("2025-01-01T10:00:00Z"),
+                Instant.parse("2025-01-01T11:00:00Z"), "DataAccessException");
+        when(dltReplayService.replay(filter, true)).thenReturn(report(0));
+
+        // When
+        dltReplayCommand.run(new DefaultApplicationArguments("--dlt-replay", "--from-offset=10", "--to-offset=20",
+                "--from-time=2025-01-01T10:00:00Z", "--to-time=2025-01-01T11:00:00Z",
+                "--exception=DataAccessException", "--dry-run"));
+
+        // Then
+        verify(dltReplayService).replay(filter, true);
+        assertEquals(0, dltReplayCommand.getExitCode());
+    }
+
+    @Test
+    void run_FailedUsers_ShouldExitWithOne() {
+        // Given
+        when(dltReplayService.replay(DltReplayFilter.ALL, false)).thenReturn(report(3));
+
+        // When
+        dltReplayCommand.run(new DefaultApplicationArguments("--dlt-replay"));
+
+        // Then
+        assertEquals(1, dltReplayCommand.getExitCode());
+    }
+
+    @Test
+    void run_Aborted_ShouldExitWithTwo() {
+        // Given
+        DltReplayReport aborted = new DltReplayReport(false, false, DltReplayFilter.ALL, Instant.now(), Instant.now(),
+                0, 0, 0, 0, 0, 0, "Timeout expired while fetching topic metadata");
+        when(dltReplayService.replay(DltReplayFilter.ALL, false)).thenReturn(aborted);
+
+        // When
+        dltReplayCommand.run(new DefaultApplicationArguments("--dlt-replay"));
+
+        // Then
+        assertEquals(2, dltReplayCommand.getExitCode());
+    }
+
+    private DltReplayReport report(long failed) {
+        return new DltReplayReport(false, false, DltReplayFilter.ALL, Instant.now(), Instant.now(), 0, 10, 10 - failed,
+                0, 0, failed, null);
+    }
+}
@@ -0,0 +1,92 @@
+package org.kafka.template.replay;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DltReplayEndpointTest {
+
+    @Mock
+    private DltReplayService dltReplayService;
+
+    private DltReplayEndpoint dltReplayEndpoint;
+
+    @BeforeEach
+    void setUp() {
+        dltReplayEndpoint = new DltReplayEndpoint(dltReplayService);
+    }
+
+    @Test
+    void status_NoReplayYet_ShouldSaySo() {
+        // Given
+        when(dltReplayService.status()).thenReturn(Optional.empty());
+
+        // When & Then
+        assertEquals(Map.of("message", "No DLT replay has run yet"), dltReplayEndpoint.status());
+    }
+
+    @Test
+    void status_ShouldReturnReport() {
+        // Given
+        DltReplayReport report = report();
+        when(dltReplayService.status()).thenReturn(Optional.of(report));
+
+        // When & Then
+        assertEquals(Map.of("replay", report), dltReplayEndpoint.status());
+    }
+
+    @Test
+    void status_Aborted_ShouldSayWhy() {
+        // Given
+        DltReplayReport report = new DltReplayReport(false, false, DltReplayFilter.ALL, Instant.now(), Instant.now(),
+                0, 5, 5, 0, 0, 0, "Broker unreachable");
+        when(dltReplayService.status()).thenReturn(Optional.of(report));
+
+        // When & Then
+        assertEquals(Map.of("message", "DLT replay aborted: Broker unreachable", "replay", report),
+                dltReplayEndpoint.status());
+    }
+
+    @Test
+    void replay_ShouldStartWithParsedFilter() {
+        // Given
+        DltReplayFilter filter = new DltReplayFilter(10L, 20L, Instant.parse("2025-01-01T10:00:00Z"),
+                Instant.parse("2025-01-01T11:00:00Z"), "DataAccessException");
+        when(dltReplayService.start(filter, true)).thenReturn(true);
+
+        // When
+        Map<String, Object> response = dltReplayEndpoint.replay(10L, 20L, "2025-01-01T10:00:00Z",
+                "2025-01-01T11:00:00Z", "DataAccessException", true);
+
+        // Then
+        assertEquals(Map.of("message", "DLT replay started", "filter", filter), response);
+    }
+
+    @Test
+    void replay_AlreadyRunning_ShouldReturnRunningReplay() {
+        // Given
+        DltReplayReport report = report();
+        when(dltReplayService.start(DltReplayFilter.ALL, false)).thenReturn(false);
+        when(dltReplayService.status()).thenReturn(Optional.of(report));
+
+        // When
+        Map<String, Object> response = dltReplayEndpoint.replay(null, null, null, null, null, null);
+
+        // Then
+        assertEquals(Map.of("message", "A DLT replay is already running", "replay", report), response);
+    }
+
+    private DltReplayReport report() {
+        return new DltReplayReport(true, false, DltReplayFilter.ALL, Instant.now(), null, 10, 5, 5, 0, 0, 0, null);
+    }
+}
@@ -0,0 +1,81 @@
+package org.kafka.template.replay;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DltReplayFilterTest {
+
+    private static final Instant FAILED_AT = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Test
+    void matches_All_ShouldMatchAnyRecord() {
+        assertTrue(DltReplayFilter.ALL.matches(createRecord(5L, null)));
+    }
+
+    @Test
+    void matches_OffsetRange_ShouldIncludeBounds() {
+        // Given
+        DltReplayFilter filter = new DltReplayFilter(5L, 7L, null, null, null);
+
+        // Then
+        assertFalse(filter.matches(createRecord(4L, null)));
+        assertTrue(filter.matches(createRecord(5L, null)));
+        assertTrue(filter.matches(createRecord(7L, null)));
+        assertFalse(filter.matches(createRecord(8L, null)));
+    }
+
+    @Test
+    void matches_TimeWindow_ShouldCompareDltTimestamp() {
+        assertTrue(new DltReplayFilter(null, null, FAILED_AT, FAILED_AT.plusSeconds(60), null)
+                .matches(createRecord(0L, null)));
+        assertFalse(new DltReplayFilter(null, null, FAILED_AT.plusSeconds(1), null, null)
+                .matches(createRecord(0L, null)));
+        assertFalse(new DltReplayFilter(null, null, null, FAILED_AT.minusSeconds(1), null)
+                .matches(createRecord(0L, null)));
+    }
+
+    @Test
+    void matches_Exception_ShouldMatchExceptionOrCauseHeaders() {
+        // Given
+        DltReplayFilter filter = new DltReplayFilter(null, null, null, null, "DataAccessResourceFailureException");
+        RecordHeaders causeHeaders = new RecordHeaders();
+        causeHeaders.add(KafkaHeaders.DLT_EXCEPTION_FQCN,
+                "org.springframework.kafka.listener.ListenerExecutionFailedException".getBytes(StandardCharsets.UTF_8));
+        causeHeaders.add(KafkaHeaders.DLT_EXCEPTION_CAUSE_FQCN,
+                "org.springframework.dao.DataAccessResourceFailureException".getBytes(StandardCharsets.UTF_8));
+        RecordHeaders otherHeaders = new RecordHeaders();
+        otherHeaders.add(KafkaHeaders.DLT_EXCEPTION_FQCN,
+                "jakarta.validation.ConstraintViolationException".getBytes(StandardCharsets.UTF_8));
+
+        // Then
+        assertTrue(filter.matches(createRecord(0L, causeHeaders)));
+        assertFalse(filter.matches(createRecord(0L, otherHeaders)));
+        assertFalse(filter.matches(createRecord(0L, null)));
+    }
+
+    @Test
+    void isPast_ShouldBeTrueFromTheUpperOffsetBound() {
+        // Given
+        DltReplayFilter filter = new DltReplayFilter(null, 7L, null, null, null);
+
+        // Then
+        assertFalse(filter.isPast(createRecord(6L, null)));
+        assertTrue(filter.isPast(createRecord(7L, null)));
+        assertFalse(DltReplayFilter.ALL.isPast(createRecord(7L, null)));
+    }
+
+    private ConsumerRecord<String, Object> createRecord(long offset, RecordHeaders headers) {
+        return new ConsumerRecord<>("user-created-dlt", 0, offset, FAILED_AT.toEpochMilli(), TimestampType.CREATE_TIME,
+                0, 0, "user-key", "value", headers == null ? new RecordHeaders() : headers, Optional.empty());
+    }
+}
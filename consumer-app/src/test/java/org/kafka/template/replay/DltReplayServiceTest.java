@@ -0,0 +1,249 @@
+package org.kafka.template.replay;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.ConstraintViolationException;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.MockConsumer;
+import org.apache.kafka.clients.consumer.OffsetResetStrategy;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.KafkaException;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.DltReplayProperties;
+import org.kafka.template.creators.UserCreator;
+import org.kafka.template.models.User;
+import org.kafka.template.sink.ConsumedUser;
+import org.kafka.template.sink.UserSink;
+import org.kafka.template.utils.ValidatorUtils;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.awaitility.Awaitility.await;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DltReplayServiceTest extends BaseLogTest {
+
+    private static final String DLT = "user-created-dlt";
+    private static final TopicPartition PARTITION = new TopicPartition(DLT, 0);
+    private static final Instant ORIGINAL_TIMESTAMP = Instant.parse("2025-01-01T10:00:00Z");
+
+    @Mock
+    private ConsumerFactory<String, User> consumerFactory;
+
+    @Mock
+    private ValidatorUtils validatorUtils;
+
+    @Mock
+    private UserSink userSink;
+
+    private MockConsumer<String, User> consumer;
+    private MeterRegistry meterRegistry;
+    private DltReplayService dltReplayService;
+
+    @BeforeEach
+    void setUp() {
+        consumer = new MockConsumer<>(OffsetResetStrategy.EARLIEST);
+        consumer.updatePartitions(DLT, List.of(new PartitionInfo(DLT, 0, null, null, null)));
+        consumer.updateBeginningOffsets(Map.of(PARTITION, 0L));
+        lenient().when(consumerFactory.createConsumer(isNull(), eq(DltReplayService.CLIENT_ID_PREFIX), isNull(),
+                any(Properties.class))).thenReturn(consumer);
+
+        DltReplayProperties properties = new DltReplayProperties();
+        properties.setBatchSize(2);
+        properties.setParallelism(2);
+        properties.setRatePerSecond(0);
+        properties.setPollTimeoutMs(10);
+        meterRegistry = new SimpleMeterRegistry();
+        dltReplayService = new DltReplayService(consumerFactory, validatorUtils, userSink, properties, meterRegistry,
+                "user-created");
+        setUpLogger(DltReplayService.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void replay_ShouldWriteValidUsersInBatchesWithTheirOriginalOffsets() {
+        // Given
+        User first = UserCreator.createRandomUser();
+        User second = UserCreator.createRandomUser();
+        User third = UserCreator.createRandomUser();
+        givenDlt(first, second, third);
+
+        // When
+        DltReplayReport report = dltReplayService.replay(DltReplayFilter.ALL, false);
+
+        // Then
+        verify(userSink).write(List.of(consumed(first, 0), consumed(second, 1)));
+        verify(userSink).write(List.of(consumed(third, 2)));
+        assertFalse(report.running());
+        assertEquals(3, report.scanned());
+        assertEquals(3, report.replayed());
+        assertEquals(0, report.remaining());
+        assertEquals(3.0, records("replayed", false));
+    }
+
+    @Test
+    void replay_OffsetRange_ShouldOnlyWriteMatchingRecords() {
+        // Given
+        User first = UserCreator.createRandomUser();
+        User second = UserCreator.createRandomUser();
+        User third = UserCreator.createRandomUser();
+        givenDlt(first, second, third);
+
+        // When
+        DltReplayReport report = dltReplayService.replay(new DltReplayFilter(1L, 1L, null, null, null), false);
+
+        // Then
+        verify(userSink).write(List.of(consumed(second, 1)));
+        verifyNoMoreInteractions(userSink);
+        assertEquals(1, report.replayed());
+    }
+
+    @Test
+    void replay_InvalidUser_ShouldBeCountedAndSkipped() {
+        // Given
+        User valid = UserCreator.createRandomUser();
+        User invalid = User.builder().id(4).build();
+        givenDlt(valid, invalid);
+        lenient().doThrow(new ConstraintViolationException("name: Name cannot be null", null))
+                .when(validatorUtils).validate(invalid);
+
+        // When
+        DltReplayReport report = dltReplayService.replay(DltReplayFilter.ALL, false);
+
+        // Then
+        verify(userSink).write(List.of(consumed(valid, 0)));
+        assertEquals(1, report.invalid());
+        assertLog(Level.WARN, "Skipping invalid DLT record user-created-dlt-0@1");
+    }
+
+    @Test
+    void replay_DryRun_ShouldOnlyValidate() {
+        // Given
+        givenDlt(UserCreator.createRandomUser(), UserCreator.createRandomUser());
+
+        // When
+        DltReplayReport report = dltReplayService.replay(DltReplayFilter.ALL, true);
+
+        // Then
+        verifyNoInteractions(userSink);
+        assertTrue(report.dryRun());
+        assertEquals(2, report.replayed());
+        assertEquals(2.0, records("validated", true));
+    }
+
+    @Test
+    void replay_SinkFailure_ShouldCountFailedUsersAndContinue() {
+        // Given
+        givenDlt(UserCreator.createRandomUser());
+        doThrow(new DataAccessResourceFailureException("Connection refused")).when(userSink).write(any());
+
+        // When
+        DltReplayReport report = dltReplayService.replay(DltReplayFilter.ALL, false);
+
+        // Then
+        assertEquals(1, report.failed());
+        assertEquals(0, report.replayed());
+        assertLog(Level.ERROR, "Replaying a batch of 1 users failed: Connection refused");
+    }
+
+    @Test
+    void replay_DltUnreachable_ShouldReportTheAbort() {
+        // Given
+        consumer.setPollException(new KafkaException("Broker unreachable"));
+        givenDlt(UserCreator.createRandomUser());
+
+        // When
+        DltReplayReport report = dltReplayService.replay(DltReplayFilter.ALL, false);
+
+        // Then
+        assertTrue(report.aborted());
+        assertEquals("Broker unreachable", report.abortReason());
+        assertFalse(report.running());
+        verifyNoInteractions(userSink);
+        assertLog(Level.ERROR, "DLT replay aborted: Broker unreachable");
+    }
+
+    @Test
+    void start_ShouldReplayInBackgroundAndRefuseASecondReplay() throws InterruptedException {
+        // Given
+        givenDlt(UserCreator.createRandomUser());
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(userSink).write(any());
+        assertEquals(Optional.empty(), dltReplayService.status());
+
+        // When
+        assertTrue(dltReplayService.start(DltReplayFilter.ALL, false));
+        assertTrue(writing.await(5, TimeUnit.SECONDS));
+
+        // Then
+        assertFalse(dltReplayService.start(DltReplayFilter.ALL, false));
+        assertThrows(IllegalStateException.class, () -> dltReplayService.replay(DltReplayFilter.ALL, false));
+        assertTrue(dltReplayService.status().orElseThrow().running());
+
+        release.countDown();
+        await().atMost(Duration.ofSeconds(5)).until(() -> !dltReplayService.status().orElseThrow().running());
+        assertEquals(1, dltReplayService.status().orElseThrow().replayed());
+    }
+
+    private void givenDlt(User... users) {
+        consumer.updateEndOffsets(Map.of(PARTITION, (long) users.length));
+        consumer.schedulePollTask(() -> {
+            for (int offset = 0; offset < users.length; offset++) {
+                consumer.addRecord(createDltRecord(offset, users[offset]));
+            }
+        });
+    }
+
+    private ConsumerRecord<String, User> createDltRecord(long offset, User user) {
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, ByteBuffer.allocate(Long.BYTES).putLong(100 + offset).array());
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP,
+                ByteBuffer.allocate(Long.BYTES).putLong(ORIGINAL_TIMESTAMP.toEpochMilli()).array());
+        return new ConsumerRecord<>(DLT, 0, offset, System.currentTimeMillis(), TimestampType.CREATE_TIME, 0, 0,
+                "user-key", user, headers, Optional.empty());
+    }
+
+    private ConsumedUser consumed(User user, long dltOffset) {
+        return new ConsumedUser(user, 100 + dltOffset, ORIGINAL_TIMESTAMP);
+    }
+
+    private double records(String result, boolean dryRun) {
+        return meterRegistry.get("kafka.consumer.dlt.replay.records").tag("result", result)
+                .tag("dry.run", String.valueOf(dryRun)).counter().count();
+    }
+}
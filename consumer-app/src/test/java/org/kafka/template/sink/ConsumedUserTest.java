@@ -0,0 +1,77 @@
+package org.kafka.template.sink;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.junit.jupiter.api.Test;
+import org.kafka.template.models.User;
+import org.springframework.kafka.support.KafkaHeaders;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ConsumedUserTest {
+
+    private static final Instant EARLIER = Instant.parse("2025-01-01T00:00:00Z");
+    private static final Instant LATER = Instant.parse("2025-01-01T00:00:01Z");
+
+    @Test
+    void of_ShouldTakeOffsetAndTimestampOfTheRecord() {
+        // Given
+        User user = User.builder().id(1).name("John Doe").build();
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("user-created", 0, 42L, LATER.toEpochMilli(),
+                TimestampType.CREATE_TIME, 0, 0, "1", user, new RecordHeaders(), Optional.empty());
+
+        // When
+        ConsumedUser consumed = ConsumedUser.of(user, record);
+
+        // Then
+        assertEquals(new ConsumedUser(user, 42L, LATER), consumed);
+    }
+
+    @Test
+    void of_ForwardedRecord_ShouldTakeOffsetAndTimestampOfTheFirstOriginal() {
+        // Given a record forwarded twice, each hop appending the original headers of its input
+        User user = User.builder().id(1).name("John Doe").build();
+        RecordHeaders headers = new RecordHeaders();
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, longBytes(42L));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, longBytes(EARLIER.toEpochMilli()));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_OFFSET, longBytes(3L));
+        headers.add(KafkaHeaders.DLT_ORIGINAL_TIMESTAMP, longBytes(LATER.toEpochMilli()));
+        ConsumerRecord<String, Object> record = new ConsumerRecord<>("user-created-retry-30000", 0, 7L,
+                LATER.plusSeconds(60).toEpochMilli(), TimestampType.CREATE_TIME, 0, 0, "1", user, headers, Optional.empty());
+
+        // When
+        ConsumedUser consumed = ConsumedUser.of(user, record);
+
+        // Then
+        assertEquals(new ConsumedUser(user, 42L, EARLIER), consumed);
+    }
+
+    @Test
+    void latestPerUser_ShouldKeepTheLatestTimestampThenTheHighestOffset() {
+        // Given
+        ConsumedUser johnLater = consumed(1, "John Doe", 5L, LATER);
+        ConsumedUser johnEarlier = consumed(1, "John", 9L, EARLIER);
+        ConsumedUser janeFirst = consumed(3, "Jane", 7L, LATER);
+        ConsumedUser janeSecond = consumed(3, "Jane Doe", 8L, LATER);
+
+        // When
+        List<ConsumedUser> latest = ConsumedUser.latestPerUser(List.of(johnLater, janeFirst, johnEarlier, janeSecond));
+
+        // Then
+        assertEquals(List.of(johnLater, janeSecond), latest);
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+
+    private static ConsumedUser consumed(int id, String name, long offset, Instant timestamp) {
+        return new ConsumedUser(User.builder().id(id).name(name).build(), offset, timestamp);
+    }
+}
@@ -0,0 +1,56 @@
+package org.kafka.template.sink;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ContactIdAllocatorTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    private ContactIdAllocator contactIdAllocator;
+
+    @BeforeEach
+    void setUp() {
+        contactIdAllocator = new ContactIdAllocator(jdbcTemplate);
+    }
+
+    @Test
+    void reserve_ShouldHandOutTheIdsBelowEachSequenceValue() {
+        // Given
+        when(jdbcTemplate.queryForList(ContactIdAllocator.NEXT_ID_BLOCKS, Long.class, 2)).thenReturn(List.of(1000L, 1500L));
+
+        // When
+        List<Long> ids = contactIdAllocator.reserve(502);
+
+        // Then
+        assertEquals(LongStream.rangeClosed(501, 1000).boxed().toList(), ids.subList(0, 500));
+        assertEquals(List.of(1001L, 1002L), ids.subList(500, 502));
+    }
+
+    @Test
+    void reserve_ShouldAskAgainWhenAFreshSequenceStartsAtOne() {
+        // Given
+        when(jdbcTemplate.queryForList(ContactIdAllocator.NEXT_ID_BLOCKS, Long.class, 1))
+                .thenReturn(List.of(1L))
+                .thenReturn(List.of(501L));
+
+        // When
+        List<Long> ids = contactIdAllocator.reserve(2);
+
+        // Then
+        assertEquals(List.of(1L, 2L), ids);
+        verify(jdbcTemplate, times(2)).queryForList(ContactIdAllocator.NEXT_ID_BLOCKS, Long.class, 1);
+    }
+}
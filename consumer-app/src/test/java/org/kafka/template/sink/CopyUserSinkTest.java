@@ -0,0 +1,151 @@
+package org.kafka.template.sink;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.models.User;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CopyUserSinkTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ContactIdAllocator contactIdAllocator;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private PGConnection pgConnection;
+
+    @Mock
+    private CopyManager copyManager;
+
+    private CopyUserSink copyUserSink;
+
+    @BeforeEach
+    void setUp() {
+        copyUserSink = new CopyUserSink(jdbcTemplate, contactIdAllocator);
+    }
+
+    @Test
+    void write_ShouldCopyIntoStagingAndUpsertIntoContacts() throws Exception {
+        // Given
+        ConsumedUser john = consumed(User.builder().id(1).name("John Doe").email("john.doe@mail.com").age(30).build(), 10L);
+        ConsumedUser jane = consumed(User.builder().id(3).name("Jane Doe").build(), 11L);
+        when(contactIdAllocator.reserve(2)).thenReturn(List.of(501L, 502L));
+        when(jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+                invocation.<ConnectionCallback<Long>>getArgument(0).doInConnection(connection));
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn(eq(CopyUserSink.COPY_STAGING), any(InputStream.class))).thenReturn(2L);
+        when(jdbcTemplate.update(CopyUserSink.MERGE_STAGING)).thenReturn(2);
+
+        // When
+        copyUserSink.write(List.of(john, jane));
+
+        // Then the connection's own staging table is created if needed, loaded and upserted, in that order
+        var inOrder = inOrder(jdbcTemplate, copyManager);
+        inOrder.verify(jdbcTemplate).execute(CopyUserSink.CREATE_STAGING_TABLE);
+        ArgumentCaptor<InputStream> copyData = ArgumentCaptor.forClass(InputStream.class);
+        inOrder.verify(copyManager).copyIn(eq(CopyUserSink.COPY_STAGING), copyData.capture());
+        inOrder.verify(jdbcTemplate).update(CopyUserSink.MERGE_STAGING);
+
+        // And every user is copied with its reserved id
+        assertArrayEquals(CopyUserSink.encode(List.of(john, jane), List.of(501L, 502L)), copyData.getValue().readAllBytes());
+    }
+
+    @Test
+    void stagingTable_ShouldBeTemporaryAndEmptiedOnCommit() {
+        // No shared table to truncate, so concurrent loads do not wait for each other
+        assertTrue(CopyUserSink.CREATE_STAGING_TABLE.startsWith("CREATE TEMP TABLE IF NOT EXISTS contacts_staging"));
+        assertTrue(CopyUserSink.CREATE_STAGING_TABLE.endsWith("ON COMMIT DELETE ROWS"));
+        assertTrue(CopyUserSink.COPY_STAGING.startsWith("COPY pg_temp.contacts_staging"));
+        assertTrue(CopyUserSink.MERGE_STAGING.contains("FROM pg_temp.contacts_staging"));
+    }
+
+    @Test
+    void write_ShouldCopyOnlyTheLatestEventOfAUser() {
+        // Given
+        ConsumedUser older = consumed(User.builder().id(1).name("John").build(), 10L);
+        ConsumedUser newer = consumed(User.builder().id(1).name("John Doe").build(), 11L);
+        when(contactIdAllocator.reserve(1)).thenReturn(List.of(1L));
+
+        // When
+        copyUserSink.write(List.of(older, newer));
+
+        // Then
+        verify(contactIdAllocator).reserve(1);
+        verify(jdbcTemplate).update(CopyUserSink.MERGE_STAGING);
+    }
+
+    @Test
+    void write_EmptyBatch_ShouldNotTouchTheDatabase() {
+        // When
+        copyUserSink.write(List.of());
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, contactIdAllocator);
+    }
+
+    @Test
+    void encode_ShouldWritePostgresBinaryCopyFormat() throws IOException {
+        // Given
+        ConsumedUser user = new ConsumedUser(User.builder().id(7).name("Zoë").build(), 99L,
+                Instant.parse("2000-01-01T00:00:01Z"));
+
+        // When
+        byte[] encoded = CopyUserSink.encode(List.of(user), List.of(42L));
+
+        // Then
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded));
+        assertArrayEquals("PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1), in.readNBytes(11));
+        assertEquals(0, in.readInt());
+        assertEquals(0, in.readInt());
+
+        assertEquals(7, in.readShort());
+        assertEquals(8, in.readInt());
+        assertEquals(42L, in.readLong());
+        assertEquals(8, in.readInt());
+        assertEquals(7L, in.readLong());
+        assertEquals(-1, in.readInt());
+        byte[] name = "Zoë".getBytes(StandardCharsets.UTF_8);
+        assertEquals(name.length, in.readInt());
+        assertArrayEquals(name, in.readNBytes(name.length));
+        assertEquals(-1, in.readInt());
+        assertEquals(8, in.readInt());
+        assertEquals(99L, in.readLong());
+        assertEquals(8, in.readInt());
+        assertEquals(1_000_000L, in.readLong());
+
+        assertEquals(-1, in.readShort());
+        assertEquals(-1, in.read());
+    }
+
+    private static ConsumedUser consumed(User user, long offset) {
+        return new ConsumedUser(user, offset, Instant.parse("2025-01-01T00:00:00Z"));
+    }
+}
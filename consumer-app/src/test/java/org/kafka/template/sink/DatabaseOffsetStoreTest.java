@@ -0,0 +1,134 @@
+package org.kafka.template.sink;
+
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerGroupMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.models.User;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.kafka.support.KafkaUtils;
+
+import java.sql.ResultSet;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class DatabaseOffsetStoreTest {
+
+    private static final TopicPartition PARTITION_0 = new TopicPartition("user-created", 0);
+    private static final TopicPartition PARTITION_1 = new TopicPartition("user-created", 1);
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private UserSink userSink;
+
+    @Mock
+    private Consumer<String, User> consumer;
+
+    @Mock
+    private ResultSet resultSet;
+
+    private DatabaseOffsetStore offsetStore;
+
+    @BeforeEach
+    void setUp() {
+        offsetStore = new DatabaseOffsetStore(jdbcTemplate, userSink);
+    }
+
+    @AfterEach
+    void tearDown() {
+        KafkaUtils.clearConsumerGroupId();
+    }
+
+    @Test
+    void createOffsetsTable_ShouldCreateTableKeyedByGroupAndPartition() {
+        // When
+        offsetStore.createOffsetsTable();
+
+        // Then
+        verify(jdbcTemplate).execute(argThat((String sql) -> sql.startsWith("CREATE TABLE IF NOT EXISTS kafka_app.consumer_offsets")
+                && sql.contains("PRIMARY KEY (group_id, topic, partition)")));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_ShouldStoreOffsetsAfterTheUsers() {
+        // Given
+        KafkaUtils.setConsumerGroupId("user-group");
+        List<ConsumedUser> users = List.of(new ConsumedUser(User.builder().id(1).name("John Doe").build(), 10L, Instant.EPOCH));
+
+        // When
+        offsetStore.write(users, Map.of(PARTITION_1, 11L));
+
+        // Then
+        InOrder inOrder = inOrder(userSink, jdbcTemplate);
+        inOrder.verify(userSink).write(users);
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        inOrder.verify(jdbcTemplate).batchUpdate(eq(DatabaseOffsetStore.UPSERT_OFFSET), rows.capture());
+        assertArrayEquals(new Object[]{"user-group", "user-created", 1, 11L}, rows.getValue().get(0));
+    }
+
+    @Test
+    void write_UsersFail_ShouldNotStoreOffsets() {
+        // Given
+        KafkaUtils.setConsumerGroupId("user-group");
+        doThrow(new IllegalStateException("Connection refused")).when(userSink).write(any());
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> offsetStore.write(List.of(), Map.of(PARTITION_0, 1L)));
+        verify(jdbcTemplate, never()).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void write_OutsideListenerThread_ShouldFail() {
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> offsetStore.write(List.of(), Map.of(PARTITION_0, 1L)));
+        verifyNoInteractions(userSink, jdbcTemplate);
+    }
+
+    @Test
+    void onPartitionsAssigned_ShouldSeekStoredPartitionsOnly() throws Exception {
+        // Given
+        when(consumer.groupMetadata()).thenReturn(new ConsumerGroupMetadata("user-group"));
+        when(resultSet.getString("topic")).thenReturn("user-created");
+        when(resultSet.getInt("partition")).thenReturn(0);
+        when(resultSet.getLong("next_offset")).thenReturn(42L);
+        doAnswer(invocation -> {
+            invocation.<RowCallbackHandler>getArgument(1).processRow(resultSet);
+            return null;
+        }).when(jdbcTemplate).query(eq(DatabaseOffsetStore.SELECT_OFFSETS), any(RowCallbackHandler.class), eq("user-group"));
+
+        // When
+        offsetStore.onPartitionsAssigned(consumer, List.of(PARTITION_0, PARTITION_1));
+
+        // Then
+        verify(consumer).seek(PARTITION_0, 42L);
+        verify(consumer, never()).seek(eq(PARTITION_1), anyLong());
+    }
+
+    @Test
+    void onPartitionsAssigned_NoPartitions_ShouldNotQueryTheDatabase() {
+        // When
+        offsetStore.onPartitionsAssigned(consumer, List.of());
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, consumer);
+    }
+}
@@ -0,0 +1,85 @@
+package org.kafka.template.sink;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.models.User;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcUserSinkTest {
+
+    private static final Instant TIMESTAMP = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private ContactIdAllocator contactIdAllocator;
+
+    private JdbcUserSink jdbcUserSink;
+
+    @BeforeEach
+    void setUp() {
+        jdbcUserSink = new JdbcUserSink(jdbcTemplate, contactIdAllocator);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_ShouldUpsertEveryUserInOneBatch() {
+        // Given
+        User john = User.builder().id(1).name("John Doe").email("john.doe@mail.com").age(30).build();
+        User jane = User.builder().id(3).name("Jane Doe").build();
+        when(contactIdAllocator.reserve(2)).thenReturn(List.of(501L, 502L));
+
+        // When
+        jdbcUserSink.write(List.of(new ConsumedUser(john, 10L, TIMESTAMP), new ConsumedUser(jane, 11L, TIMESTAMP)));
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(JdbcUserSink.UPSERT), rows.capture());
+        OffsetDateTime timestamp = OffsetDateTime.ofInstant(TIMESTAMP, ZoneOffset.UTC);
+        assertArrayEquals(new Object[]{501L, 1, "john.doe@mail.com", "John Doe", 30, 10L, timestamp}, rows.getValue().get(0));
+        assertArrayEquals(new Object[]{502L, 3, null, "Jane Doe", null, 11L, timestamp}, rows.getValue().get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void write_SameUserTwice_ShouldUpsertOnlyTheLatestEvent() {
+        // Given
+        User older = User.builder().id(1).name("John").build();
+        User newer = User.builder().id(1).name("John Doe").build();
+        when(contactIdAllocator.reserve(1)).thenReturn(List.of(1L));
+
+        // When
+        jdbcUserSink.write(List.of(new ConsumedUser(newer, 11L, TIMESTAMP), new ConsumedUser(older, 10L, TIMESTAMP)));
+
+        // Then
+        ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(eq(JdbcUserSink.UPSERT), rows.capture());
+        assertEquals(1, rows.getValue().size());
+        assertEquals("John Doe", rows.getValue().get(0)[3]);
+    }
+
+    @Test
+    void write_EmptyBatch_ShouldNotTouchTheDatabase() {
+        // When
+        jdbcUserSink.write(List.of());
+
+        // Then
+        verifyNoInteractions(jdbcTemplate, contactIdAllocator);
+    }
+}
@@ -0,0 +1,51 @@
+package org.kafka.template.sink;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.models.User;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class KafkaOffsetStoreTest {
+
+    @Mock
+    private UserSink userSink;
+
+    @Test
+    void write_ShouldOnlyWriteTheUsers() {
+        // Given
+        List<ConsumedUser> users = List.of(new ConsumedUser(User.builder().id(1).name("John Doe").build(), 10L, Instant.EPOCH));
+
+        // When
+        new KafkaOffsetStore(userSink).write(users, Map.of(new TopicPartition("user-created", 0), 11L));
+
+        // Then
+        verify(userSink).write(users);
+    }
+
+    @Test
+    void nextOffsets_ShouldFollowTheLastRecordOfEachPartition() {
+        // Given
+        List<ConsumerRecord<String, User>> records = List.of(
+                new ConsumerRecord<>("user-created", 0, 5L, "1", null),
+                new ConsumerRecord<>("user-created", 1, 9L, "2", null),
+                new ConsumerRecord<>("user-created", 0, 7L, "3", null));
+
+        // When
+        Map<TopicPartition, Long> nextOffsets = OffsetStore.nextOffsets(records);
+
+        // Then
+        assertEquals(Map.of(new TopicPartition("user-created", 0), 8L, new TopicPartition("user-created", 1), 10L),
+                nextOffsets);
+    }
+}
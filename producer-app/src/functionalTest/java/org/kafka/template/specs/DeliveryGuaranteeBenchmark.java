@@ -0,0 +1,90 @@
+package org.kafka.template.specs;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.kafka.template.base.BaseKafkaFunctionalSpec;
+import org.kafka.template.enums.DeliveryGuarantee;
+import org.kafka.template.models.User;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures the throughput of every delivery guarantee against the Testcontainers broker. Excluded from
+ * functionalTest, run it with {@code ./gradlew :producer-app:benchmark} and compare the logged records/s.
+ */
+@Slf4j
+@Tag("benchmark")
+class DeliveryGuaranteeBenchmark extends BaseKafkaFunctionalSpec {
+
+    private static final int USERS = 50_000;
+    private static final int WARM_UP_USERS = 5_000;
+    private static final int TRANSACTION_CHUNK_SIZE = 500;
+
+    @Autowired
+    @Qualifier("jsonProducerProps")
+    private Properties jsonProducerProps;
+
+    @ParameterizedTest
+    @EnumSource(DeliveryGuarantee.class)
+    void measureThroughput(DeliveryGuarantee guarantee) throws Exception {
+        Properties props = new Properties();
+        props.putAll(jsonProducerProps);
+        props.putAll(guarantee.producerConfig(DeliveryGuarantee.MAX_IDEMPOTENT_IN_FLIGHT));
+        props.put(ProducerConfig.CLIENT_ID_CONFIG, "benchmark-" + guarantee.name().toLowerCase());
+        if (guarantee == DeliveryGuarantee.TRANSACTIONAL) {
+            props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, "benchmark-" + System.nanoTime());
+        }
+
+        try (KafkaProducer<String, Object> producer = new KafkaProducer<>(props)) {
+            if (guarantee == DeliveryGuarantee.TRANSACTIONAL) {
+                producer.initTransactions();
+            }
+            send(producer, guarantee, WARM_UP_USERS);
+
+            long start = System.nanoTime();
+            int acknowledged = send(producer, guarantee, USERS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            // Then every user is acknowledged
+            assertEquals(USERS, acknowledged);
+            log.info("Delivery guarantee {}: {} users in {} ms, {} records/s", guarantee, USERS,
+                    Math.round(seconds * 1000), Math.round(USERS / seconds));
+        }
+    }
+
+    private int send(KafkaProducer<String, Object> producer, DeliveryGuarantee guarantee, int count) throws Exception {
+        boolean transactional = guarantee == DeliveryGuarantee.TRANSACTIONAL;
+        List<Future<RecordMetadata>> sends = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            if (transactional && i % TRANSACTION_CHUNK_SIZE == 0) {
+                producer.beginTransaction();
+            }
+            User user = new User(i, "user-" + i, "user-" + i + "@example.com", 30);
+            sends.add(producer.send(new ProducerRecord<>(userCreatedTopicName, String.valueOf(i), user)));
+            if (transactional && (i % TRANSACTION_CHUNK_SIZE == TRANSACTION_CHUNK_SIZE - 1 || i == count - 1)) {
+                producer.commitTransaction();
+            }
+        }
+        producer.flush();
+
+        int acknowledged = 0;
+        for (Future<RecordMetadata> send : sends) {
+            send.get();
+            acknowledged++;
+        }
+        return acknowledged;
+    }
+}
@@ -14,7 +14,6 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
 import java.util.List;
-import java.util.UUID;
 
 import static org.awaitility.Awaitility.await;
 import static org.junit.jupiter.api.Assertions.*;
@@ -46,9 +45,9 @@ class UserProducerCreatedFunctionalTest extends BaseKafkaFunctionalSpec {
         assertEquals("/users", responseBody.getPath());
         assertEquals(List.of("#/name: expected type: String, found: "), responseBody.getErrors());
 
-        // Then we expect the schema validation to fail
+        // Then we expect the user to be rejected before it reaches the producer
         await().untilAsserted(() -> {
-            Assertions.assertTrue(assertLog(Level.ERROR, "Schema validation failed: Error serializing JSON message"));
+            Assertions.assertTrue(assertLog(Level.WARN, "Rejected invalid user: #/name: expected type: String"));
         });
     }
 
@@ -93,9 +92,8 @@ class UserProducerCreatedFunctionalTest extends BaseKafkaFunctionalSpec {
         // Assert the consumed message content
         ConsumerRecord<String, String> record = messages.getFirst();
 
-        // Verify the key is a valid UUID
-        assertNotNull(record.key(), "Message key should not be null");
-        assertDoesNotThrow(() -> UUID.fromString(record.key()), "Message key should be a valid UUID");
+        // Verify the record is keyed by the user id
+        assertEquals("1", record.key(), "Message key should be the user id");
 
         // Parse and verify the message value (KafkaJsonSchemaDeserializer returns LinkedHashMap)
         User consumedUser = OBJECT_MAPPER.convertValue(record.value(), User.class);
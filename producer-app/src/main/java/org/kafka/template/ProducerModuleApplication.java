@@ -2,8 +2,10 @@ package org.kafka.template;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class ProducerModuleApplication {
     public static void main(String[] args) {
         SpringApplication.run(ProducerModuleApplication.class, args);
@@ -0,0 +1,25 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Limits of {@link org.kafka.template.kafka.ProducerAdmissionControl}. The concurrency limit moves between
+ * min-limit and max-limit on its own, the producer health thresholds are fixed.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.admission")
+public class AdmissionControlProperties {
+
+    private boolean enabled = true;
+    private int initialLimit = 200;
+    private int minLimit = 10;
+    private int maxLimit = 5000;
+    private double backoffRatio = 0.9;
+    private long latencyTargetMs = 250;
+    private double minBufferAvailableRatio = 0.1;
+    private double maxRequestLatencyMs = 1000;
+    private long retryAfterSeconds = 1;
+}
@@ -0,0 +1,64 @@
+package org.kafka.template.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import static org.kafka.template.controller.UserController.DELIVERY_MODE_CONFIRMED;
+import static org.kafka.template.controller.UserController.DELIVERY_MODE_HEADER;
+
+/**
+ * Makes confirmed delivery the default when {@code spring.kafka.delivery.mode=confirmed}, by adding the
+ * delivery mode header to requests that do not carry one. Callers can still opt out per request with
+ * any other header value, e.g. {@code X-Delivery-Mode: fire-and-forget}.
+ */
+@Component
+@ConditionalOnProperty(name = "spring.kafka.delivery.mode", havingValue = DELIVERY_MODE_CONFIRMED)
+public class DeliveryModeFilter extends OncePerRequestFilter {
+
+    // The async dispatch that writes the acknowledged response is mapped again, so it needs the header too
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (request.getHeader(DELIVERY_MODE_HEADER) != null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        filterChain.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public String getHeader(String name) {
+                return DELIVERY_MODE_HEADER.equalsIgnoreCase(name) ? DELIVERY_MODE_CONFIRMED : super.getHeader(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaders(String name) {
+                return DELIVERY_MODE_HEADER.equalsIgnoreCase(name)
+                        ? Collections.enumeration(List.of(DELIVERY_MODE_CONFIRMED))
+                        : super.getHeaders(name);
+            }
+
+            @Override
+            public Enumeration<String> getHeaderNames() {
+                List<String> names = new ArrayList<>(Collections.list(super.getHeaderNames()));
+                names.add(DELIVERY_MODE_HEADER);
+                return Collections.enumeration(names);
+            }
+        }, response);
+    }
+}
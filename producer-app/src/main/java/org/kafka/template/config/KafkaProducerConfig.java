@@ -7,12 +7,19 @@ import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.serialization.StringSerializer;
+import org.kafka.template.enums.DeliveryGuarantee;
+import org.kafka.template.kafka.HotKeySpreadingPartitioner;
+import org.kafka.template.schema.CachingSchemaRegistryClient;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.util.StringUtils;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderOptions;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -20,6 +27,9 @@ import java.util.Map;
 @Configuration
 public class KafkaProducerConfig {
 
+    private final KafkaPerformanceProperties performanceProperties;
+    private final CachingSchemaRegistryClient schemaRegistryClient;
+
     @Value("${spring.kafka.bootstrap-servers}")
     private String bootstrapServers;
 
@@ -38,8 +48,74 @@ public class KafkaProducerConfig {
     @Value("${spring.kafka.sasl.jaas.password}")
     private String saslPassword;
 
+    @Value("${spring.kafka.partitioner.class:}")
+    private String partitionerClass;
+
+    @Value("${spring.kafka.partitioner.hot-keys:}")
+    private String partitionerHotKeys;
+
+    @Value("${spring.kafka.partitioner.hot-key-spread:1}")
+    private int partitionerHotKeySpread;
+
+    @Value("${spring.kafka.reactive.max-in-flight:256}")
+    private int reactiveMaxInFlight;
+
+    @Value("${spring.kafka.delivery.guarantee:idempotent}")
+    private DeliveryGuarantee deliveryGuarantee;
+
+    @Value("${spring.kafka.delivery.max-in-flight-requests:5}")
+    private int maxInFlightRequests;
+
+    @Value("${spring.kafka.delivery.transaction-id-prefix:user-producer-}")
+    private String transactionIdPrefix;
+
+    public KafkaProducerConfig(KafkaPerformanceProperties performanceProperties,
+                               CachingSchemaRegistryClient schemaRegistryClient) {
+        this.performanceProperties = performanceProperties;
+        this.schemaRegistryClient = schemaRegistryClient;
+    }
+
+    /**
+     * In transactional mode the transaction id prefix has to be unique per instance and stable across its restarts,
+     * so that a restarted instance fences off the unfinished transactions of its previous run.
+     */
     @Bean
     public ProducerFactory<String, Object> jsonProducerFactory() {
+        // Every producer serializes with the shared schema cache instead of a registry client of its own
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(jsonProducerConfig(),
+                StringSerializer::new, () -> new KafkaJsonSchemaSerializer<>(schemaRegistryClient));
+        if (deliveryGuarantee == DeliveryGuarantee.TRANSACTIONAL) {
+            factory.setTransactionIdPrefix(transactionIdPrefix);
+        }
+        return factory;
+    }
+
+    @Bean
+    public KafkaTemplate<String, Object> jsonKafkaTemplate() {
+        KafkaTemplate<String, Object> template = new KafkaTemplate<>(jsonProducerFactory());
+        template.setObservationEnabled(true);
+        // Single users and the spool drainer still send outside of transactions, on an idempotent producer
+        template.setAllowNonTransactional(true);
+        return template;
+    }
+
+    /**
+     * Sender of the reactive ingestion path. At most max-in-flight records are awaiting their ack at any time,
+     * which is what bounds the demand reactor-netty signals back to the HTTP request stream.
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public KafkaSender<String, Object> reactiveKafkaSender() {
+        Map<String, Object> config = jsonProducerConfig();
+        SenderOptions<String, Object> senderOptions = SenderOptions.<String, Object>create(config)
+                .withKeySerializer(new StringSerializer())
+                .withValueSerializer(new KafkaJsonSchemaSerializer<>(schemaRegistryClient, config))
+                .maxInFlight(reactiveMaxInFlight)
+                .stopOnError(false);
+        return KafkaSender.create(senderOptions);
+    }
+
+    private Map<String, Object> jsonProducerConfig() {
         Map<String, Object> config = new HashMap<>();
         config.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
         config.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG,
@@ -50,7 +126,21 @@ public class KafkaProducerConfig {
         config.put(AbstractKafkaSchemaSerDeConfig.AUTO_REGISTER_SCHEMAS, false);
         config.put(AbstractKafkaSchemaSerDeConfig.USE_LATEST_VERSION, true);
         config.put(AbstractKafkaSchemaSerDeConfig.LATEST_COMPATIBILITY_STRICT, false);
-        config.put(KafkaJsonSchemaSerializerConfig.FAIL_INVALID_SCHEMA, true);
+        // Users are validated against the precompiled schema before they reach the producer, see UserSchemaValidator
+        config.put(KafkaJsonSchemaSerializerConfig.FAIL_INVALID_SCHEMA, false);
+
+        // Idempotence, acks and in-flight requests of the delivery guarantee
+        config.putAll(deliveryGuarantee.producerConfig(maxInFlightRequests));
+
+        // Batching, compression and buffering of the selected performance profile
+        config.putAll(performanceProperties.producerConfig());
+
+        // Partitioner (Kafka's built-in one unless configured)
+        if (StringUtils.hasText(partitionerClass)) {
+            config.put(ProducerConfig.PARTITIONER_CLASS_CONFIG, partitionerClass);
+            config.put(HotKeySpreadingPartitioner.HOT_KEYS_CONFIG, partitionerHotKeys);
+            config.put(HotKeySpreadingPartitioner.HOT_KEY_SPREAD_CONFIG, partitionerHotKeySpread);
+        }
 
         // Security Protocol
         config.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, securityProtocol);
@@ -63,13 +153,6 @@ public class KafkaProducerConfig {
                     saslUsername, saslPassword));
         }
 
-        return new DefaultKafkaProducerFactory<>(config);
-    }
-
-    @Bean
-    public KafkaTemplate<String, Object> jsonKafkaTemplate() {
-        KafkaTemplate<String, Object> template = new KafkaTemplate<>(jsonProducerFactory());
-        template.setObservationEnabled(true);
-        return template;
+        return config;
     }
 }
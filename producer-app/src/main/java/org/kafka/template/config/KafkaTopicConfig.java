@@ -1,23 +1,75 @@
 package org.kafka.template.config;
 
+import org.apache.kafka.clients.CommonClientConfigs;
+import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.common.config.SaslConfigs;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.config.TopicBuilder;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @Configuration
 public class KafkaTopicConfig {
 
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${spring.kafka.security.protocol}")
+    private String securityProtocol;
+
+    @Value("${spring.kafka.sasl.mechanism}")
+    private String saslMechanism;
+
+    @Value("${spring.kafka.sasl.jaas.username}")
+    private String saslUsername;
+
+    @Value("${spring.kafka.sasl.jaas.password}")
+    private String saslPassword;
+
     @Value("${spring.kafka.topics.user-created}")
     private String userCreatedTopic;
 
+    @Value("${spring.kafka.topics.user-created-partitions:1}")
+    private int userCreatedPartitions;
+
+    @Value("${spring.kafka.topics.user-created-replicas:1}")
+    private int userCreatedReplicas;
+
+    @Bean
+    public KafkaAdmin kafkaAdmin() {
+        Map<String, Object> config = new HashMap<>();
+        config.put(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+
+        // Security Protocol
+        config.put(CommonClientConfigs.SECURITY_PROTOCOL_CONFIG, securityProtocol);
+
+        // SASL Authentication (only when using SASL protocols)
+        if (securityProtocol.contains("SASL")) {
+            config.put(SaslConfigs.SASL_MECHANISM, saslMechanism);
+            config.put(SaslConfigs.SASL_JAAS_CONFIG, String.format(
+                    "org.apache.kafka.common.security.plain.PlainLoginModule required username=\"%s\" password=\"%s\";",
+                    saslUsername, saslPassword));
+        }
+
+        return new KafkaAdmin(config);
+    }
+
+    /**
+     * Created on startup with the configured partitions. KafkaAdmin also raises the partition count of an existing
+     * topic to match, but never lowers it. {@link org.kafka.template.kafka.UserTopicPartitionExpander} does the same
+     * at runtime, without a redeploy.
+     */
     @Bean
     public NewTopic userCreatedTopic() {
         return TopicBuilder
                 .name(userCreatedTopic)
-                .partitions(1)
-                .replicas(1)
+                .partitions(userCreatedPartitions)
+                .replicas(userCreatedReplicas)
                 .build();
     }
 }
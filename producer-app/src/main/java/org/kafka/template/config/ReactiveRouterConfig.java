@@ -0,0 +1,30 @@
+package org.kafka.template.config;
+
+import org.kafka.template.controller.UserHandler;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+
+/**
+ * Routes of the reactive ingestion path, served by reactor-netty when
+ * {@code spring.main.web-application-type=reactive}. The servlet {@link org.kafka.template.controller.UserController}
+ * is not registered in that mode.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRouterConfig {
+
+    @Bean
+    public RouterFunction<ServerResponse> userRoutes(UserHandler userHandler) {
+        return RouterFunctions.route()
+                .POST("/users", contentType(MediaType.APPLICATION_JSON), userHandler::createUser)
+                .POST("/users/stream", contentType(MediaType.APPLICATION_NDJSON, MediaType.APPLICATION_JSON), userHandler::createUsers)
+                .build();
+    }
+}
@@ -0,0 +1,25 @@
+package org.kafka.template.config;
+
+import lombok.Data;
+import org.kafka.template.enums.SpoolMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings of the local write-ahead spool, see {@link org.kafka.template.spool.UserSpool}. At most
+ * segment-bytes times max-segments of disk is used.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "spring.kafka.spool")
+public class SpoolProperties {
+
+    private SpoolMode mode = SpoolMode.OFF;
+    private String directory = "spool";
+    private int segmentBytes = 64 * 1024 * 1024;
+    private int maxSegments = 16;
+    private int drainBatchSize = 500;
+    private long drainIdleMs = 100;
+    private long drainBackoffMs = 1000;
+    private long drainSendTimeoutMs = 30000;
+}
@@ -0,0 +1,27 @@
+package org.kafka.template.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Active when {@code spring.threads.virtual.enabled=true}, which also moves Tomcat request handling and
+ * {@link org.kafka.template.kafka.UserProducer} send callbacks onto virtual threads.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Value("${spring.threads.virtual.pinning-threshold-ms:20}")
+    private long pinningThresholdMs;
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry) {
+        return new VirtualThreadPinningMonitor(meterRegistry, Duration.ofMillis(pinningThresholdMs));
+    }
+}
@@ -0,0 +1,76 @@
+package org.kafka.template.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+
+import java.time.Duration;
+
+/**
+ * Streams {@code jdk.VirtualThreadPinned} JFR events into the {@code virtual.threads.pinned} timer, tagged with the
+ * first non-JDK class on the pinned stack. That is where the offending {@code synchronized} block lives, e.g. the
+ * schema registry client cache behind the JSON schema serializer or the producer metadata wait.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String UNKNOWN_SITE = "unknown";
+
+    private final MeterRegistry meterRegistry;
+    private final Duration threshold;
+    private RecordingStream recordingStream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, Duration threshold) {
+        this.meterRegistry = meterRegistry;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public void start() {
+        recordingStream = new RecordingStream();
+        recordingStream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        recordingStream.onEvent(PINNED_EVENT, this::record);
+        recordingStream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}", threshold);
+    }
+
+    @Override
+    public void stop() {
+        recordingStream.close();
+        recordingStream = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return recordingStream != null;
+    }
+
+    private void record(RecordedEvent event) {
+        String site = pinningSite(event.getStackTrace());
+        Timer.builder("virtual.threads.pinned")
+                .description("Time virtual threads spent pinned to their carrier thread")
+                .tag("site", site)
+                .register(meterRegistry)
+                .record(event.getDuration());
+        log.debug("Virtual thread pinned for {} at {}", event.getDuration(), site);
+    }
+
+    private static String pinningSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return UNKNOWN_SITE;
+        }
+        for (RecordedFrame frame : stackTrace.getFrames()) {
+            String type = frame.getMethod().getType().getName();
+            if (!type.startsWith("java.") && !type.startsWith("jdk.") && !type.startsWith("sun.")) {
+                return type;
+            }
+        }
+        return UNKNOWN_SITE;
+    }
+}
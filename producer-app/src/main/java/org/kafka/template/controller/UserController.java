@@ -1,18 +1,27 @@
 package org.kafka.template.controller;
 
 import org.kafka.template.dtos.GenericResponseDto;
+import org.kafka.template.dtos.UserBatchResponseDto;
 import org.kafka.template.dtos.UserCreatedRequestDto;
 import org.kafka.template.dtos.UserCreatedResponseDto;
-import org.kafka.template.kafka.UserProducer;
-import org.kafka.template.models.User;
 import org.kafka.template.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class UserController {
 
+    public static final String DELIVERY_MODE_HEADER = "X-Delivery-Mode";
+    public static final String DELIVERY_MODE_CONFIRMED = "confirmed";
+
     private final UserService userService;
 
     public UserController(UserService userService) {
@@ -23,4 +32,14 @@ public class UserController {
     public GenericResponseDto<UserCreatedResponseDto> createUser(@RequestBody UserCreatedRequestDto userCreatedRequestDto) {
         return userService.sendUser(userCreatedRequestDto);
     }
+
+    @PostMapping(value = "/users", headers = DELIVERY_MODE_HEADER + "=" + DELIVERY_MODE_CONFIRMED)
+    public CompletableFuture<GenericResponseDto<UserCreatedResponseDto>> createUserConfirmed(@RequestBody UserCreatedRequestDto userCreatedRequestDto) {
+        return userService.sendUserConfirmed(userCreatedRequestDto);
+    }
+
+    @PostMapping(value = "/users/batch", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public GenericResponseDto<UserBatchResponseDto> createUsers(InputStream body) throws IOException {
+        return userService.sendUsers(body);
+    }
 }
@@ -0,0 +1,177 @@
+package org.kafka.template.controller;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.common.errors.SerializationException;
+import org.kafka.template.controllerAdvice.RestResponseEntityExceptionHandler.ApiError;
+import org.kafka.template.dtos.GenericResponseDto;
+import org.kafka.template.dtos.UserBatchRejectionDto;
+import org.kafka.template.dtos.UserBatchResponseDto;
+import org.kafka.template.dtos.UserCreatedRequestDto;
+import org.kafka.template.dtos.UserCreatedResponseDto;
+import org.kafka.template.enums.GenericResponseStatus;
+import org.kafka.template.exceptions.InvalidUserException;
+import org.kafka.template.kafka.ReactiveUserProducer;
+import org.kafka.template.mapper.UserMapper;
+import org.kafka.template.models.User;
+import org.kafka.template.utils.UserSchemaValidator;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ServerWebInputException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Handler functions of the reactive ingestion path, routed by {@link org.kafka.template.config.ReactiveRouterConfig}.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class UserHandler {
+
+    private final ReactiveUserProducer reactiveUserProducer;
+    private final UserMapper userMapper;
+    private final UserSchemaValidator userSchemaValidator;
+
+    public UserHandler(ReactiveUserProducer reactiveUserProducer, UserMapper userMapper, UserSchemaValidator userSchemaValidator) {
+        this.reactiveUserProducer = reactiveUserProducer;
+        this.userMapper = userMapper;
+        this.userSchemaValidator = userSchemaValidator;
+    }
+
+    public Mono<ServerResponse> createUser(ServerRequest request) {
+        return request.bodyToMono(UserCreatedRequestDto.class)
+                .map(userMapper::toJsonSchema)
+                .doOnNext(userSchemaValidator::validate)
+                .flatMap(user -> reactiveUserProducer.sendUsers(Flux.just(Tuples.of(0L, user)))
+                        .single()
+                        .flatMap(result -> result.exception() == null
+                                ? created(user, result)
+                                : failed(request, result.exception())))
+                .onErrorResume(InvalidUserException.class, e -> invalid(request, e));
+    }
+
+    public Mono<ServerResponse> createUsers(ServerRequest request) {
+        StreamSummary summary = new StreamSummary();
+        Flux<Tuple2<Long, User>> users = request.bodyToFlux(UserCreatedRequestDto.class)
+                .map(userMapper::toJsonSchema)
+                .index()
+                .doOnNext(summary::read)
+                .filter(indexed -> admit(indexed, summary));
+
+        return reactiveUserProducer.sendUsers(users)
+                .doOnNext(summary::add)
+                .then(Mono.fromSupplier(summary::toResponse))
+                // Like POST /users/batch, malformed input ends the stream at the record that could not be read
+                .onErrorResume(e -> e instanceof DecodingException || e instanceof ServerWebInputException,
+                        e -> Mono.fromSupplier(() -> summary.reject(e).toResponse()))
+                .flatMap(response -> ServerResponse.ok().bodyValue(response));
+    }
+
+    private boolean admit(Tuple2<Long, User> indexed, StreamSummary summary) {
+        try {
+            userSchemaValidator.validate(indexed.getT2());
+            return true;
+        } catch (InvalidUserException e) {
+            summary.reject(indexed.getT1(), e);
+            return false;
+        }
+    }
+
+    private Mono<ServerResponse> created(User user, SenderResult<Long> result) {
+        UserCreatedResponseDto responseDto = userMapper.toUserCreatedResponseDto(user).toBuilder()
+                .partition(result.recordMetadata().partition())
+                .offset(result.recordMetadata().offset())
+                .build();
+        return ServerResponse.ok().bodyValue(GenericResponseDto.<UserCreatedResponseDto>builder()
+                .data(responseDto)
+                .status(GenericResponseStatus.SUCCESS)
+                .build());
+    }
+
+    private Mono<ServerResponse> failed(ServerRequest request, Exception exception) {
+        HttpStatus status = ExceptionUtils.indexOfType(exception, SerializationException.class) >= 0
+                ? HttpStatus.BAD_REQUEST
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return apiError(request, status, List.of(ExceptionUtils.getRootCauseMessage(exception)));
+    }
+
+    private Mono<ServerResponse> invalid(ServerRequest request, InvalidUserException exception) {
+        return apiError(request, HttpStatus.BAD_REQUEST, exception.getViolations());
+    }
+
+    private static Mono<ServerResponse> apiError(ServerRequest request, HttpStatus status, List<String> errors) {
+        return ServerResponse.status(status).bodyValue(ApiError.builder()
+                .status(status.value())
+                .errors(errors)
+                .path(request.path())
+                .method(request.method().name())
+                .build());
+    }
+
+    private static final class StreamSummary {
+        // Index of the last record read from the body, whether or not its send has been acknowledged yet
+        private final AtomicLong lastIndex = new AtomicLong(-1);
+        private final AtomicLong accepted = new AtomicLong();
+        // Validation rejections are added on the request thread, send failures on the sender thread
+        private final List<UserBatchRejectionDto> rejections = Collections.synchronizedList(new ArrayList<>());
+
+        void read(Tuple2<Long, User> indexed) {
+            lastIndex.set(indexed.getT1());
+        }
+
+        void add(SenderResult<Long> result) {
+            if (result.exception() == null) {
+                accepted.incrementAndGet();
+            } else {
+                rejections.add(rejection(result.correlationMetadata(), result.exception()));
+            }
+        }
+
+        void reject(long index, Throwable e) {
+            rejections.add(rejection(index, e));
+        }
+
+        StreamSummary reject(Throwable e) {
+            // The record that could not be read comes right after the last one that could
+            rejections.add(rejection(lastIndex.incrementAndGet(), e));
+            return this;
+        }
+
+        GenericResponseDto<UserBatchResponseDto> toResponse() {
+            long acceptedCount = accepted.get();
+            GenericResponseStatus status = rejections.isEmpty()
+                    ? GenericResponseStatus.SUCCESS
+                    : acceptedCount == 0 ? GenericResponseStatus.FAILURE : GenericResponseStatus.PARTIAL_SUCCESS;
+            return GenericResponseDto.<UserBatchResponseDto>builder()
+                    .data(UserBatchResponseDto.builder()
+                            .received(lastIndex.get() + 1)
+                            .accepted(acceptedCount)
+                            .rejected(rejections.size())
+                            .rejections(rejections.stream()
+                                    .sorted(Comparator.comparingLong(UserBatchRejectionDto::getIndex))
+                                    .toList())
+                            .build())
+                    .status(status)
+                    .build();
+        }
+
+        private static UserBatchRejectionDto rejection(long index, Throwable e) {
+            return UserBatchRejectionDto.builder()
+                    .index(index)
+                    .error(ExceptionUtils.getRootCauseMessage(e))
+                    .build();
+        }
+    }
+}
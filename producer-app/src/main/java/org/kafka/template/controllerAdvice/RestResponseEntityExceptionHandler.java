@@ -9,8 +9,16 @@ import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
 import org.everit.json.schema.ValidationException;
+import org.kafka.template.enums.ProducerOverloadReason;
+import org.kafka.template.exceptions.InvalidUserException;
+import org.kafka.template.exceptions.ProducerOverloadedException;
+import org.kafka.template.exceptions.SpoolFullException;
 import org.kafka.template.utils.ServletUtils;
+import org.kafka.template.utils.UserSchemaValidator;
+import org.springframework.kafka.KafkaException;
 import org.slf4j.MDC;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
@@ -21,12 +29,13 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
 import java.util.Arrays;
-import java.util.Comparator;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeoutException;
 
 @Slf4j
 @ControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionHandler {
 
     @ExceptionHandler(HttpStatusCodeException.class)
@@ -41,20 +50,48 @@ public class RestResponseEntityExceptionHandler extends ResponseEntityExceptionH
 
     @ExceptionHandler(ValidationException.class)
     public ResponseEntity<ApiError> handleValidationException(ValidationException ex, HttpServletRequest request) {
-        String[] errors = ex.getCausingExceptions().stream()
-                .sorted(Comparator.comparing(ValidationException::getPointerToViolation))
-                .map(ValidationException::getMessage)
-                .toArray(String[]::new);
+        return logAndGetApiError(ex, request, HttpStatus.BAD_REQUEST,
+                UserSchemaValidator.violations(ex).toArray(String[]::new));
+    }
 
-        if (errors.length == 0) {
-            errors = new String[]{ex.getMessage()};
-        }
+    @ExceptionHandler(InvalidUserException.class)
+    public ResponseEntity<ApiError> handleInvalidUser(InvalidUserException ex, HttpServletRequest request) {
+        log.warn("Rejected invalid user: {}", ex.getMessage());
+        return getApiError(request, HttpStatus.BAD_REQUEST, ex.getViolations().toArray(String[]::new));
+    }
 
-        return logAndGetApiError(ex, request, HttpStatus.BAD_REQUEST, errors);
+    @ExceptionHandler(ProducerOverloadedException.class)
+    public ResponseEntity<ApiError> handleProducerOverloaded(ProducerOverloadedException ex, HttpServletRequest request) {
+        // Shed requests are counted by kafka.producer.admission.rejected, logging each one would add to the overload
+        HttpStatus status = ex.getReason() == ProducerOverloadReason.CONCURRENCY_LIMIT
+                ? HttpStatus.TOO_MANY_REQUESTS
+                : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(getApiError(request, status, ex.getMessage()).getBody());
+    }
+
+    @ExceptionHandler(SpoolFullException.class)
+    public ResponseEntity<ApiError> handleSpoolFull(SpoolFullException ex, HttpServletRequest request) {
+        return logAndGetApiError(ex, request, HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage());
+    }
+
+    @ExceptionHandler(TimeoutException.class)
+    public ResponseEntity<ApiError> handleDeliveryTimeout(TimeoutException ex, HttpServletRequest request) {
+        return logAndGetApiError(ex, request, HttpStatus.GATEWAY_TIMEOUT, "Timed out waiting for broker acknowledgement");
+    }
+
+    @ExceptionHandler(KafkaException.class)
+    public ResponseEntity<ApiError> handleKafkaException(KafkaException ex, HttpServletRequest request) {
+        return logAndGetApiError(ex, request, HttpStatus.SERVICE_UNAVAILABLE, ex.getMostSpecificCause().getMessage());
     }
 
     private ResponseEntity<ApiError> logAndGetApiError(Exception ex, HttpServletRequest request, HttpStatusCode status, String... errors) {
         logException(ex);
+        return getApiError(request, status, errors);
+    }
+
+    private ResponseEntity<ApiError> getApiError(HttpServletRequest request, HttpStatusCode status, String... errors) {
         return new ResponseEntity<>(ApiError.builder()
                 .traceId(getTraceId())
                 .status(status.value())
@@ -0,0 +1,11 @@
+package org.kafka.template.dtos;
+
+import lombok.Builder;
+import lombok.Getter;
+
+@Builder
+@Getter
+public class UserBatchRejectionDto {
+    private long index;
+    private String error;
+}
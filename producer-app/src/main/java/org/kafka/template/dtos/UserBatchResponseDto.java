@@ -0,0 +1,16 @@
+package org.kafka.template.dtos;
+
+import lombok.Builder;
+import lombok.Getter;
+
+import java.util.List;
+
+@Builder
+@Getter
+public class UserBatchResponseDto {
+    private long received;
+    private long accepted;
+    private long rejected;
+    // Only rejected records are listed, every other index of the batch was accepted
+    private List<UserBatchRejectionDto> rejections;
+}
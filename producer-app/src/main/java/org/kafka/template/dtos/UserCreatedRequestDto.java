@@ -2,9 +2,11 @@ package org.kafka.template.dtos;
 
 import lombok.Builder;
 import lombok.Getter;
+import lombok.extern.jackson.Jacksonized;
 
 @Builder
 @Getter
+@Jacksonized
 public class UserCreatedRequestDto {
     private Integer id;
     private String name;
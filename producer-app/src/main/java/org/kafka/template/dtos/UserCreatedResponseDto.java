@@ -1,13 +1,19 @@
 package org.kafka.template.dtos;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 import lombok.Getter;
 
-@Builder
+@Builder(toBuilder = true)
 @Getter
 public class UserCreatedResponseDto {
     private Integer id;
     private String name;
     private String email;
     private Integer age;
+    // Only set in confirmed delivery mode, once the broker has acknowledged the record
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Integer partition;
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Long offset;
 }
@@ -0,0 +1,36 @@
+package org.kafka.template.enums;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+
+import java.util.Map;
+
+/**
+ * Producer delivery guarantee, selected with {@code spring.kafka.delivery.guarantee}.
+ * <ul>
+ *     <li>AT_LEAST_ONCE: retries may write a record twice.</li>
+ *     <li>IDEMPOTENT: the broker drops duplicates caused by producer retries, per partition and producer session.</li>
+ *     <li>TRANSACTIONAL: idempotent, and bulk imports are additionally committed chunk by chunk in transactions.</li>
+ * </ul>
+ */
+public enum DeliveryGuarantee {
+    AT_LEAST_ONCE,
+    IDEMPOTENT,
+    TRANSACTIONAL;
+
+    /**
+     * Idempotence keeps ordering per partition with up to 5 requests in flight per connection; more are rejected
+     * by the client.
+     */
+    public static final int MAX_IDEMPOTENT_IN_FLIGHT = 5;
+
+    public Map<String, Object> producerConfig(int maxInFlightRequests) {
+        if (this == AT_LEAST_ONCE) {
+            return Map.of(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, false,
+                    ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+        }
+        return Map.of(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, true,
+                ProducerConfig.ACKS_CONFIG, "all",
+                ProducerConfig.RETRIES_CONFIG, Integer.MAX_VALUE,
+                ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, Math.min(maxInFlightRequests, MAX_IDEMPOTENT_IN_FLIGHT));
+    }
+}
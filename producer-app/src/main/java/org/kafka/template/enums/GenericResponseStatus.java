@@ -2,5 +2,6 @@ package org.kafka.template.enums;
 
 public enum GenericResponseStatus {
     SUCCESS,
+    PARTIAL_SUCCESS,
     FAILURE
 }
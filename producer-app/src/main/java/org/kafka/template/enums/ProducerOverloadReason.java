@@ -0,0 +1,7 @@
+package org.kafka.template.enums;
+
+public enum ProducerOverloadReason {
+    CONCURRENCY_LIMIT,
+    BUFFER_EXHAUSTED,
+    BROKER_LATENCY
+}
@@ -0,0 +1,7 @@
+package org.kafka.template.enums;
+
+public enum SpoolMode {
+    OFF,
+    ON_FAILURE,
+    STRICT
+}
@@ -0,0 +1,17 @@
+package org.kafka.template.exceptions;
+
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class InvalidUserException extends RuntimeException {
+
+    private final List<String> violations;
+
+    public InvalidUserException(List<String> violations) {
+        // Invalid payloads are an expected, frequent outcome, so no stack trace is captured for them
+        super(String.join(", ", violations), null, false, false);
+        this.violations = violations;
+    }
+}
@@ -0,0 +1,18 @@
+package org.kafka.template.exceptions;
+
+import lombok.Getter;
+import org.kafka.template.enums.ProducerOverloadReason;
+
+@Getter
+public class ProducerOverloadedException extends RuntimeException {
+
+    private final ProducerOverloadReason reason;
+    private final long retryAfterSeconds;
+
+    public ProducerOverloadedException(ProducerOverloadReason reason, long retryAfterSeconds) {
+        // Thrown for every shed request while overloaded, a stack trace would only add to the load
+        super("Producer overloaded: " + reason, null, false, false);
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
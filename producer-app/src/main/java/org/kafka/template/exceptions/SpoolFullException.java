@@ -0,0 +1,8 @@
+package org.kafka.template.exceptions;
+
+public class SpoolFullException extends RuntimeException {
+
+    public SpoolFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,66 @@
+package org.kafka.template.kafka;
+
+import org.apache.kafka.clients.producer.Partitioner;
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.utils.Utils;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Places records by key exactly like Kafka's built-in partitioner, except for the configured hot keys, whose
+ * records are spread round-robin over {@code partitioner.hot.key.spread} consecutive partitions starting at the
+ * key's home partition. Hot keys trade their per-key ordering for not overloading a single partition.
+ */
+public class HotKeySpreadingPartitioner implements Partitioner {
+
+    public static final String HOT_KEYS_CONFIG = "partitioner.hot.keys";
+    public static final String HOT_KEY_SPREAD_CONFIG = "partitioner.hot.key.spread";
+
+    private final ConcurrentMap<String, AtomicInteger> hotKeyCounters = new ConcurrentHashMap<>();
+    private Set<String> hotKeys = Set.of();
+    private int spread = 1;
+
+    @Override
+    public void configure(Map<String, ?> configs) {
+        Object keys = configs.get(HOT_KEYS_CONFIG);
+        if (keys instanceof Collection<?> collection) {
+            hotKeys = collection.stream().map(String::valueOf).map(String::trim).collect(Collectors.toUnmodifiableSet());
+        } else if (keys != null) {
+            hotKeys = Arrays.stream(keys.toString().split(","))
+                    .map(String::trim)
+                    .filter(key -> !key.isEmpty())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+        Object configuredSpread = configs.get(HOT_KEY_SPREAD_CONFIG);
+        if (configuredSpread != null) {
+            spread = Math.max(1, Integer.parseInt(configuredSpread.toString()));
+        }
+    }
+
+    @Override
+    public int partition(String topic, Object key, byte[] keyBytes, Object value, byte[] valueBytes, Cluster cluster) {
+        int numPartitions = cluster.partitionsForTopic(topic).size();
+        if (keyBytes == null) {
+            return ThreadLocalRandom.current().nextInt(numPartitions);
+        }
+        int home = Utils.toPositive(Utils.murmur2(keyBytes)) % numPartitions;
+        if (spread == 1 || !hotKeys.contains(String.valueOf(key))) {
+            return home;
+        }
+        int next = hotKeyCounters.computeIfAbsent(String.valueOf(key), hotKey -> new AtomicInteger()).getAndIncrement();
+        return (home + Math.floorMod(next, Math.min(spread, numPartitions))) % numPartitions;
+    }
+
+    @Override
+    public void close() {
+        hotKeyCounters.clear();
+    }
+}
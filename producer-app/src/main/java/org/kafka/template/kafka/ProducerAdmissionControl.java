@@ -0,0 +1,223 @@
+package org.kafka.template.kafka;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.kafka.template.config.AdmissionControlProperties;
+import org.kafka.template.enums.ProducerOverloadReason;
+import org.kafka.template.exceptions.ProducerOverloadedException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * Decides whether a send may start, so that requests are rejected right away instead of blocking on a full
+ * producer buffer. A send is refused when the producer is unhealthy (little buffer memory left or a high
+ * request latency, sampled from the producer metrics) or when the number of sends in flight has reached the
+ * concurrency limit. That limit follows AIMD: it grows by one per limit's worth of acknowledgements that
+ * arrive within the latency target, and shrinks by the backoff ratio, at most once per latency target,
+ * when a send is slow or fails.
+ * <p>
+ * Bulk imports, which send many records from one request, wait for room with {@link #acquire(long)} instead of
+ * being shed as soon as the limit is reached. They wait on a {@link ReentrantLock} rather than a monitor, so
+ * the virtual threads of the request handlers don't pin their carriers, and the limit is updated with CAS so that
+ * acknowledgements never contend on that lock.
+ */
+@Slf4j
+@Component
+public class ProducerAdmissionControl {
+
+    private static final String PRODUCER_METRICS_GROUP = "producer-metrics";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final AdmissionControlProperties properties;
+    private final long latencyTargetNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<ProducerOverloadReason, Counter> rejections = new EnumMap<>(ProducerOverloadReason.class);
+
+    // Bits of the double limit, so it can be updated with CAS
+    private final AtomicLong limitBits;
+    private final AtomicLong lastBackoffNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition room = lock.newCondition();
+    // Threads blocked in acquire(long), only incremented under the lock
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private volatile ProducerOverloadReason producerOverload;
+
+    public ProducerAdmissionControl(@Qualifier("jsonKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+                                    AdmissionControlProperties properties, MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(properties.getLatencyTargetMs());
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(properties.getInitialLimit()));
+        this.lastBackoffNanos = new AtomicLong(System.nanoTime() - latencyTargetNanos);
+
+        Gauge.builder("kafka.producer.admission.limit", this, ProducerAdmissionControl::limit)
+                .description("Current concurrency limit of user sends")
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("User sends waiting for their acknowledgement")
+                .register(meterRegistry);
+        for (ProducerOverloadReason reason : ProducerOverloadReason.values()) {
+            rejections.put(reason, Counter.builder("kafka.producer.admission.rejected")
+                    .description("User sends rejected by admission control")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * @throws ProducerOverloadedException when the send has to be shed; nothing needs to be released then
+     */
+    public void acquire() {
+        ProducerOverloadReason reason = tryAcquire();
+        if (reason != null) {
+            throw rejected(reason);
+        }
+    }
+
+    /**
+     * Like {@link #acquire()}, but waits up to {@code maxWaitMs} for a send to end or the producer to recover
+     * before the send is shed.
+     *
+     * @throws ProducerOverloadedException when there is still no room after the wait
+     */
+    public void acquire(long maxWaitMs) {
+        ProducerOverloadReason reason = tryAcquire();
+        if (reason == null) {
+            return;
+        }
+        long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        lock.lock();
+        try {
+            // Announced before checking again, so a release either sees the waiter or frees the room it checks for
+            waiting.incrementAndGet();
+            while ((reason = tryAcquire()) != null) {
+                if (remaining <= 0) {
+                    throw rejected(reason);
+                }
+                remaining = room.awaitNanos(remaining);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw rejected(reason);
+        } finally {
+            waiting.decrementAndGet();
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return why the send may not start, or {@code null} when it was admitted
+     */
+    private ProducerOverloadReason tryAcquire() {
+        if (!properties.isEnabled()) {
+            inFlight.incrementAndGet();
+            return null;
+        }
+        ProducerOverloadReason reason = producerOverload;
+        if (reason == null && inFlight.incrementAndGet() > (int) limit()) {
+            inFlight.decrementAndGet();
+            reason = ProducerOverloadReason.CONCURRENCY_LIMIT;
+        }
+        return reason;
+    }
+
+    private ProducerOverloadedException rejected(ProducerOverloadReason reason) {
+        rejections.get(reason).increment();
+        return new ProducerOverloadedException(reason, properties.getRetryAfterSeconds());
+    }
+
+    /**
+     * Ends a send started by {@link #acquire()}. {@code congested} marks a failure that points at an overloaded
+     * producer or broker, as opposed to e.g. an invalid record.
+     */
+    public void release(long startNanos, boolean congested) {
+        inFlight.decrementAndGet();
+        long now = System.nanoTime();
+        if (congested || now - startNanos > latencyTargetNanos) {
+            long lastBackoff = lastBackoffNanos.get();
+            // Only the release that wins the CAS backs off, once per latency target
+            if (now - lastBackoff >= latencyTargetNanos && lastBackoffNanos.compareAndSet(lastBackoff, now)) {
+                updateLimit(limit -> Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio()));
+            }
+        } else if (limit() < properties.getMaxLimit()) {
+            updateLimit(limit -> Math.min(properties.getMaxLimit(), limit + 1 / limit));
+        }
+        signalWaiters();
+    }
+
+    private void updateLimit(DoubleUnaryOperator update) {
+        limitBits.updateAndGet(bits -> Double.doubleToLongBits(update.applyAsDouble(Double.longBitsToDouble(bits))));
+    }
+
+    private void signalWaiters() {
+        if (waiting.get() > 0) {
+            lock.lock();
+            try {
+                room.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${spring.kafka.admission.sample-interval-ms:500}")
+    public void sampleProducerMetrics() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        Map<MetricName, ? extends Metric> metrics = kafkaTemplate.metrics();
+        double bufferAvailable = metricValue(metrics, "buffer-available-bytes");
+        double bufferTotal = metricValue(metrics, "buffer-total-bytes");
+        double requestLatency = metricValue(metrics, "request-latency-avg");
+
+        ProducerOverloadReason overload = null;
+        if (bufferTotal > 0 && bufferAvailable / bufferTotal < properties.getMinBufferAvailableRatio()) {
+            overload = ProducerOverloadReason.BUFFER_EXHAUSTED;
+        } else if (requestLatency > properties.getMaxRequestLatencyMs()) {
+            overload = ProducerOverloadReason.BROKER_LATENCY;
+        }
+        if (overload != producerOverload) {
+            log.warn("Producer admission changed from {} to {}", stateOf(producerOverload), stateOf(overload));
+            producerOverload = overload;
+            signalWaiters();
+        }
+    }
+
+    public double limit() {
+        return Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    private static String stateOf(ProducerOverloadReason overload) {
+        return overload == null ? "HEALTHY" : overload.name();
+    }
+
+    private static double metricValue(Map<MetricName, ? extends Metric> metrics, String name) {
+        return metrics.entrySet().stream()
+                .filter(entry -> PRODUCER_METRICS_GROUP.equals(entry.getKey().group()) && name.equals(entry.getKey().name()))
+                .map(entry -> entry.getValue().metricValue())
+                .filter(Number.class::isInstance)
+                .mapToDouble(value -> ((Number) value).doubleValue())
+                .findFirst()
+                .orElse(Double.NaN);
+    }
+}
@@ -0,0 +1,45 @@
+package org.kafka.template.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.kafka.template.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.function.Tuple2;
+
+@Service
+@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveUserProducer {
+
+    private final KafkaSender<String, Object> kafkaSender;
+
+    @Value("${spring.kafka.topics.user-created}")
+    private String userCreatedTopic;
+
+    public ReactiveUserProducer(KafkaSender<String, Object> kafkaSender) {
+        this.kafkaSender = kafkaSender;
+    }
+
+    /**
+     * Sends users as they arrive, each result correlated with the position the caller gave the user in its stream.
+     * Upstream demand is bounded by the sender's max-in-flight, so a slow broker slows down the caller
+     * instead of queueing records in memory. A failed record does not end the stream.
+     */
+    public Flux<SenderResult<Long>> sendUsers(Flux<Tuple2<Long, User>> users) {
+        Flux<SenderRecord<String, Object, Long>> records = users
+                .map(indexed -> SenderRecord.create(userCreatedTopic, null, null,
+                        UserRecordKeys.keyOf(indexed.getT2()), (Object) indexed.getT2(), indexed.getT1()));
+
+        return kafkaSender.send(records)
+                .doOnNext(result -> {
+                    if (result.exception() != null) {
+                        log.error("Failed to send user at index {}: {}", result.correlationMetadata(), result.exception().getMessage());
+                    }
+                });
+    }
+}
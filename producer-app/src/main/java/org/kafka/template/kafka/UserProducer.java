@@ -1,12 +1,22 @@
 package org.kafka.template.kafka;
 
-import java.util.UUID;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.common.errors.RetriableException;
 import org.apache.kafka.common.errors.SerializationException;
 import org.kafka.template.models.User;
+import org.kafka.template.spool.UserSpool;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -14,27 +24,153 @@ import org.springframework.stereotype.Service;
 public class UserProducer {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ProducerAdmissionControl admissionControl;
+    private final UserSpool userSpool;
+    private final Executor sendCallbackExecutor;
+    private final ExecutorService spoolExecutor;
 
     @Value("${spring.kafka.topics.user-created}")
     private String userCreatedTopic;
 
-    public UserProducer(@Qualifier("jsonKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate) {
+    @Value("${spring.kafka.admission.batch-wait-ms:5000}")
+    private long batchWaitMs;
+
+    public UserProducer(@Qualifier("jsonKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+                        ProducerAdmissionControl admissionControl,
+                        @Nullable UserSpool userSpool,
+                        @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
         this.kafkaTemplate = kafkaTemplate;
+        this.admissionControl = admissionControl;
+        this.userSpool = userSpool;
+        // Callbacks run on the producer I/O thread, unless requests are served by virtual threads. Then they get
+        // one of their own, so that whatever is chained on the send future can never stall the sender.
+        this.sendCallbackExecutor = virtualThreads
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("kafka-send-callback-", 0).factory())
+                : null;
+        // Failed acknowledgements are spooled off the callback thread, as an append waits for the spool's force
+        this.spoolExecutor = userSpool != null
+                ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("user-spool-append-", 0).factory())
+                : null;
+    }
+
+    /**
+     * Fire-and-forget send. With a strict spool the user is only appended to the spool, forced to disk, and
+     * delivered by {@link org.kafka.template.spool.UserSpoolDrainer}; otherwise it is sent right away.
+     *
+     * @throws org.kafka.template.exceptions.SpoolFullException when the strict spool has no room left
+     */
+    public void publishUser(User user) {
+        if (userSpool != null && userSpool.isStrict()) {
+            userSpool.append(user);
+            log.info("Spooled user: {}", user);
+        } else {
+            sendUser(user);
+        }
+    }
+
+    /**
+     * Fire-and-forget send of a bulk import record. Unlike {@link #publishUser}, it waits up to batch-wait-ms for
+     * admission control to let the send start, since a bulk import queues records faster than they are acknowledged.
+     *
+     * @throws org.kafka.template.exceptions.ProducerOverloadedException when there is still no room after the wait
+     */
+    public void publishBatchUser(User user) {
+        if (userSpool != null && userSpool.isStrict()) {
+            publishUser(user);
+            return;
+        }
+        admissionControl.acquire(batchWaitMs);
+        send(user);
+    }
+
+    public boolean isTransactional() {
+        return kafkaTemplate.isTransactional();
+    }
+
+    /**
+     * Sends the users in one Kafka transaction, so read_committed consumers see either all of them or none.
+     * Blocks until the transaction has committed; any failure aborts it and is rethrown.
+     */
+    public void sendUsersAtomically(List<User> users) {
+        kafkaTemplate.executeInTransaction(operations -> {
+            users.forEach(user -> operations.send(userCreatedTopic, UserRecordKeys.keyOf(user), user));
+            return null;
+        });
+        log.info("Sent {} users in one transaction", users.size());
+    }
+
+    /**
+     * Sends the user and returns the future of the send, which completes once the broker has acknowledged
+     * the record. Callers that only need fire-and-forget semantics can ignore it.
+     *
+     * @throws org.kafka.template.exceptions.ProducerOverloadedException when admission control sheds the send
+     */
+    public CompletableFuture<SendResult<String, Object>> sendUser(User user) {
+        admissionControl.acquire();
+        return send(user);
     }
 
-    public void sendUser(User user) {
+    // The send must have been admitted by the admission control
+    private CompletableFuture<SendResult<String, Object>> send(User user) {
+        long startNanos = System.nanoTime();
         try {
-            kafkaTemplate.send(userCreatedTopic, UUID.randomUUID().toString(), user).whenComplete((result, ex) -> {
-                if (ex != null) {
-                    log.error("Failed to send user: {}", ex.getMessage());
-                } else {
-                    log.info("User sent successfully with key: {} and value: {}", result.getProducerRecord().key(), result.getProducerRecord().value());
-                }
-            });
+            CompletableFuture<SendResult<String, Object>> sent = kafkaTemplate.send(userCreatedTopic, UserRecordKeys.keyOf(user), user);
+            CompletableFuture<SendResult<String, Object>> future = sendCallbackExecutor == null
+                    ? sent.whenComplete((result, ex) -> onSendCompleted(user, result, ex, startNanos))
+                    : sent.whenCompleteAsync((result, ex) -> onSendCompleted(user, result, ex, startNanos), sendCallbackExecutor);
             log.info("Sent user: {}", user);
+            return future;
         } catch (SerializationException e) {
+            admissionControl.release(startNanos, false);
             log.error("Schema validation failed: {}", e.getMessage());
             throw new RuntimeException("Schema validation failed", e);
+        } catch (RuntimeException e) {
+            // Typically max.block.ms running out on a full buffer or missing metadata
+            admissionControl.release(startNanos, true);
+            log.error("Failed to send user: {}", e.getMessage());
+            // Spooled like a failed acknowledgement, so the caller sees the same failed future either way
+            if (spoolFailed(user, e)) {
+                return CompletableFuture.failedFuture(e);
+            }
+            throw e;
+        }
+    }
+
+    private void onSendCompleted(User user, SendResult<String, Object> result, Throwable ex, long startNanos) {
+        admissionControl.release(startNanos, ex != null);
+        if (ex != null) {
+            log.error("Failed to send user: {}", ex.getMessage());
+            if (spoolExecutor != null) {
+                spoolExecutor.execute(() -> spoolFailed(user, ex));
+            }
+        } else {
+            log.info("User sent successfully with key: {} and value: {}", result.getProducerRecord().key(), result.getProducerRecord().value());
+        }
+    }
+
+    /**
+     * @return whether the user was spooled for the drainer to send again
+     */
+    private boolean spoolFailed(User user, Throwable ex) {
+        // Only failures a later attempt can overcome are worth keeping, anything else would block the drainer
+        if (userSpool == null || ExceptionUtils.indexOfType(ex, RetriableException.class) < 0) {
+            return false;
+        }
+        try {
+            userSpool.append(user);
+            log.info("Spooled user after failed send: {}", user);
+            return true;
+        } catch (RuntimeException e) {
+            log.error("User could not be spooled and is lost: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    @PreDestroy
+    void close() {
+        // Lets the appends of failed sends finish before the spool is closed
+        if (spoolExecutor != null) {
+            spoolExecutor.close();
         }
     }
 }
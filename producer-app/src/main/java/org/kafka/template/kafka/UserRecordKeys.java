@@ -0,0 +1,16 @@
+package org.kafka.template.kafka;
+
+import org.kafka.template.models.User;
+
+public final class UserRecordKeys {
+
+    private UserRecordKeys() {
+    }
+
+    /**
+     * Records are keyed by user id, so that every event of a user lands on the same partition and stays in order.
+     */
+    public static String keyOf(User user) {
+        return user == null || user.getId() == null ? null : user.getId().toString();
+    }
+}
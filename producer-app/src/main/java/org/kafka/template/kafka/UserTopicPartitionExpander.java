@@ -0,0 +1,79 @@
+package org.kafka.template.kafka;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.CreatePartitionsOptions;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Actuator endpoint ({@code /actuator/partitions}) that reports and expands the partition count of the
+ * user-created topic. Expansion is validated by the broker with a dry run before it is applied and never
+ * shrinks the topic. Users keep their key, but a key may hash to a different partition afterward, so ordering is
+ * only guaranteed again once the records produced before the expansion have been consumed.
+ */
+@Slf4j
+@Component
+@Endpoint(id = "partitions")
+public class UserTopicPartitionExpander {
+
+    private final Supplier<Admin> adminSupplier;
+
+    @Value("${spring.kafka.topics.user-created}")
+    private String userCreatedTopic;
+
+    @Autowired
+    public UserTopicPartitionExpander(KafkaAdmin kafkaAdmin) {
+        this(() -> Admin.create(kafkaAdmin.getConfigurationProperties()));
+    }
+
+    UserTopicPartitionExpander(Supplier<Admin> adminSupplier) {
+        this.adminSupplier = adminSupplier;
+    }
+
+    @ReadOperation
+    public Map<String, Object> partitions() throws ExecutionException, InterruptedException {
+        try (Admin admin = adminSupplier.get()) {
+            return Map.of("topic", userCreatedTopic, "partitions", partitionCount(admin));
+        }
+    }
+
+    @WriteOperation
+    public Map<String, Object> expand(int partitions) throws ExecutionException, InterruptedException {
+        try (Admin admin = adminSupplier.get()) {
+            int current = partitionCount(admin);
+            if (partitions < current) {
+                throw new InvalidEndpointRequestException("Topic " + userCreatedTopic + " has " + current
+                        + " partitions, partitions can only be added", "Partition count cannot be lowered");
+            }
+            if (partitions > current) {
+                Map<String, NewPartitions> request = Map.of(userCreatedTopic, NewPartitions.increaseTo(partitions));
+                admin.createPartitions(request, new CreatePartitionsOptions().validateOnly(true)).all().get();
+                admin.createPartitions(request).all().get();
+                log.warn("Expanded topic {} from {} to {} partitions, keys may now map to different partitions",
+                        userCreatedTopic, current, partitions);
+            }
+            return Map.of("topic", userCreatedTopic, "previousPartitions", current, "partitions", partitions);
+        }
+    }
+
+    private int partitionCount(Admin admin) throws ExecutionException, InterruptedException {
+        TopicDescription description = admin.describeTopics(List.of(userCreatedTopic))
+                .allTopicNames().get()
+                .get(userCreatedTopic);
+        return description.partitions().size();
+    }
+}
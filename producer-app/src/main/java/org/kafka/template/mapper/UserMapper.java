@@ -4,11 +4,14 @@ import org.kafka.template.dtos.UserCreatedRequestDto;
 import org.kafka.template.dtos.UserCreatedResponseDto;
 import org.kafka.template.models.User;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 
 @Mapper(componentModel = "spring")
 public interface UserMapper {
 
     User toJsonSchema(UserCreatedRequestDto userCreatedRequestDto);
 
+    @Mapping(target = "partition", ignore = true)
+    @Mapping(target = "offset", ignore = true)
     UserCreatedResponseDto toUserCreatedResponseDto(User user);
 }
@@ -1,30 +1,191 @@
 package org.kafka.template.service;
 
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.kafka.template.dtos.GenericResponseDto;
+import org.kafka.template.dtos.UserBatchRejectionDto;
+import org.kafka.template.dtos.UserBatchResponseDto;
 import org.kafka.template.dtos.UserCreatedRequestDto;
 import org.kafka.template.dtos.UserCreatedResponseDto;
+import org.kafka.template.enums.GenericResponseStatus;
+import org.kafka.template.exceptions.ProducerOverloadedException;
 import org.kafka.template.kafka.UserProducer;
 import org.kafka.template.mapper.UserMapper;
+import org.kafka.template.models.User;
+import org.kafka.template.utils.UserSchemaValidator;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
 @Service
 public class UserService {
 
     private final UserProducer userProducer;
     private final UserMapper userMapper;
+    private final UserSchemaValidator userSchemaValidator;
+    private final ObjectReader batchReader;
+
+    @Value("${spring.kafka.delivery.timeout-ms:5000}")
+    private long deliveryTimeoutMs;
+
+    @Value("${spring.kafka.delivery.transaction-chunk-size:500}")
+    private int transactionChunkSize;
 
-    public UserService(UserProducer userProducer, UserMapper userMapper) {
+    public UserService(UserProducer userProducer, UserMapper userMapper, UserSchemaValidator userSchemaValidator,
+                       ObjectMapper objectMapper) {
         this.userProducer = userProducer;
         this.userMapper = userMapper;
+        this.userSchemaValidator = userSchemaValidator;
+        this.batchReader = objectMapper.readerFor(UserCreatedRequestDto.class);
     }
 
     public GenericResponseDto<UserCreatedResponseDto> sendUser(UserCreatedRequestDto userCreatedRequestDto) {
         var user = userMapper.toJsonSchema(userCreatedRequestDto);
-        userProducer.sendUser(user);
+        userSchemaValidator.validate(user);
+        userProducer.publishUser(user);
         var responseDto = userMapper.toUserCreatedResponseDto(user);
         return GenericResponseDto.<UserCreatedResponseDto>builder()
                 .data(responseDto)
-                .status(org.kafka.template.enums.GenericResponseStatus.SUCCESS)
+                .status(GenericResponseStatus.SUCCESS)
                 .build();
     }
+
+    /**
+     * Completes only once the broker has acknowledged the record, or exceptionally with a
+     * {@link java.util.concurrent.TimeoutException} after the configured delivery timeout.
+     * Nothing blocks while waiting, the request thread is released by Spring MVC async handling.
+     */
+    public CompletableFuture<GenericResponseDto<UserCreatedResponseDto>> sendUserConfirmed(UserCreatedRequestDto userCreatedRequestDto) {
+        var user = userMapper.toJsonSchema(userCreatedRequestDto);
+        userSchemaValidator.validate(user);
+        var responseDto = userMapper.toUserCreatedResponseDto(user);
+        return userProducer.sendUser(user)
+                .orTimeout(deliveryTimeoutMs, TimeUnit.MILLISECONDS)
+                .thenApply(result -> {
+                    RecordMetadata metadata = result.getRecordMetadata();
+                    return GenericResponseDto.<UserCreatedResponseDto>builder()
+                            .data(responseDto.toBuilder()
+                                    .partition(metadata.partition())
+                                    .offset(metadata.offset())
+                                    .build())
+                            .status(GenericResponseStatus.SUCCESS)
+                            .build();
+                });
+    }
+
+    /**
+     * Streams users from an NDJSON or JSON array body and hands each one to the producer as soon as it is read,
+     * so the batch is never held in memory. A record that cannot be bound or sent is rejected on its own;
+     * only malformed JSON stops the batch, since the parser cannot find the next record after it. Sends wait for
+     * room when the producer has too many records in flight; the batch only stops when the producer stays
+     * overloaded for batch-wait-ms, as it would shed the remaining records as well.
+     * <p>
+     * With a transactional producer, valid users are sent in chunks of transaction-chunk-size, each committed
+     * atomically. A chunk whose transaction aborts is rejected as a whole.
+     */
+    public GenericResponseDto<UserBatchResponseDto> sendUsers(InputStream body) throws IOException {
+        List<UserBatchRejectionDto> rejections = new ArrayList<>();
+        boolean transactional = userProducer.isTransactional();
+        List<User> chunk = new ArrayList<>();
+        List<Long> chunkIndexes = new ArrayList<>();
+        long index = 0;
+        long accepted = 0;
+
+        try (MappingIterator<UserCreatedRequestDto> records = batchReader.readValues(body)) {
+            while (true) {
+                try {
+                    if (!records.hasNextValue()) {
+                        break;
+                    }
+                    var user = userMapper.toJsonSchema(records.nextValue());
+                    userSchemaValidator.validate(user);
+                    if (transactional) {
+                        chunk.add(user);
+                        chunkIndexes.add(index);
+                        if (chunk.size() == transactionChunkSize) {
+                            accepted += commitChunk(chunk, chunkIndexes, rejections);
+                        }
+                    } else {
+                        userProducer.publishBatchUser(user);
+                        accepted++;
+                    }
+                } catch (JsonParseException e) {
+                    rejections.add(rejection(index, e));
+                    log.warn("Aborting user batch at record {}: {}", index, e.getOriginalMessage());
+                    index++;
+                    break;
+                } catch (ProducerOverloadedException e) {
+                    // Sending the rest now would only be shed as well, the client resubmits from this record
+                    rejections.add(rejection(index, e));
+                    log.warn("Aborting user batch at record {}: {}", index, e.getMessage());
+                    index++;
+                    break;
+                } catch (JsonMappingException | RuntimeException e) {
+                    rejections.add(rejection(index, e));
+                }
+                index++;
+            }
+            accepted += commitChunk(chunk, chunkIndexes, rejections);
+        }
+        rejections.sort(Comparator.comparingLong(UserBatchRejectionDto::getIndex));
+
+        log.info("Processed user batch. received: {}, accepted: {}, rejected: {}", index, accepted, rejections.size());
+        return GenericResponseDto.<UserBatchResponseDto>builder()
+                .data(UserBatchResponseDto.builder()
+                        .received(index)
+                        .accepted(accepted)
+                        .rejected(rejections.size())
+                        .rejections(rejections)
+                        .build())
+                .status(batchStatus(accepted, rejections.size()))
+                .build();
+    }
+
+    /**
+     * @return the number of users committed, either all of the chunk or none
+     */
+    private long commitChunk(List<User> chunk, List<Long> chunkIndexes, List<UserBatchRejectionDto> rejections) {
+        if (chunk.isEmpty()) {
+            return 0;
+        }
+        long committed = chunk.size();
+        try {
+            userProducer.sendUsersAtomically(List.copyOf(chunk));
+        } catch (RuntimeException e) {
+            log.warn("Aborted transaction of {} users starting at record {}: {}", chunk.size(), chunkIndexes.get(0), e.getMessage());
+            chunkIndexes.forEach(chunkIndex -> rejections.add(rejection(chunkIndex, e)));
+            committed = 0;
+        }
+        chunk.clear();
+        chunkIndexes.clear();
+        return committed;
+    }
+
+    private static UserBatchRejectionDto rejection(long index, Exception e) {
+        return UserBatchRejectionDto.builder()
+                .index(index)
+                .error(ExceptionUtils.getRootCauseMessage(e))
+                .build();
+    }
+
+    private static GenericResponseStatus batchStatus(long accepted, long rejected) {
+        if (rejected == 0) {
+            return GenericResponseStatus.SUCCESS;
+        }
+        return accepted == 0 ? GenericResponseStatus.FAILURE : GenericResponseStatus.PARTIAL_SUCCESS;
+    }
 }
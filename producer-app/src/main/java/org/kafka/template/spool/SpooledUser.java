@@ -0,0 +1,10 @@
+package org.kafka.template.spool;
+
+import org.kafka.template.models.User;
+
+/**
+ * A user read from the spool, with the position right after it. The user is {@code null} when the record could
+ * not be decoded; it still has to be committed so the drainer moves past it.
+ */
+public record SpooledUser(User user, long segment, int nextOffset) {
+}
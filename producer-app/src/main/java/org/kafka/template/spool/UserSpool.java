@@ -0,0 +1,411 @@
+package org.kafka.template.spool;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.kafka.template.config.SpoolProperties;
+import org.kafka.template.enums.SpoolMode;
+import org.kafka.template.exceptions.SpoolFullException;
+import org.kafka.template.models.User;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * Append-only, memory-mapped write-ahead log of users that still have to reach Kafka. Users are written as
+ * {@code [length][crc32c][json]} records into fixed-size segment files and forced to disk before
+ * {@link #append(User)} returns. Appends are group committed: the record is written under the lock, but the force
+ * runs outside of it, and covers every record appended while the previous force was running. Only forced records
+ * are handed to the drainer. The checkpoint file holds the position up to which {@link UserSpoolDrainer} has
+ * delivered them. Drained segments are deleted, and appends fail with {@link SpoolFullException} once
+ * max-segments are in use, so disk usage stays bounded.
+ * <p>
+ * The length is written last and the checksum covers the payload. A record torn by a crash is therefore detected
+ * on the next start, and writing continues from there.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${spring.kafka.spool.mode:off}' != 'off'")
+public class UserSpool {
+
+    static final String SEGMENT_PREFIX = "user-spool-";
+    static final String SEGMENT_SUFFIX = ".log";
+    static final String CHECKPOINT_FILE = "user-spool.checkpoint";
+
+    private static final int HEADER_BYTES = 2 * Integer.BYTES;
+    private static final int SEGMENT_END = -1;
+    private static final int NO_RECORD = -1;
+    private static final int CORRUPT_RECORD = -2;
+
+    private final SpoolProperties properties;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final ReentrantLock lock = new ReentrantLock();
+    // Only one force runs at a time; the appends waiting for it are covered by the next one
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final TreeMap<Long, MappedSegment> segments = new TreeMap<>();
+    private final FileChannel checkpointChannel;
+    private final MappedByteBuffer checkpoint;
+    private final AtomicLong depth = new AtomicLong();
+    private final AtomicLong diskBytes = new AtomicLong();
+    private final Counter appendedRecords;
+    private final Counter rejectedRecords;
+    private final Counter corruptRecords;
+    private final Counter forces;
+
+    private long readSegment;
+    private int readOffset;
+    private long writeSegment;
+    private int writeOffset;
+    // Position up to which the records are on disk and visible to poll
+    private long forcedSegment;
+    private int forcedOffset;
+
+    public UserSpool(SpoolProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) throws IOException {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE), CREATE, READ, WRITE);
+        this.checkpoint = checkpointChannel.map(FileChannel.MapMode.READ_WRITE, 0, Long.BYTES + Integer.BYTES);
+
+        this.appendedRecords = Counter.builder("kafka.producer.spool.appended")
+                .description("Users written to the spool")
+                .register(meterRegistry);
+        this.rejectedRecords = Counter.builder("kafka.producer.spool.rejected")
+                .description("Users that could not be spooled because the spool was full")
+                .register(meterRegistry);
+        this.corruptRecords = Counter.builder("kafka.producer.spool.corrupt")
+                .description("Spooled records dropped because their checksum or content was invalid")
+                .register(meterRegistry);
+        this.forces = Counter.builder("kafka.producer.spool.forces")
+                .description("Forces of the spool to disk, each covering the users appended since the previous one")
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.spool.depth", depth, AtomicLong::get)
+                .description("Spooled users waiting to be drained")
+                .register(meterRegistry);
+        Gauge.builder("kafka.producer.spool.disk.bytes", diskBytes, AtomicLong::get)
+                .description("Disk space taken by spool segments")
+                .register(meterRegistry);
+
+        recover();
+    }
+
+    public boolean isStrict() {
+        return properties.getMode() == SpoolMode.STRICT;
+    }
+
+    public long depth() {
+        return depth.get();
+    }
+
+    /**
+     * @throws SpoolFullException when max-segments are in use and the current one has no room left
+     */
+    public void append(User user) {
+        byte[] payload;
+        try {
+            payload = objectMapper.writeValueAsBytes(user);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("User cannot be spooled", e);
+        }
+        int size = HEADER_BYTES + payload.length;
+        long segmentId;
+        int end;
+
+        lock.lock();
+        try {
+            MappedSegment segment = segments.get(writeSegment);
+            // Room is always kept for the marker that ends the records of a segment
+            if (writeOffset + size + Integer.BYTES > segment.buffer().capacity()) {
+                if (size + Integer.BYTES > properties.getSegmentBytes()) {
+                    throw new IllegalArgumentException("User of " + size + " bytes does not fit a spool segment");
+                }
+                if (segments.size() >= properties.getMaxSegments()) {
+                    rejectedRecords.increment();
+                    throw new SpoolFullException("Spool is full with " + depth.get() + " users waiting to be drained");
+                }
+                segment.buffer().putInt(writeOffset, SEGMENT_END);
+                writeSegment++;
+                writeOffset = 0;
+                segment = openSegment(writeSegment);
+                segments.put(writeSegment, segment);
+            }
+
+            MappedByteBuffer buffer = segment.buffer();
+            buffer.put(writeOffset + HEADER_BYTES, payload);
+            buffer.putInt(writeOffset + Integer.BYTES, checksum(ByteBuffer.wrap(payload)));
+            buffer.putInt(writeOffset, payload.length);
+            buffer.putInt(writeOffset + size, 0);
+            writeOffset += size;
+            segmentId = writeSegment;
+            end = writeOffset;
+
+            depth.incrementAndGet();
+            appendedRecords.increment();
+        } finally {
+            lock.unlock();
+        }
+        forceUpTo(segmentId, end);
+    }
+
+    /**
+     * Forces everything appended so far, unless a force that started after this record was written already did.
+     */
+    private void forceUpTo(long segmentId, int offset) {
+        forceLock.lock();
+        try {
+            // Only changed while holding the force lock, so it can be read without the other one
+            if (forcedSegment > segmentId || forcedSegment == segmentId && forcedOffset >= offset) {
+                return;
+            }
+            List<MappedSegment> toForce;
+            long toSegment;
+            int toOffset;
+            lock.lock();
+            try {
+                toSegment = writeSegment;
+                toOffset = writeOffset;
+                toForce = List.copyOf(segments.subMap(forcedSegment, true, toSegment, true).values());
+            } finally {
+                lock.unlock();
+            }
+
+            for (int i = 0; i < toForce.size(); i++) {
+                MappedByteBuffer buffer = toForce.get(i).buffer();
+                int from = i == 0 ? forcedOffset : 0;
+                // Up to the marker after the last record, or the end of a segment that was rolled over
+                int to = i == toForce.size() - 1 ? toOffset + Integer.BYTES : buffer.capacity();
+                buffer.force(from, to - from);
+            }
+            forces.increment();
+
+            lock.lock();
+            try {
+                forcedSegment = toSegment;
+                forcedOffset = toOffset;
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    /**
+     * Returns up to {@code maxRecords} users in the order they were appended, starting after the last commit,
+     * waiting up to {@code timeoutMs} for one to arrive. Nothing is removed until {@link #commit} is called.
+     */
+    public List<SpooledUser> poll(int maxRecords, long timeoutMs) throws InterruptedException {
+        lock.lock();
+        try {
+            if (caughtUp(readSegment, readOffset)) {
+                appended.await(timeoutMs, TimeUnit.MILLISECONDS);
+            }
+            List<SpooledUser> batch = new ArrayList<>();
+            long segmentId = readSegment;
+            int offset = readOffset;
+            while (batch.size() < maxRecords && !caughtUp(segmentId, offset)) {
+                MappedByteBuffer buffer = segments.get(segmentId).buffer();
+                int length = recordLength(buffer, offset);
+                if (length < 0) {
+                    if (segmentId == forcedSegment) {
+                        break;
+                    }
+                    segmentId = segments.higherKey(segmentId);
+                    offset = 0;
+                    continue;
+                }
+                byte[] payload = new byte[length];
+                buffer.get(offset + HEADER_BYTES, payload);
+                offset += HEADER_BYTES + length;
+                batch.add(new SpooledUser(decode(payload), segmentId, offset));
+            }
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Marks every user up to and including {@code last} as delivered, {@code count} of them since the previous
+     * commit, and deletes the segments that no longer hold undelivered users.
+     */
+    public void commit(SpooledUser last, int count) {
+        lock.lock();
+        try {
+            readSegment = last.segment();
+            readOffset = last.nextOffset();
+            checkpoint.putLong(0, readSegment).putInt(Long.BYTES, readOffset);
+            checkpoint.force();
+            depth.addAndGet(-count);
+
+            while (segments.firstKey() < readSegment) {
+                deleteSegment(segments.pollFirstEntry().getValue());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            for (MappedSegment segment : segments.values()) {
+                segment.channel().close();
+            }
+            checkpointChannel.close();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recover() throws IOException {
+        readSegment = checkpoint.getLong(0);
+        readOffset = checkpoint.getInt(Long.BYTES);
+
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Long> ids = files.map(UserSpool::segmentId).filter(Objects::nonNull).sorted().toList();
+            for (long id : ids) {
+                if (id < readSegment) {
+                    Files.delete(segmentPath(id));
+                } else {
+                    segments.put(id, openSegment(id));
+                }
+            }
+        }
+        if (segments.isEmpty() || segments.firstKey() > readSegment) {
+            readSegment = segments.isEmpty() ? readSegment : segments.firstKey();
+            readOffset = 0;
+            segments.putIfAbsent(readSegment, openSegment(readSegment));
+        }
+
+        long pending = 0;
+        for (Map.Entry<Long, MappedSegment> entry : segments.entrySet()) {
+            MappedByteBuffer buffer = entry.getValue().buffer();
+            int offset = entry.getKey() == readSegment ? readOffset : 0;
+            int length;
+            while ((length = recordLength(buffer, offset)) >= 0) {
+                offset += HEADER_BYTES + length;
+                pending++;
+            }
+            if (length == CORRUPT_RECORD) {
+                corruptRecords.increment();
+                log.warn("Spool segment {} has a torn or corrupt record at offset {}, ignoring the rest of it",
+                        entry.getKey(), offset);
+            }
+            writeSegment = entry.getKey();
+            writeOffset = offset;
+        }
+        forcedSegment = writeSegment;
+        forcedOffset = writeOffset;
+        depth.set(pending);
+        log.info("Opened user spool in {} with {} users waiting to be drained", directory.toAbsolutePath(), pending);
+    }
+
+    private int recordLength(ByteBuffer buffer, int offset) {
+        if (offset + HEADER_BYTES > buffer.capacity()) {
+            return NO_RECORD;
+        }
+        int length = buffer.getInt(offset);
+        if (length == 0 || length == SEGMENT_END) {
+            return NO_RECORD;
+        }
+        if (length < 0 || offset + HEADER_BYTES + length > buffer.capacity()
+                || checksum(buffer.slice(offset + HEADER_BYTES, length)) != buffer.getInt(offset + Integer.BYTES)) {
+            return CORRUPT_RECORD;
+        }
+        return length;
+    }
+
+    private boolean caughtUp(long segmentId, int offset) {
+        return segmentId == forcedSegment && offset == forcedOffset;
+    }
+
+    private User decode(byte[] payload) {
+        try {
+            return objectMapper.readValue(payload, User.class);
+        } catch (IOException e) {
+            corruptRecords.increment();
+            log.error("Dropping spooled user that cannot be read: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private MappedSegment openSegment(long id) {
+        Path path = segmentPath(id);
+        try {
+            FileChannel channel = FileChannel.open(path, CREATE, READ, WRITE);
+            long size = Math.max(channel.size(), properties.getSegmentBytes());
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            diskBytes.addAndGet(size);
+            return new MappedSegment(path, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Spool segment " + path + " could not be opened", e);
+        }
+    }
+
+    private void deleteSegment(MappedSegment segment) {
+        try {
+            segment.channel().close();
+            Files.delete(segment.path());
+            diskBytes.addAndGet(-segment.buffer().capacity());
+        } catch (IOException e) {
+            log.warn("Drained spool segment {} could not be deleted: {}", segment.path(), e.getMessage());
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+    }
+
+    private static Long segmentId(Path path) {
+        String name = path.getFileName().toString();
+        if (!name.startsWith(SEGMENT_PREFIX) || !name.endsWith(SEGMENT_SUFFIX)) {
+            return null;
+        }
+        try {
+            return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static int checksum(ByteBuffer payload) {
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    private record MappedSegment(Path path, FileChannel channel, MappedByteBuffer buffer) {
+    }
+}
@@ -0,0 +1,162 @@
+package org.kafka.template.spool;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.kafka.common.errors.RetriableException;
+import org.kafka.template.config.SpoolProperties;
+import org.kafka.template.kafka.UserRecordKeys;
+import org.kafka.template.models.User;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Replays spooled users to the user-created topic, in the order they were spooled, on a thread of its own. A batch
+ * is committed up to its first failed send. The rest of it is retried after drain-backoff-ms, so the drainer keeps
+ * probing until the broker is reachable again. A user the broker will never accept is dropped, so it cannot block
+ * the spool.
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${spring.kafka.spool.mode:off}' != 'off'")
+public class UserSpoolDrainer implements SmartLifecycle {
+
+    private final UserSpool userSpool;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final SpoolProperties properties;
+    private final Counter drainedRecords;
+    private final Counter droppedRecords;
+    private volatile Thread drainer;
+
+    @Value("${spring.kafka.topics.user-created}")
+    private String userCreatedTopic;
+
+    public UserSpoolDrainer(UserSpool userSpool, @Qualifier("jsonKafkaTemplate") KafkaTemplate<String, Object> kafkaTemplate,
+                            SpoolProperties properties, MeterRegistry meterRegistry) {
+        this.userSpool = userSpool;
+        this.kafkaTemplate = kafkaTemplate;
+        this.properties = properties;
+        this.drainedRecords = Counter.builder("kafka.producer.spool.drained")
+                .description("Spooled users delivered to Kafka")
+                .register(meterRegistry);
+        this.droppedRecords = Counter.builder("kafka.producer.spool.dropped")
+                .description("Spooled users dropped because the broker rejected them for good")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void start() {
+        drainer = Thread.ofPlatform().name("user-spool-drainer").daemon().start(this::drain);
+    }
+
+    @Override
+    public void stop() {
+        Thread thread = drainer;
+        drainer = null;
+        if (thread != null) {
+            thread.interrupt();
+            try {
+                thread.join(properties.getDrainSendTimeoutMs());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return drainer != null;
+    }
+
+    private void drain() {
+        log.info("Draining user spool, {} users waiting", userSpool.depth());
+        while (drainer != null) {
+            try {
+                if (!drainBatch()) {
+                    Thread.sleep(properties.getDrainBackoffMs());
+                }
+            } catch (InterruptedException e) {
+                return;
+            } catch (RuntimeException e) {
+                log.error("Draining the user spool failed: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Sends the next batch and commits its delivered prefix.
+     *
+     * @return {@code false} when a user of the batch could not be delivered yet
+     */
+    boolean drainBatch() throws InterruptedException {
+        List<SpooledUser> batch = userSpool.poll(properties.getDrainBatchSize(), properties.getDrainIdleMs());
+        if (batch.isEmpty()) {
+            return true;
+        }
+
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(batch.size());
+        try {
+            for (SpooledUser spooled : batch) {
+                User user = spooled.user();
+                sends.add(user == null ? null : kafkaTemplate.send(userCreatedTopic, UserRecordKeys.keyOf(user), user));
+            }
+        } catch (RuntimeException e) {
+            // Typically max.block.ms running out while the broker is down, the sends made so far are still awaited
+            log.warn("Spooled user could not be sent: {}", e.getMessage());
+        }
+
+        int done = 0;
+        int delivered = 0;
+        for (CompletableFuture<SendResult<String, Object>> send : sends) {
+            Delivery delivery = send == null ? Delivery.DROPPED : awaitDelivery(send);
+            if (delivery == Delivery.RETRY) {
+                break;
+            }
+            done++;
+            delivered += delivery == Delivery.DELIVERED ? 1 : 0;
+        }
+
+        if (done > 0) {
+            userSpool.commit(batch.get(done - 1), done);
+            drainedRecords.increment(delivered);
+        }
+        return done == batch.size();
+    }
+
+    private Delivery awaitDelivery(CompletableFuture<SendResult<String, Object>> send) throws InterruptedException {
+        try {
+            send.get(properties.getDrainSendTimeoutMs(), TimeUnit.MILLISECONDS);
+            return Delivery.DELIVERED;
+        } catch (TimeoutException e) {
+            log.warn("Spooled user was not acknowledged in time, retrying later");
+            return Delivery.RETRY;
+        } catch (ExecutionException e) {
+            if (ExceptionUtils.indexOfType(e, RetriableException.class) >= 0) {
+                log.warn("Spooled user could not be delivered, retrying later: {}", ExceptionUtils.getRootCauseMessage(e));
+                return Delivery.RETRY;
+            }
+            droppedRecords.increment();
+            log.error("Dropping spooled user rejected by the broker: {}", ExceptionUtils.getRootCauseMessage(e));
+            return Delivery.DROPPED;
+        }
+    }
+
+    private enum Delivery {
+        DELIVERED,
+        RETRY,
+        DROPPED
+    }
+}
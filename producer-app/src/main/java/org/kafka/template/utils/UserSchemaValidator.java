@@ -0,0 +1,121 @@
+package org.kafka.template.utils;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import io.confluent.kafka.schemaregistry.json.JsonSchema;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.everit.json.schema.ValidationException;
+import org.kafka.template.exceptions.InvalidUserException;
+import org.kafka.template.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Validates users against the user-created schema before any Kafka work is done. The schema is compiled once, from
+ * the latest registry version or, if the registry is unreachable, from the schema bundled in common-module, and is
+ * only compiled again when the registry reports a new version.
+ */
+@Slf4j
+@Component
+public class UserSchemaValidator {
+
+    static final String BUNDLED_SCHEMA = "schemas/user-schema.json";
+    static final int BUNDLED_VERSION = 0;
+
+    private final SchemaRegistryClient schemaRegistryClient;
+    private final ObjectMapper objectMapper;
+    private volatile CompiledSchema current;
+
+    @Value("${spring.kafka.topics.user-created}")
+    private String userCreatedTopic;
+
+    public UserSchemaValidator(SchemaRegistryClient schemaRegistryClient, ObjectMapper objectMapper) {
+        this.schemaRegistryClient = schemaRegistryClient;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void load() {
+        current = fetchLatest().orElseGet(UserSchemaValidator::compileBundled);
+        log.info("Compiled user schema version {}", current.version());
+    }
+
+    @Scheduled(fixedDelayString = "${spring.kafka.schema-validation.refresh-interval-ms:60000}",
+            initialDelayString = "${spring.kafka.schema-validation.refresh-interval-ms:60000}")
+    public void refresh() {
+        fetchLatest()
+                .filter(latest -> latest.version() != current.version())
+                .ifPresent(latest -> {
+                    log.info("User schema changed from version {} to {}", current.version(), latest.version());
+                    current = latest;
+                });
+    }
+
+    public int version() {
+        return current.version();
+    }
+
+    /**
+     * @throws InvalidUserException listing every violation, without the cost of a stack trace
+     */
+    public void validate(User user) {
+        try {
+            JsonNode node = objectMapper.valueToTree(user);
+            current.schema().validate(node);
+        } catch (ValidationException e) {
+            throw new InvalidUserException(violations(e));
+        } catch (Exception e) {
+            throw new InvalidUserException(List.of(ExceptionUtils.getRootCauseMessage(e)));
+        }
+    }
+
+    public static List<String> violations(ValidationException e) {
+        List<String> violations = e.getCausingExceptions().stream()
+                .sorted(Comparator.comparing(ValidationException::getPointerToViolation))
+                .map(ValidationException::getMessage)
+                .toList();
+        return violations.isEmpty() ? List.of(e.getMessage()) : violations;
+    }
+
+    private Optional<CompiledSchema> fetchLatest() {
+        try {
+            SchemaMetadata metadata = schemaRegistryClient.getLatestSchemaMetadata(userCreatedTopic + "-value");
+            return Optional.of(compile(metadata.getSchema(), metadata.getVersion()));
+        } catch (IOException | RestClientException e) {
+            log.warn("Could not fetch the latest user schema from the registry: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static CompiledSchema compileBundled() {
+        try {
+            return compile(new ClassPathResource(BUNDLED_SCHEMA).getContentAsString(StandardCharsets.UTF_8), BUNDLED_VERSION);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Bundled user schema " + BUNDLED_SCHEMA + " could not be read", e);
+        }
+    }
+
+    private static CompiledSchema compile(String rawSchema, int version) {
+        JsonSchema schema = new JsonSchema(rawSchema);
+        // Parses and compiles the schema now, instead of on the first request
+        schema.rawSchema();
+        return new CompiledSchema(schema, version);
+    }
+
+    private record CompiledSchema(JsonSchema schema, int version) {
+    }
+}
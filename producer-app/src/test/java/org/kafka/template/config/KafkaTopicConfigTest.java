@@ -0,0 +1,63 @@
+package org.kafka.template.config;
+
+import org.apache.kafka.clients.admin.NewTopic;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.env.YamlPropertySourceLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.kafka.core.KafkaAdmin;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KafkaTopicConfigTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withInitializer(context -> applicationYaml().forEach(context.getEnvironment().getPropertySources()::addLast))
+            // Binds the topic without creating it on a broker
+            .withBean(BeanPostProcessor.class, () -> new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    if (bean instanceof KafkaAdmin kafkaAdmin) {
+                        kafkaAdmin.setAutoCreate(false);
+                    }
+                    return bean;
+                }
+            })
+            .withUserConfiguration(KafkaTopicConfig.class);
+
+    @Test
+    void userCreatedTopic_Defaults_ShouldHaveOnePartitionAndReplica() {
+        contextRunner.run(context -> {
+            NewTopic topic = context.getBean("userCreatedTopic", NewTopic.class);
+
+            assertEquals("user-created", topic.name());
+            assertEquals(1, topic.numPartitions());
+            assertEquals(1, topic.replicationFactor());
+        });
+    }
+
+    @Test
+    void userCreatedTopic_EnvironmentVariables_ShouldSetPartitionsAndReplicas() {
+        contextRunner
+                .withPropertyValues("USER_CREATED_PARTITIONS=6", "USER_CREATED_REPLICAS=3")
+                .run(context -> {
+                    NewTopic topic = context.getBean("userCreatedTopic", NewTopic.class);
+
+                    assertEquals(6, topic.numPartitions());
+                    assertEquals(3, topic.replicationFactor());
+                });
+    }
+
+    private static List<PropertySource<?>> applicationYaml() {
+        try {
+            return new YamlPropertySourceLoader().load("application.yml", new ClassPathResource("application.yml"));
+        } catch (IOException e) {
+            throw new IllegalStateException("application.yml could not be read", e);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package org.kafka.template.controller;
 
 import org.kafka.template.dtos.GenericResponseDto;
+import org.kafka.template.dtos.UserBatchRejectionDto;
+import org.kafka.template.dtos.UserBatchResponseDto;
 import org.kafka.template.dtos.UserCreatedRequestDto;
 import org.kafka.template.dtos.UserCreatedResponseDto;
 import org.kafka.template.enums.GenericResponseStatus;
+import org.kafka.template.enums.ProducerOverloadReason;
+import org.kafka.template.exceptions.ProducerOverloadedException;
 import org.kafka.template.kafka.UserProducer;
 import org.kafka.template.models.User;
 import static org.mockito.Mockito.*;
@@ -21,6 +25,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @WebMvcTest(UserController.class)
 public class UserControllerTest {
@@ -83,4 +92,113 @@ public class UserControllerTest {
         // Verify the interaction with the userProducer
         verify(userService, times(1)).sendUser(any(UserCreatedRequestDto.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void createUser_ShouldKeepNullUserFieldsAndOmitDeliveryFields() throws Exception {
+        // Arrange
+        UserCreatedRequestDto userDto = UserCreatedRequestDto.builder().id(1).name("John Doe").build();
+
+        when(userService.sendUser(any(UserCreatedRequestDto.class)))
+                .thenReturn(GenericResponseDto.<UserCreatedResponseDto>builder()
+                        .data(UserCreatedResponseDto.builder().id(1).name("John Doe").build())
+                        .status(GenericResponseStatus.SUCCESS)
+                        .build());
+
+        // Act & Assert
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isOk())
+                .andExpect(content().json("{\"data\":{\"id\":1,\"name\":\"John Doe\",\"email\":null,\"age\":null}}"))
+                .andExpect(jsonPath("$.data.partition").doesNotExist())
+                .andExpect(jsonPath("$.data.offset").doesNotExist());
+    }
+
+    @Test
+    void createUsers_ShouldStreamBodyToServiceAndReturnBatchResult() throws Exception {
+        // Arrange
+        GenericResponseDto<UserBatchResponseDto> batchResponseDto = GenericResponseDto.<UserBatchResponseDto>builder()
+                .data(UserBatchResponseDto.builder()
+                        .received(2)
+                        .accepted(1)
+                        .rejected(1)
+                        .rejections(List.of(UserBatchRejectionDto.builder().index(1).error("#/name: expected type: String").build()))
+                        .build())
+                .status(GenericResponseStatus.PARTIAL_SUCCESS)
+                .build();
+
+        when(userService.sendUsers(any(InputStream.class))).thenReturn(batchResponseDto);
+
+        // Act & Assert
+        mockMvc.perform(post("/users/batch")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{\"id\":1,\"name\":\"John Doe\"}\n{\"id\":2}\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(batchResponseDto)));
+
+        verify(userService, times(1)).sendUsers(any(InputStream.class));
+    }
+
+    @Test
+    void createUser_WithConfirmedDeliveryHeader_ShouldRespondAsynchronouslyOnAck() throws Exception {
+        // Arrange
+        UserCreatedRequestDto userDto = UserCreatedRequestDto.builder().id(1).name("John Doe").build();
+
+        GenericResponseDto<UserCreatedResponseDto> confirmedResponseDto = GenericResponseDto.<UserCreatedResponseDto>builder()
+                .data(UserCreatedResponseDto.builder().id(1).name("John Doe").partition(0).offset(7L).build())
+                .status(GenericResponseStatus.SUCCESS)
+                .build();
+
+        when(userService.sendUserConfirmed(any(UserCreatedRequestDto.class)))
+                .thenReturn(CompletableFuture.completedFuture(confirmedResponseDto));
+
+        // Act
+        MvcResult mvcResult = mockMvc.perform(post("/users")
+                        .header(UserController.DELIVERY_MODE_HEADER, UserController.DELIVERY_MODE_CONFIRMED)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        // Assert
+        mockMvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().json(objectMapper.writeValueAsString(confirmedResponseDto)));
+
+        verify(userService, times(1)).sendUserConfirmed(any(UserCreatedRequestDto.class));
+        verify(userService, never()).sendUser(any(UserCreatedRequestDto.class));
+    }
+
+    @Test
+    void createUser_WhenProducerIsOverloaded_ShouldShedWithRetryAfter() throws Exception {
+        // Arrange
+        UserCreatedRequestDto userDto = UserCreatedRequestDto.builder().id(1).name("John Doe").build();
+
+        when(userService.sendUser(any(UserCreatedRequestDto.class)))
+                .thenThrow(new ProducerOverloadedException(ProducerOverloadReason.CONCURRENCY_LIMIT, 1));
+
+        // Act & Assert
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "1"))
+                .andExpect(jsonPath("$.status").value(429));
+    }
+
+    @Test
+    void createUser_WhenProducerBufferIsExhausted_ShouldReturnServiceUnavailable() throws Exception {
+        // Arrange
+        UserCreatedRequestDto userDto = UserCreatedRequestDto.builder().id(1).name("John Doe").build();
+
+        when(userService.sendUser(any(UserCreatedRequestDto.class)))
+                .thenThrow(new ProducerOverloadedException(ProducerOverloadReason.BUFFER_EXHAUSTED, 2));
+
+        // Act & Assert
+        mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(userDto)))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+}
@@ -0,0 +1,175 @@
+package org.kafka.template.controller;
+
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.config.ReactiveRouterConfig;
+import org.kafka.template.dtos.UserCreatedRequestDto;
+import org.kafka.template.exceptions.InvalidUserException;
+import org.kafka.template.kafka.ReactiveUserProducer;
+import org.kafka.template.mapper.UserMapperImpl;
+import org.kafka.template.models.User;
+import org.kafka.template.utils.UserSchemaValidator;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.kafka.sender.SenderResult;
+import reactor.util.function.Tuple2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.kafka.template.creators.SenderResultCreator.senderResult;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserHandlerTest {
+
+    @Mock
+    private ReactiveUserProducer reactiveUserProducer;
+
+    @Mock
+    private UserSchemaValidator userSchemaValidator;
+
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void setUp() {
+        UserHandler userHandler = new UserHandler(reactiveUserProducer, new UserMapperImpl(), userSchemaValidator);
+        webTestClient = WebTestClient.bindToRouterFunction(new ReactiveRouterConfig().userRoutes(userHandler)).build();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUser_ShouldRespondWithPartitionAndOffsetOnAck() {
+        // Given
+        when(reactiveUserProducer.sendUsers(any())).thenAnswer(invocation -> ((Flux<Tuple2<Long, User>>) invocation.getArgument(0))
+                .map(indexed -> senderResult(indexed.getT1(), null)));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(UserCreatedRequestDto.builder().id(1).name("John Doe").build())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("SUCCESS")
+                .jsonPath("$.data.id").isEqualTo(1)
+                .jsonPath("$.data.partition").isEqualTo(0)
+                .jsonPath("$.data.offset").isEqualTo(10);
+    }
+
+    @Test
+    void createUser_ShouldReturnBadRequestWithoutSendingWhenSchemaValidationFails() {
+        // Given
+        doThrow(new InvalidUserException(List.of("#/name: expected type: String, found: Null")))
+                .when(userSchemaValidator).validate(any(User.class));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(UserCreatedRequestDto.builder().id(1).build())
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(400)
+                .jsonPath("$.errors[0]").isEqualTo("#/name: expected type: String, found: Null")
+                .jsonPath("$.path").isEqualTo("/users")
+                .jsonPath("$.method").isEqualTo("POST");
+
+        verifyNoInteractions(reactiveUserProducer);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUser_ShouldReturnServiceUnavailableWhenSendFails() {
+        // Given
+        when(reactiveUserProducer.sendUsers(any())).thenAnswer(invocation -> ((Flux<Tuple2<Long, User>>) invocation.getArgument(0))
+                .map(indexed -> senderResult(indexed.getT1(), new TimeoutException("Expiring 1 record(s)"))));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/users")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(UserCreatedRequestDto.builder().id(1).name("John Doe").build())
+                .exchange()
+                .expectStatus().isEqualTo(503);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUsers_ShouldSummarizeStreamedRecords() {
+        // Given the second record fails validation and the third fails on the producer
+        lenient().doThrow(new InvalidUserException(List.of("#/name: expected type: String, found: Null")))
+                .when(userSchemaValidator).validate(argThat(user -> user.getName() == null));
+        when(reactiveUserProducer.sendUsers(any())).thenAnswer(invocation -> ((Flux<Tuple2<Long, User>>) invocation.getArgument(0))
+                .map(indexed -> senderResult(indexed.getT1(),
+                        indexed.getT1() == 2L ? new TimeoutException("Expiring 1 record(s)") : null)));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/users/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"id\":1,\"name\":\"John Doe\"}\n{\"id\":2}\n{\"id\":3,\"name\":\"Jim Doe\"}\n".getBytes(StandardCharsets.UTF_8))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("PARTIAL_SUCCESS")
+                .jsonPath("$.data.received").isEqualTo(3)
+                .jsonPath("$.data.accepted").isEqualTo(1)
+                .jsonPath("$.data.rejections[0].index").isEqualTo(1)
+                .jsonPath("$.data.rejections[1].index").isEqualTo(2);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUsers_ShouldStopAtMalformedRecord() {
+        // Given
+        when(reactiveUserProducer.sendUsers(any())).thenAnswer(invocation -> ((Flux<Tuple2<Long, User>>) invocation.getArgument(0))
+                .map(indexed -> senderResult(indexed.getT1(), null)));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/users/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"id\":1,\"name\":\"John Doe\"}\n{\"id\":\n".getBytes(StandardCharsets.UTF_8))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("PARTIAL_SUCCESS")
+                .jsonPath("$.data.accepted").isEqualTo(1)
+                .jsonPath("$.data.rejections[0].index").isEqualTo(1);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void createUsers_MalformedRecordWhileSendsAreUnacknowledged_ShouldCountEveryRecordRead() {
+        // Given the acknowledgements of the first two records have not arrived yet
+        when(reactiveUserProducer.sendUsers(any())).thenAnswer(invocation -> ((Flux<Tuple2<Long, User>>) invocation.getArgument(0))
+                .flatMap(indexed -> Mono.<SenderResult<Long>>never()));
+
+        // When & Then
+        webTestClient.post()
+                .uri("/users/stream")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .bodyValue("{\"id\":1,\"name\":\"John Doe\"}\n{\"id\":2,\"name\":\"Jane Doe\"}\n{\"id\":\n".getBytes(StandardCharsets.UTF_8))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("FAILURE")
+                .jsonPath("$.data.received").isEqualTo(3)
+                .jsonPath("$.data.accepted").isEqualTo(0)
+                .jsonPath("$.data.rejections[0].index").isEqualTo(2);
+    }
+}
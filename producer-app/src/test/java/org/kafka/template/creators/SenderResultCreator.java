@@ -0,0 +1,30 @@
+package org.kafka.template.creators;
+
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import reactor.kafka.sender.SenderResult;
+
+public class SenderResultCreator {
+
+    public static <T> SenderResult<T> senderResult(T correlationMetadata, Exception exception) {
+        RecordMetadata metadata = exception == null
+                ? new RecordMetadata(new TopicPartition("user-created-topic", 0), 10L, 0, 0L, 0, 0)
+                : null;
+        return new SenderResult<>() {
+            @Override
+            public RecordMetadata recordMetadata() {
+                return metadata;
+            }
+
+            @Override
+            public Exception exception() {
+                return exception;
+            }
+
+            @Override
+            public T correlationMetadata() {
+                return correlationMetadata;
+            }
+        };
+    }
+}
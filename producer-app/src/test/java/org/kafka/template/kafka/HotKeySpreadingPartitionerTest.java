@@ -0,0 +1,82 @@
+package org.kafka.template.kafka;
+
+import org.apache.kafka.common.Cluster;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.utils.Utils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeySpreadingPartitionerTest {
+
+    private static final String TOPIC = "user-created";
+    private static final int PARTITIONS = 6;
+
+    private HotKeySpreadingPartitioner partitioner;
+    private Cluster cluster;
+
+    @BeforeEach
+    void setUp() {
+        Node node = new Node(0, "localhost", 9092);
+        List<PartitionInfo> partitions = IntStream.range(0, PARTITIONS)
+                .mapToObj(partition -> new PartitionInfo(TOPIC, partition, node, new Node[]{node}, new Node[]{node}))
+                .toList();
+        cluster = new Cluster("cluster", List.of(node), partitions, Set.of(), Set.of());
+
+        partitioner = new HotKeySpreadingPartitioner();
+        partitioner.configure(Map.of(
+                HotKeySpreadingPartitioner.HOT_KEYS_CONFIG, "42, 7",
+                HotKeySpreadingPartitioner.HOT_KEY_SPREAD_CONFIG, 3));
+    }
+
+    @Test
+    void partition_RegularKeyAlwaysMapsToItsBuiltInPartition() {
+        byte[] keyBytes = "1".getBytes(StandardCharsets.UTF_8);
+        int expected = Utils.toPositive(Utils.murmur2(keyBytes)) % PARTITIONS;
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(expected, partitioner.partition(TOPIC, "1", keyBytes, null, null, cluster));
+        }
+    }
+
+    @Test
+    void partition_HotKeyIsSpreadOverConfiguredNumberOfPartitions() {
+        byte[] keyBytes = "42".getBytes(StandardCharsets.UTF_8);
+        int home = Utils.toPositive(Utils.murmur2(keyBytes)) % PARTITIONS;
+
+        Set<Integer> used = new HashSet<>();
+        for (int i = 0; i < 9; i++) {
+            used.add(partitioner.partition(TOPIC, "42", keyBytes, null, null, cluster));
+        }
+
+        assertEquals(Set.of(home, (home + 1) % PARTITIONS, (home + 2) % PARTITIONS), used);
+    }
+
+    @Test
+    void partition_NullKeyPicksAnExistingPartition() {
+        int partition = partitioner.partition(TOPIC, null, null, null, null, cluster);
+
+        assertTrue(partition >= 0 && partition < PARTITIONS);
+    }
+
+    @Test
+    void configure_AcceptsListOfHotKeysAndDefaultsToNoSpread() {
+        HotKeySpreadingPartitioner listConfigured = new HotKeySpreadingPartitioner();
+        listConfigured.configure(Map.of(HotKeySpreadingPartitioner.HOT_KEYS_CONFIG, List.of("42")));
+        byte[] keyBytes = "42".getBytes(StandardCharsets.UTF_8);
+        int home = Utils.toPositive(Utils.murmur2(keyBytes)) % PARTITIONS;
+
+        assertEquals(home, listConfigured.partition(TOPIC, "42", keyBytes, null, null, cluster));
+        assertEquals(home, listConfigured.partition(TOPIC, "42", keyBytes, null, null, cluster));
+        listConfigured.close();
+    }
+}
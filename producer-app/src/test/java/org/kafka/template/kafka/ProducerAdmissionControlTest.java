@@ -0,0 +1,258 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.Metric;
+import org.apache.kafka.common.MetricName;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.AdmissionControlProperties;
+import org.kafka.template.enums.ProducerOverloadReason;
+import org.kafka.template.exceptions.ProducerOverloadedException;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ProducerAdmissionControlTest extends BaseLogTest {
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    private AdmissionControlProperties properties;
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new AdmissionControlProperties();
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        properties.setMaxLimit(3);
+        properties.setBackoffRatio(0.5);
+        properties.setLatencyTargetMs(250);
+        properties.setRetryAfterSeconds(2);
+        meterRegistry = new SimpleMeterRegistry();
+        setUpLogger(ProducerAdmissionControl.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void acquire_RejectsWithTooManyRequestsOnceLimitIsReached() {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+        admissionControl.acquire();
+        admissionControl.acquire();
+
+        // When
+        ProducerOverloadedException exception = assertThrows(ProducerOverloadedException.class, admissionControl::acquire);
+
+        // Then
+        assertEquals(ProducerOverloadReason.CONCURRENCY_LIMIT, exception.getReason());
+        assertEquals(2, exception.getRetryAfterSeconds());
+        assertEquals(2, admissionControl.inFlight());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.admission.rejected").tag("reason", "concurrency_limit").counter().count());
+    }
+
+    @Test
+    void acquireWithWait_LimitReached_ShouldStartOnceASendEnds() throws Exception {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+        admissionControl.acquire();
+        admissionControl.acquire();
+        long startNanos = System.nanoTime();
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> admissionControl.acquire(5000));
+
+        // When
+        Thread.sleep(50);
+        assertFalse(waiting.isDone());
+        admissionControl.release(startNanos, false);
+
+        // Then
+        waiting.get(1, TimeUnit.SECONDS);
+        assertEquals(2, admissionControl.inFlight());
+        assertEquals(0.0, meterRegistry.get("kafka.producer.admission.rejected").tag("reason", "concurrency_limit").counter().count());
+    }
+
+    @Test
+    void release_ConcurrentFastAcks_ShouldNotLoseLimitUpdates() throws Exception {
+        // Given
+        properties.setMaxLimit(1000);
+        ProducerAdmissionControl admissionControl = admissionControl();
+        double expected = 2;
+        for (int i = 0; i < 100; i++) {
+            expected += 1 / expected;
+        }
+
+        // When virtual threads release at the same time
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 100; i++) {
+                executor.submit(() -> admissionControl.release(System.nanoTime(), false));
+            }
+        }
+
+        // Then every ack raised the limit by 1/limit
+        assertEquals(expected, admissionControl.limit(), 1e-9);
+    }
+
+    @Test
+    void acquireWithWait_NoRoomInTime_ShouldShed() {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+        admissionControl.acquire();
+        admissionControl.acquire();
+
+        // When
+        ProducerOverloadedException exception = assertThrows(ProducerOverloadedException.class, () -> admissionControl.acquire(20));
+
+        // Then
+        assertEquals(ProducerOverloadReason.CONCURRENCY_LIMIT, exception.getReason());
+        assertEquals(2, admissionControl.inFlight());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.admission.rejected").tag("reason", "concurrency_limit").counter().count());
+    }
+
+    @Test
+    void acquire_OnlyCountsWhenDisabled() {
+        // Given
+        properties.setEnabled(false);
+        ProducerAdmissionControl admissionControl = admissionControl();
+
+        // When
+        for (int i = 0; i < 5; i++) {
+            admissionControl.acquire();
+        }
+
+        // Then
+        assertEquals(5, admissionControl.inFlight());
+        assertEquals(5.0, meterRegistry.get("kafka.producer.admission.in.flight").gauge().value());
+    }
+
+    @Test
+    void release_GrowsLimitAdditivelyOnFastAcks() {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+
+        // When two fast acknowledgements arrive
+        admissionControl.acquire();
+        admissionControl.release(System.nanoTime(), false);
+        admissionControl.acquire();
+        admissionControl.release(System.nanoTime(), false);
+
+        // Then the limit grows by 1/limit per ack, capped at the maximum
+        assertEquals(2.9, admissionControl.limit(), 0.01);
+        assertEquals(0, admissionControl.inFlight());
+        admissionControl.acquire();
+        admissionControl.release(System.nanoTime(), false);
+        assertEquals(3.0, admissionControl.limit());
+    }
+
+    @Test
+    void release_ShrinksLimitMultiplicativelyOncePerLatencyTarget() {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+        long slowStart = System.nanoTime() - TimeUnit.SECONDS.toNanos(1);
+
+        // When two slow acknowledgements arrive together
+        admissionControl.acquire();
+        admissionControl.acquire();
+        admissionControl.release(slowStart, false);
+        admissionControl.release(slowStart, false);
+
+        // Then the limit is only halved once
+        assertEquals(1.0, admissionControl.limit());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.admission.limit").gauge().value());
+    }
+
+    @Test
+    void release_ShrinksLimitOnFailure() {
+        // Given
+        properties.setInitialLimit(3);
+        ProducerAdmissionControl admissionControl = admissionControl();
+
+        // When
+        admissionControl.acquire();
+        admissionControl.release(System.nanoTime(), true);
+
+        // Then
+        assertEquals(1.5, admissionControl.limit());
+    }
+
+    @Test
+    void sampleProducerMetrics_ShedsWhileBufferIsExhausted() {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+        Map<MetricName, Metric> metrics = producerMetrics(1_000, 100_000, Double.NaN);
+        doReturn(metrics).when(kafkaTemplate).metrics();
+
+        // When
+        admissionControl.sampleProducerMetrics();
+
+        // Then
+        ProducerOverloadedException exception = assertThrows(ProducerOverloadedException.class, admissionControl::acquire);
+        assertEquals(ProducerOverloadReason.BUFFER_EXHAUSTED, exception.getReason());
+        assertEquals(0, admissionControl.inFlight());
+        assertLog(Level.WARN, "Producer admission changed from HEALTHY to BUFFER_EXHAUSTED");
+    }
+
+    @Test
+    void sampleProducerMetrics_ShedsWhileBrokerIsSlowAndRecovers() {
+        // Given
+        ProducerAdmissionControl admissionControl = admissionControl();
+        Map<MetricName, Metric> slow = producerMetrics(100_000, 100_000, 1_500);
+        Map<MetricName, Metric> recovered = producerMetrics(100_000, 100_000, 20);
+        doReturn(slow, recovered).when(kafkaTemplate).metrics();
+
+        // When
+        admissionControl.sampleProducerMetrics();
+
+        // Then
+        ProducerOverloadedException exception = assertThrows(ProducerOverloadedException.class, admissionControl::acquire);
+        assertEquals(ProducerOverloadReason.BROKER_LATENCY, exception.getReason());
+
+        // When the latency drops again
+        admissionControl.sampleProducerMetrics();
+
+        // Then
+        assertDoesNotThrow(admissionControl::acquire);
+        assertLog(Level.WARN, "Producer admission changed from BROKER_LATENCY to HEALTHY");
+    }
+
+    private ProducerAdmissionControl admissionControl() {
+        return new ProducerAdmissionControl(kafkaTemplate, properties, meterRegistry);
+    }
+
+    private static Map<MetricName, Metric> producerMetrics(double bufferAvailable, double bufferTotal, double requestLatency) {
+        Map<MetricName, Metric> metrics = new HashMap<>();
+        metrics.put(metricName("buffer-available-bytes"), metric(bufferAvailable));
+        metrics.put(metricName("buffer-total-bytes"), metric(bufferTotal));
+        metrics.put(metricName("request-latency-avg"), metric(requestLatency));
+        return metrics;
+    }
+
+    private static MetricName metricName(String name) {
+        return new MetricName(name, "producer-metrics", "", Map.of());
+    }
+
+    private static Metric metric(double value) {
+        Metric metric = mock(Metric.class);
+        when(metric.metricValue()).thenReturn(value);
+        return metric;
+    }
+}
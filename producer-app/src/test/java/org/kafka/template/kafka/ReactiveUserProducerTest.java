@@ -0,0 +1,90 @@
+package org.kafka.template.kafka;
+
+import ch.qos.logback.classic.Level;
+import org.apache.kafka.common.errors.SerializationException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.models.User;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.reactivestreams.Publisher;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Flux;
+import reactor.kafka.sender.KafkaSender;
+import reactor.kafka.sender.SenderRecord;
+import reactor.test.StepVerifier;
+import reactor.util.function.Tuples;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.kafka.template.creators.SenderResultCreator.senderResult;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveUserProducerTest extends BaseLogTest {
+
+    @Mock
+    private KafkaSender<String, Object> kafkaSender;
+
+    private ReactiveUserProducer reactiveUserProducer;
+
+    @BeforeEach
+    void setUp() {
+        reactiveUserProducer = new ReactiveUserProducer(kafkaSender);
+        ReflectionTestUtils.setField(reactiveUserProducer, "userCreatedTopic", "user-created-topic");
+        setUpLogger(ReactiveUserProducer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendUsers_CorrelatesEveryRecordWithItsIndex() {
+        // Given
+        User first = User.builder().id(1).name("John Doe").build();
+        User second = User.builder().id(2).name("Jane Doe").build();
+        ArgumentCaptor<Publisher<SenderRecord<String, Object, Long>>> recordsCaptor = ArgumentCaptor.forClass(Publisher.class);
+        when(kafkaSender.<Long>send(any())).thenAnswer(invocation -> Flux.from(invocation.<Publisher<SenderRecord<String, Object, Long>>>getArgument(0))
+                .map(record -> senderResult(record.correlationMetadata(), null)));
+
+        // When & Then
+        StepVerifier.create(reactiveUserProducer.sendUsers(Flux.just(Tuples.of(0L, first), Tuples.of(1L, second))))
+                .assertNext(result -> assertEquals(0L, result.correlationMetadata()))
+                .assertNext(result -> assertEquals(1L, result.correlationMetadata()))
+                .verifyComplete();
+
+        verify(kafkaSender).send(recordsCaptor.capture());
+        List<SenderRecord<String, Object, Long>> records = Flux.from(recordsCaptor.getValue()).collectList().block();
+        assertNotNull(records);
+        assertEquals("user-created-topic", records.get(0).topic());
+        assertEquals(first, records.get(0).value());
+        assertEquals("1", records.get(0).key());
+        assertEquals(second, records.get(1).value());
+    }
+
+    @Test
+    void sendUsers_KeepsGoingAfterAFailedRecord() {
+        // Given
+        when(kafkaSender.<Long>send(any())).thenAnswer(invocation -> Flux.from(invocation.<Publisher<SenderRecord<String, Object, Long>>>getArgument(0))
+                .map(record -> senderResult(record.correlationMetadata(),
+                        record.correlationMetadata() == 0L ? new SerializationException("Error serializing JSON message") : null)));
+
+        // When & Then
+        StepVerifier.create(reactiveUserProducer.sendUsers(Flux.just(
+                        Tuples.of(0L, new User()), Tuples.of(1L, User.builder().id(2).name("Jane Doe").build()))))
+                .assertNext(result -> assertInstanceOf(SerializationException.class, result.exception()))
+                .assertNext(result -> assertNull(result.exception()))
+                .verifyComplete();
+
+        assertLog(Level.ERROR, "Failed to send user at index 0: Error serializing JSON message");
+    }
+}
@@ -2,19 +2,29 @@ package org.kafka.template.kafka;
 
 import org.apache.kafka.clients.producer.ProducerRecord;
 import org.junit.jupiter.api.AfterEach;
+import org.apache.kafka.common.errors.RecordTooLargeException;
 import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.errors.TimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.kafka.template.base.*;
+import org.kafka.template.enums.ProducerOverloadReason;
+import org.kafka.template.exceptions.ProducerOverloadedException;
+import org.kafka.template.exceptions.SpoolFullException;
 import org.kafka.template.models.User;
+import org.kafka.template.spool.UserSpool;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaOperations;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiConsumer;
 import ch.qos.logback.classic.Level;
 
@@ -37,12 +47,18 @@ class UserProducerTest extends BaseLogTest {
     @Mock
     private ProducerRecord<String, Object> producerRecord;
 
+    @Mock
+    private ProducerAdmissionControl admissionControl;
+
+    @Mock
+    private UserSpool userSpool;
+
     private UserProducer userProducer;
     private User testUser;
 
     @BeforeEach
     void setUp() {
-        userProducer = new UserProducer(kafkaTemplate);
+        userProducer = new UserProducer(kafkaTemplate, admissionControl, null, false);
         // Set the topic value using reflection (simulating @Value injection)
         ReflectionTestUtils.setField(userProducer, "userCreatedTopic", "user-created-topic");
 
@@ -119,6 +135,37 @@ class UserProducerTest extends BaseLogTest {
         verify(kafkaTemplate).send(eq("user-created-topic"), anyString(), eq(testUser));
         assertLog(Level.INFO, "Sent user: " + testUser);
         assertLog(Level.ERROR, "Failed to send user: Kafka send failed");
+        verify(admissionControl).release(anyLong(), eq(true));
+    }
+
+    @Test
+    void sendUser_ReleasesAdmissionOnAck() {
+        // Given
+        CompletableFuture<SendResult<String, Object>> sendFuture = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(sendFuture);
+        when(sendResult.getProducerRecord()).thenReturn(producerRecord);
+
+        // When
+        userProducer.sendUser(testUser);
+
+        // Then the send only counts as in flight until the broker answers
+        verify(admissionControl).acquire();
+        verify(admissionControl, never()).release(anyLong(), anyBoolean());
+        sendFuture.complete(sendResult);
+        verify(admissionControl).release(anyLong(), eq(false));
+    }
+
+    @Test
+    void sendUser_ShedByAdmissionControl() {
+        // Given
+        doThrow(new ProducerOverloadedException(ProducerOverloadReason.BUFFER_EXHAUSTED, 1)).when(admissionControl).acquire();
+
+        // When & Then
+        ProducerOverloadedException exception = assertThrows(ProducerOverloadedException.class, () -> userProducer.sendUser(testUser));
+
+        assertEquals(ProducerOverloadReason.BUFFER_EXHAUSTED, exception.getReason());
+        verifyNoInteractions(kafkaTemplate);
+        verify(admissionControl, never()).release(anyLong(), anyBoolean());
     }
 
     @Test
@@ -136,18 +183,19 @@ class UserProducerTest extends BaseLogTest {
         assertTrue(exception.getCause() instanceof SerializationException);
         verify(kafkaTemplate).send(eq("user-created-topic"), anyString(), eq(testUser));
         assertLog(Level.ERROR, "Schema validation failed: Schema validation failed");
+        verify(admissionControl).release(anyLong(), eq(false));
     }
 
     @Test
     void sendUser_WithNullUser() {
         // Given
-        when(kafkaTemplate.send(anyString(), anyString(), isNull())).thenReturn(completableFuture);
+        when(kafkaTemplate.send(anyString(), isNull(), isNull())).thenReturn(completableFuture);
 
         // When
         assertDoesNotThrow(() -> userProducer.sendUser(null));
 
         // Then
-        verify(kafkaTemplate).send(eq("user-created-topic"), anyString(), isNull());
+        verify(kafkaTemplate).send(eq("user-created-topic"), isNull(), isNull());
         verify(completableFuture).whenComplete(any());
         assertLog(Level.INFO, "Sent user: null");
     }
@@ -165,24 +213,203 @@ class UserProducerTest extends BaseLogTest {
 
         assertEquals("Unexpected error", exception.getMessage());
         verify(kafkaTemplate).send(eq("user-created-topic"), anyString(), eq(testUser));
+        verify(admissionControl).release(anyLong(), eq(true));
         // This will not produce the schema validation log, just the exception
     }
 
     @Test
-    void sendUser_VerifyUUIDKeyGeneration() {
+    void sendUser_KeysRecordByUserId() {
         // Given
         when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(completableFuture);
 
         // When
         assertDoesNotThrow(() -> userProducer.sendUser(testUser));
 
-        // Then
+        // Then every event of the same user gets the same key, and so the same partition
         ArgumentCaptor<String> keyCaptor = ArgumentCaptor.forClass(String.class);
         verify(kafkaTemplate).send(eq("user-created-topic"), keyCaptor.capture(), eq(testUser));
 
-        String capturedKey = keyCaptor.getValue();
-        assertNotNull(capturedKey);
-        // Verify it's a valid UUID format (basic regex check)
-        assertTrue(capturedKey.matches("^[0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12}$"));
+        assertEquals("1", keyCaptor.getValue());
+    }
+
+    @Test
+    void sendUser_WithVirtualThreads_RunsCallbackOffTheProducerThread() {
+        // Given
+        UserProducer virtualThreadProducer = new UserProducer(kafkaTemplate, admissionControl, null, true);
+        ReflectionTestUtils.setField(virtualThreadProducer, "userCreatedTopic", "user-created-topic");
+        CompletableFuture<SendResult<String, Object>> sendFuture = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(sendFuture);
+        when(sendResult.getProducerRecord()).thenReturn(producerRecord);
+        // Read by the callback, so it tells which thread the callback ran on
+        AtomicReference<Thread> callbackThread = new AtomicReference<>();
+        when(producerRecord.key()).thenAnswer(invocation -> {
+            callbackThread.set(Thread.currentThread());
+            return "test-key";
+        });
+        when(producerRecord.value()).thenReturn(testUser);
+
+        // When the broker acknowledges on the test thread, standing in for the producer I/O thread
+        CompletableFuture<SendResult<String, Object>> future = virtualThreadProducer.sendUser(testUser);
+        sendFuture.complete(sendResult);
+
+        // Then
+        assertSame(sendResult, future.join());
+        assertNotSame(Thread.currentThread(), callbackThread.get());
+        assertTrue(callbackThread.get().isVirtual());
+        assertTrue(callbackThread.get().getName().startsWith("kafka-send-callback-"), callbackThread.get().getName());
+        assertLog(Level.INFO, "User sent successfully with key: test-key and value: " + testUser);
+    }
+
+    @Test
+    void publishUser_WithoutSpool_SendsRightAway() {
+        // Given
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(completableFuture);
+
+        // When
+        userProducer.publishUser(testUser);
+
+        // Then
+        verify(kafkaTemplate).send(eq("user-created-topic"), eq("1"), eq(testUser));
+    }
+
+    @Test
+    void publishBatchUser_WaitsForAdmission() {
+        // Given
+        ReflectionTestUtils.setField(userProducer, "batchWaitMs", 5000L);
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(completableFuture);
+
+        // When
+        userProducer.publishBatchUser(testUser);
+
+        // Then
+        verify(admissionControl).acquire(5000L);
+        verify(admissionControl, never()).acquire();
+        verify(kafkaTemplate).send(eq("user-created-topic"), eq("1"), eq(testUser));
+    }
+
+    @Test
+    void publishUser_WithStrictSpool_OnlyAppendsToSpool() {
+        // Given
+        UserProducer spoolingProducer = new UserProducer(kafkaTemplate, admissionControl, userSpool, false);
+        when(userSpool.isStrict()).thenReturn(true);
+
+        // When
+        spoolingProducer.publishUser(testUser);
+
+        // Then the drainer delivers it
+        verify(userSpool).append(testUser);
+        verifyNoInteractions(kafkaTemplate, admissionControl);
+        assertLog(Level.INFO, "Spooled user: " + testUser);
+    }
+
+    @Test
+    void sendUser_WithSpool_SpoolsUserAfterRetriableFailure() {
+        // Given
+        UserProducer spoolingProducer = new UserProducer(kafkaTemplate, admissionControl, userSpool, false);
+        ReflectionTestUtils.setField(spoolingProducer, "userCreatedTopic", "user-created-topic");
+        CompletableFuture<SendResult<String, Object>> sendFuture = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(sendFuture);
+
+        // When
+        spoolingProducer.sendUser(testUser);
+        sendFuture.completeExceptionally(new KafkaException("Send failed", new TimeoutException("Expiring 1 record(s)")));
+        spoolingProducer.close();
+
+        // Then the append ran off the thread that completed the send
+        verify(userSpool).append(testUser);
+        assertLog(Level.INFO, "Spooled user after failed send: " + testUser);
+    }
+
+    @Test
+    void sendUser_WithSpool_SpoolsUserWhenSendTimesOutSynchronously() {
+        // Given
+        UserProducer spoolingProducer = new UserProducer(kafkaTemplate, admissionControl, userSpool, false);
+        ReflectionTestUtils.setField(spoolingProducer, "userCreatedTopic", "user-created-topic");
+        TimeoutException timeout = new TimeoutException("Topic user-created-topic not present in metadata after 60000 ms.");
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenThrow(new KafkaException("Send failed", timeout));
+
+        // When
+        CompletableFuture<SendResult<String, Object>> future = spoolingProducer.sendUser(testUser);
+
+        // Then
+        assertTrue(future.isCompletedExceptionally());
+        verify(userSpool).append(testUser);
+        verify(admissionControl).release(anyLong(), eq(true));
+        assertLog(Level.INFO, "Spooled user after failed send: " + testUser);
+    }
+
+    @Test
+    void publishUser_WithSpool_DoesNotThrowOnceSynchronousRetriableFailureIsSpooled() {
+        // Given
+        UserProducer spoolingProducer = new UserProducer(kafkaTemplate, admissionControl, userSpool, false);
+        ReflectionTestUtils.setField(spoolingProducer, "userCreatedTopic", "user-created-topic");
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class)))
+                .thenThrow(new TimeoutException("Failed to allocate memory within the configured max blocking time 60000 ms."));
+
+        // When & Then
+        assertDoesNotThrow(() -> spoolingProducer.publishUser(testUser));
+        verify(userSpool).append(testUser);
+    }
+
+    @Test
+    void sendUser_WithSpool_DoesNotSpoolPermanentFailure() {
+        // Given
+        UserProducer spoolingProducer = new UserProducer(kafkaTemplate, admissionControl, userSpool, false);
+        ReflectionTestUtils.setField(spoolingProducer, "userCreatedTopic", "user-created-topic");
+        CompletableFuture<SendResult<String, Object>> sendFuture = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(sendFuture);
+
+        // When
+        spoolingProducer.sendUser(testUser);
+        sendFuture.completeExceptionally(new KafkaException("Send failed", new RecordTooLargeException("Too large")));
+        spoolingProducer.close();
+
+        // Then
+        verify(userSpool, never()).append(any());
+    }
+
+    @Test
+    void sendUser_WithFullSpool_LogsLostUser() {
+        // Given
+        UserProducer spoolingProducer = new UserProducer(kafkaTemplate, admissionControl, userSpool, false);
+        ReflectionTestUtils.setField(spoolingProducer, "userCreatedTopic", "user-created-topic");
+        CompletableFuture<SendResult<String, Object>> sendFuture = new CompletableFuture<>();
+        when(kafkaTemplate.send(anyString(), anyString(), any(User.class))).thenReturn(sendFuture);
+        doThrow(new SpoolFullException("Spool is full")).when(userSpool).append(testUser);
+
+        // When
+        spoolingProducer.sendUser(testUser);
+        sendFuture.completeExceptionally(new KafkaException("Send failed", new TimeoutException("Expiring 1 record(s)")));
+        spoolingProducer.close();
+
+        // Then
+        assertLog(Level.ERROR, "User could not be spooled and is lost: Spool is full");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void sendUsersAtomically_SendsAllUsersInOneTransaction() {
+        // Given
+        User secondUser = User.builder().id(2).name("Jane Doe").build();
+        KafkaOperations<String, Object> operations = mock(KafkaOperations.class);
+        when(kafkaTemplate.executeInTransaction(any())).thenAnswer(invocation ->
+                invocation.<KafkaOperations.OperationsCallback<String, Object, Object>>getArgument(0).doInOperations(operations));
+
+        // When
+        userProducer.sendUsersAtomically(List.of(testUser, secondUser));
+
+        // Then
+        verify(operations).send("user-created-topic", "1", testUser);
+        verify(operations).send("user-created-topic", "2", secondUser);
+        assertLog(Level.INFO, "Sent 2 users in one transaction");
+    }
+
+    @Test
+    void isTransactional_FollowsTemplate() {
+        // Given
+        when(kafkaTemplate.isTransactional()).thenReturn(true);
+
+        // When & Then
+        assertTrue(userProducer.isTransactional());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,104 @@
+package org.kafka.template.kafka;
+
+import org.apache.kafka.clients.admin.Admin;
+import org.apache.kafka.clients.admin.CreatePartitionsOptions;
+import org.apache.kafka.clients.admin.CreatePartitionsResult;
+import org.apache.kafka.clients.admin.DescribeTopicsResult;
+import org.apache.kafka.clients.admin.NewPartitions;
+import org.apache.kafka.clients.admin.TopicDescription;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.Node;
+import org.apache.kafka.common.TopicPartitionInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserTopicPartitionExpanderTest {
+
+    @Mock
+    private Admin admin;
+
+    @Mock
+    private DescribeTopicsResult describeTopicsResult;
+
+    @Mock
+    private CreatePartitionsResult createPartitionsResult;
+
+    private UserTopicPartitionExpander expander;
+
+    @BeforeEach
+    void setUp() {
+        expander = new UserTopicPartitionExpander(() -> admin);
+        ReflectionTestUtils.setField(expander, "userCreatedTopic", "user-created");
+    }
+
+    @Test
+    void partitions_ReportsCurrentPartitionCount() throws Exception {
+        givenTopicWithPartitions(3);
+
+        assertEquals(Map.of("topic", "user-created", "partitions", 3), expander.partitions());
+        verify(admin).close();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void expand_ValidatesBeforeAddingPartitions() throws Exception {
+        givenTopicWithPartitions(3);
+        when(admin.createPartitions(anyMap(), any(CreatePartitionsOptions.class))).thenReturn(createPartitionsResult);
+        when(admin.createPartitions(anyMap())).thenReturn(createPartitionsResult);
+        when(createPartitionsResult.all()).thenReturn(KafkaFuture.completedFuture(null));
+
+        Map<String, Object> result = expander.expand(12);
+
+        ArgumentCaptor<CreatePartitionsOptions> options = ArgumentCaptor.forClass(CreatePartitionsOptions.class);
+        ArgumentCaptor<Map<String, NewPartitions>> request = ArgumentCaptor.forClass(Map.class);
+        var inOrder = inOrder(admin);
+        inOrder.verify(admin).createPartitions(anyMap(), options.capture());
+        inOrder.verify(admin).createPartitions(request.capture());
+        assertTrue(options.getValue().validateOnly());
+        assertEquals(12, request.getValue().get("user-created").totalCount());
+        assertEquals(3, result.get("previousPartitions"));
+        assertEquals(12, result.get("partitions"));
+    }
+
+    @Test
+    void expand_IsNoOpWhenTopicAlreadyHasThePartitions() throws Exception {
+        givenTopicWithPartitions(6);
+
+        expander.expand(6);
+
+        verify(admin, never()).createPartitions(anyMap());
+    }
+
+    @Test
+    void expand_RefusesToShrinkTheTopic() {
+        givenTopicWithPartitions(6);
+
+        assertThrows(InvalidEndpointRequestException.class, () -> expander.expand(2));
+        verify(admin, never()).createPartitions(anyMap());
+    }
+
+    private void givenTopicWithPartitions(int partitions) {
+        Node node = new Node(0, "localhost", 9092);
+        List<TopicPartitionInfo> partitionInfos = IntStream.range(0, partitions)
+                .mapToObj(partition -> new TopicPartitionInfo(partition, node, List.of(node), List.of(node)))
+                .toList();
+        when(admin.describeTopics(List.of("user-created"))).thenReturn(describeTopicsResult);
+        when(describeTopicsResult.allTopicNames()).thenReturn(KafkaFuture.completedFuture(
+                Map.of("user-created", new TopicDescription("user-created", false, partitionInfos))));
+    }
+}
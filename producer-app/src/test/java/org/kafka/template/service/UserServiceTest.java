@@ -1,28 +1,45 @@
 package org.kafka.template.service;
 
 import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.apache.kafka.clients.producer.ProducerRecord;
-import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.AdmissionControlProperties;
 import org.kafka.template.dtos.GenericResponseDto;
+import org.kafka.template.dtos.UserBatchResponseDto;
 import org.kafka.template.dtos.UserCreatedRequestDto;
 import org.kafka.template.dtos.UserCreatedResponseDto;
 import org.kafka.template.enums.GenericResponseStatus;
+import org.kafka.template.exceptions.InvalidUserException;
+import org.kafka.template.kafka.ProducerAdmissionControl;
 import org.kafka.template.kafka.UserProducer;
 import org.kafka.template.mapper.UserMapper;
 import org.kafka.template.models.User;
+import org.kafka.template.utils.UserSchemaValidator;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.test.util.ReflectionTestUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.BiConsumer;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -38,11 +55,18 @@ class UserServiceTest extends BaseLogTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private UserSchemaValidator userSchemaValidator;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
     private UserService userService;
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userProducer, userMapper);
+        userService = new UserService(userProducer, userMapper, userSchemaValidator, new ObjectMapper());
+        ReflectionTestUtils.setField(userService, "deliveryTimeoutMs", 200L);
     }
 
     @Test
@@ -62,11 +86,256 @@ class UserServiceTest extends BaseLogTest {
 
         // then
         verify(userMapper).toJsonSchema(requestDto);
-        verify(userProducer).sendUser(user);
+        verify(userProducer).publishUser(user);
         verify(userMapper).toUserCreatedResponseDto(user);
 
         assertNotNull(result);
         assertEquals(GenericResponseStatus.SUCCESS, result.getStatus());
         assertEquals(responseDto, result.getData());
     }
-}
\ No newline at end of file
+
+    @Test
+    void sendUser_shouldRejectInvalidUserBeforeSending() {
+        // given
+        UserCreatedRequestDto requestDto = UserCreatedRequestDto.builder().build();
+        User user = User.builder().id(1).build();
+
+        when(userMapper.toJsonSchema(requestDto)).thenReturn(user);
+        doThrow(new InvalidUserException(List.of("#/name: expected type: String, found: Null")))
+                .when(userSchemaValidator).validate(user);
+
+        // when
+        InvalidUserException exception = assertThrows(InvalidUserException.class, () -> userService.sendUser(requestDto));
+
+        // then
+        assertEquals(List.of("#/name: expected type: String, found: Null"), exception.getViolations());
+        verifyNoInteractions(userProducer);
+    }
+
+    @Test
+    void sendUsers_shouldStreamNdjsonAndSendEveryRecord() throws IOException {
+        // given
+        User user = new User();
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class))).thenReturn(user);
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = userService.sendUsers(body("""
+                {"id":1,"name":"John Doe"}
+                {"id":2,"name":"Jane Doe","age":30}
+                """));
+
+        // then
+        verify(userProducer, times(2)).publishBatchUser(user);
+        assertEquals(GenericResponseStatus.SUCCESS, result.getStatus());
+        assertEquals(2, result.getData().getReceived());
+        assertEquals(2, result.getData().getAccepted());
+        assertEquals(0, result.getData().getRejected());
+        assertTrue(result.getData().getRejections().isEmpty());
+    }
+
+    @Test
+    void sendUsers_shouldUnwrapJsonArray() throws IOException {
+        // given
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class))).thenReturn(new User());
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = userService.sendUsers(body("""
+                [{"id":1,"name":"John Doe"},{"id":2,"name":"Jane Doe"},{"id":3,"name":"Jim Doe"}]
+                """));
+
+        // then
+        verify(userProducer, times(3)).publishBatchUser(any(User.class));
+        assertEquals(3, result.getData().getAccepted());
+        assertEquals(GenericResponseStatus.SUCCESS, result.getStatus());
+    }
+
+    @Test
+    void sendUsers_shouldRejectBadRecordsAndKeepGoing() throws IOException {
+        // given
+        User invalidUser = User.builder().id(2).build();
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class)))
+                .thenReturn(new User(), invalidUser, new User());
+        lenient().doThrow(new InvalidUserException(List.of("#/name: expected type: String, found: Null")))
+                .when(userSchemaValidator).validate(invalidUser);
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = userService.sendUsers(body("""
+                {"id":1,"name":"John Doe"}
+                {"id":"not-a-number","name":"Broken"}
+                {"id":2}
+                {"id":3,"name":"Jim Doe"}
+                """));
+
+        // then
+        assertEquals(GenericResponseStatus.PARTIAL_SUCCESS, result.getStatus());
+        assertEquals(4, result.getData().getReceived());
+        assertEquals(2, result.getData().getAccepted());
+        assertEquals(2, result.getData().getRejected());
+        assertEquals(1, result.getData().getRejections().get(0).getIndex());
+        assertEquals(2, result.getData().getRejections().get(1).getIndex());
+        assertTrue(result.getData().getRejections().get(1).getError().contains("expected type: String"));
+        verify(userProducer, never()).publishBatchUser(invalidUser);
+    }
+
+    @Test
+    void sendUsers_shouldStopOnMalformedJson() throws IOException {
+        // given
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class))).thenReturn(new User());
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = userService.sendUsers(body("""
+                {"id":1,"name":"John Doe"}
+                {"id":2,"name":
+                """));
+
+        // then
+        verify(userProducer, times(1)).publishBatchUser(any(User.class));
+        assertEquals(GenericResponseStatus.PARTIAL_SUCCESS, result.getStatus());
+        assertEquals(2, result.getData().getReceived());
+        assertEquals(1, result.getData().getRejections().get(0).getIndex());
+    }
+
+    @Test
+    void sendUsers_batchLargerThanTheConcurrencyLimit_shouldWaitForAcksAndComplete() throws IOException {
+        // given a producer that admits two sends at a time, acknowledged shortly after they are sent
+        AdmissionControlProperties properties = new AdmissionControlProperties();
+        properties.setInitialLimit(2);
+        properties.setMaxLimit(2);
+        ProducerAdmissionControl admissionControl = new ProducerAdmissionControl(kafkaTemplate, properties, new SimpleMeterRegistry());
+        UserProducer producer = new UserProducer(kafkaTemplate, admissionControl, null, false);
+        ReflectionTestUtils.setField(producer, "userCreatedTopic", "user-created");
+        ReflectionTestUtils.setField(producer, "batchWaitMs", 5000L);
+        UserService service = new UserService(producer, userMapper, userSchemaValidator, new ObjectMapper());
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class))).thenAnswer(invocation -> user(1));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenAnswer(invocation -> CompletableFuture.supplyAsync(
+                () -> sendResult(invocation.getArgument(2)), CompletableFuture.delayedExecutor(10, TimeUnit.MILLISECONDS)));
+
+        StringBuilder records = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            records.append("{\"id\":1,\"name\":\"User 1\"}\n");
+        }
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = service.sendUsers(body(records.toString()));
+
+        // then
+        verify(kafkaTemplate, times(10)).send(anyString(), anyString(), any());
+        assertEquals(GenericResponseStatus.SUCCESS, result.getStatus());
+        assertEquals(10, result.getData().getAccepted());
+        assertEquals(0, result.getData().getRejected());
+    }
+
+    private static SendResult<String, Object> sendResult(Object value) {
+        return new SendResult<>(new ProducerRecord<>("user-created", "1", value),
+                new RecordMetadata(new TopicPartition("user-created", 0), 0L, 0, 0L, 0, 0));
+    }
+
+    @Test
+    void sendUsers_withTransactionalProducer_shouldCommitChunksAtomically() throws IOException {
+        // given
+        ReflectionTestUtils.setField(userService, "transactionChunkSize", 2);
+        User invalidUser = User.builder().id(2).build();
+        when(userProducer.isTransactional()).thenReturn(true);
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class)))
+                .thenReturn(user(1), invalidUser, user(3), user(4), user(5));
+        lenient().doThrow(new InvalidUserException(List.of("#/name: expected type: String, found: Null")))
+                .when(userSchemaValidator).validate(invalidUser);
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = userService.sendUsers(body("""
+                {"id":1,"name":"User 1"}
+                {"id":2}
+                {"id":3,"name":"User 3"}
+                {"id":4,"name":"User 4"}
+                {"id":5,"name":"User 5"}
+                """));
+
+        // then invalid users never join a chunk, and the last chunk is committed at the end of the body
+        verify(userProducer).sendUsersAtomically(List.of(user(1), user(3)));
+        verify(userProducer).sendUsersAtomically(List.of(user(4), user(5)));
+        verify(userProducer, never()).publishBatchUser(any());
+        assertEquals(GenericResponseStatus.PARTIAL_SUCCESS, result.getStatus());
+        assertEquals(5, result.getData().getReceived());
+        assertEquals(4, result.getData().getAccepted());
+        assertEquals(1, result.getData().getRejections().get(0).getIndex());
+    }
+
+    @Test
+    void sendUsers_withTransactionalProducer_shouldRejectWholeChunkWhenTransactionAborts() throws IOException {
+        // given
+        ReflectionTestUtils.setField(userService, "transactionChunkSize", 2);
+        when(userProducer.isTransactional()).thenReturn(true);
+        when(userMapper.toJsonSchema(any(UserCreatedRequestDto.class))).thenReturn(user(1), user(2), user(3));
+        lenient().doThrow(new KafkaException("Transaction aborted"))
+                .when(userProducer).sendUsersAtomically(List.of(user(1), user(2)));
+
+        // when
+        GenericResponseDto<UserBatchResponseDto> result = userService.sendUsers(body("""
+                {"id":1,"name":"User 1"}
+                {"id":2,"name":"User 2"}
+                {"id":3,"name":"User 3"}
+                """));
+
+        // then
+        assertEquals(GenericResponseStatus.PARTIAL_SUCCESS, result.getStatus());
+        assertEquals(1, result.getData().getAccepted());
+        assertEquals(2, result.getData().getRejected());
+        assertEquals(0, result.getData().getRejections().get(0).getIndex());
+        assertEquals(1, result.getData().getRejections().get(1).getIndex());
+        assertTrue(result.getData().getRejections().get(0).getError().contains("Transaction aborted"));
+    }
+
+    private static User user(int id) {
+        return User.builder().id(id).name("User " + id).build();
+    }
+
+    private static InputStream body(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void sendUserConfirmed_shouldCompleteWithPartitionAndOffsetOnAck() throws Exception {
+        // given
+        UserCreatedRequestDto requestDto = UserCreatedRequestDto.builder().build();
+        User user = User.builder().id(1).name("John Doe").build();
+        UserCreatedResponseDto responseDto = UserCreatedResponseDto.builder().id(1).name("John Doe").build();
+        CompletableFuture<SendResult<String, Object>> sendFuture = new CompletableFuture<>();
+
+        when(userMapper.toJsonSchema(requestDto)).thenReturn(user);
+        when(userMapper.toUserCreatedResponseDto(user)).thenReturn(responseDto);
+        when(userProducer.sendUser(user)).thenReturn(sendFuture);
+
+        // when
+        CompletableFuture<GenericResponseDto<UserCreatedResponseDto>> result = userService.sendUserConfirmed(requestDto);
+
+        // then nothing is reported before the broker acknowledges
+        assertFalse(result.isDone());
+
+        sendFuture.complete(new SendResult<>(new ProducerRecord<>("user-created", "key", user),
+                new RecordMetadata(new TopicPartition("user-created", 2), 41L, 0, 0L, 0, 0)));
+
+        GenericResponseDto<UserCreatedResponseDto> response = result.get();
+        assertEquals(GenericResponseStatus.SUCCESS, response.getStatus());
+        assertEquals(1, response.getData().getId());
+        assertEquals(2, response.getData().getPartition());
+        assertEquals(41L, response.getData().getOffset());
+    }
+
+    @Test
+    void sendUserConfirmed_shouldFailWhenAckDoesNotArriveInTime() {
+        // given
+        UserCreatedRequestDto requestDto = UserCreatedRequestDto.builder().build();
+        User user = new User();
+
+        when(userMapper.toJsonSchema(requestDto)).thenReturn(user);
+        when(userMapper.toUserCreatedResponseDto(user)).thenReturn(UserCreatedResponseDto.builder().build());
+        when(userProducer.sendUser(user)).thenReturn(new CompletableFuture<>());
+
+        // when
+        CompletableFuture<GenericResponseDto<UserCreatedResponseDto>> result = userService.sendUserConfirmed(requestDto);
+
+        // then
+        ExecutionException exception = assertThrows(ExecutionException.class, result::get);
+        assertInstanceOf(TimeoutException.class, exception.getCause());
+    }
+}
@@ -0,0 +1,167 @@
+package org.kafka.template.spool;
+
+import ch.qos.logback.classic.Level;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.common.errors.RecordTooLargeException;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.config.SpoolProperties;
+import org.kafka.template.models.User;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSpoolDrainerTest extends BaseLogTest {
+
+    private static final User FIRST = User.builder().id(1).name("John Doe").build();
+    private static final User SECOND = User.builder().id(2).name("Jane Doe").build();
+    private static final User THIRD = User.builder().id(3).name("Jim Doe").build();
+
+    @Mock
+    private UserSpool userSpool;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private SendResult<String, Object> sendResult;
+
+    private MeterRegistry meterRegistry;
+    private UserSpoolDrainer userSpoolDrainer;
+    private List<SpooledUser> batch;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        SpoolProperties properties = new SpoolProperties();
+        properties.setDrainSendTimeoutMs(1000);
+        meterRegistry = new SimpleMeterRegistry();
+        userSpoolDrainer = new UserSpoolDrainer(userSpool, kafkaTemplate, properties, meterRegistry);
+        ReflectionTestUtils.setField(userSpoolDrainer, "userCreatedTopic", "user-created-topic");
+
+        batch = List.of(new SpooledUser(FIRST, 0, 10), new SpooledUser(SECOND, 0, 20), new SpooledUser(THIRD, 0, 30));
+        lenient().when(userSpool.poll(anyInt(), anyLong())).thenReturn(batch);
+        setUpLogger(UserSpoolDrainer.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void drainBatch_SendsInOrderAndCommitsWholeBatch() throws Exception {
+        // Given
+        when(kafkaTemplate.send(eq("user-created-topic"), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult));
+
+        // When
+        boolean drained = userSpoolDrainer.drainBatch();
+
+        // Then
+        assertTrue(drained);
+        var inOrder = inOrder(kafkaTemplate);
+        inOrder.verify(kafkaTemplate).send("user-created-topic", "1", FIRST);
+        inOrder.verify(kafkaTemplate).send("user-created-topic", "2", SECOND);
+        inOrder.verify(kafkaTemplate).send("user-created-topic", "3", THIRD);
+        verify(userSpool).commit(batch.get(2), 3);
+        assertEquals(3.0, meterRegistry.get("kafka.producer.spool.drained").counter().count());
+    }
+
+    @Test
+    void drainBatch_CommitsOnlyUpToFirstRetriableFailure() throws Exception {
+        // Given
+        when(kafkaTemplate.send(eq("user-created-topic"), anyString(), any())).thenReturn(
+                CompletableFuture.completedFuture(sendResult),
+                CompletableFuture.failedFuture(new KafkaException("Send failed", new TimeoutException("Expiring 1 record(s)"))),
+                CompletableFuture.completedFuture(sendResult));
+
+        // When
+        boolean drained = userSpoolDrainer.drainBatch();
+
+        // Then the second and third users stay spooled
+        assertFalse(drained);
+        verify(userSpool).commit(batch.get(0), 1);
+        assertEquals(1.0, meterRegistry.get("kafka.producer.spool.drained").counter().count());
+        assertLog(Level.WARN, "Spooled user could not be delivered, retrying later");
+    }
+
+    @Test
+    void drainBatch_DropsUserRejectedForGood() throws Exception {
+        // Given
+        when(kafkaTemplate.send(eq("user-created-topic"), anyString(), any())).thenReturn(
+                CompletableFuture.completedFuture(sendResult),
+                CompletableFuture.failedFuture(new KafkaException("Send failed", new RecordTooLargeException("Too large"))),
+                CompletableFuture.completedFuture(sendResult));
+
+        // When
+        boolean drained = userSpoolDrainer.drainBatch();
+
+        // Then
+        assertTrue(drained);
+        verify(userSpool).commit(batch.get(2), 3);
+        assertEquals(2.0, meterRegistry.get("kafka.producer.spool.drained").counter().count());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.spool.dropped").counter().count());
+    }
+
+    @Test
+    void drainBatch_StopsWhenSendBlocksOut() throws Exception {
+        // Given
+        when(kafkaTemplate.send(eq("user-created-topic"), anyString(), any()))
+                .thenReturn(CompletableFuture.completedFuture(sendResult))
+                .thenThrow(new KafkaException("Send failed", new TimeoutException("Topic not present in metadata")));
+
+        // When
+        boolean drained = userSpoolDrainer.drainBatch();
+
+        // Then
+        assertFalse(drained);
+        verify(kafkaTemplate, times(2)).send(anyString(), anyString(), any());
+        verify(userSpool).commit(batch.get(0), 1);
+        assertLog(Level.WARN, "Spooled user could not be sent: Send failed");
+    }
+
+    @Test
+    void drainBatch_SkipsUndecodableUsers() throws Exception {
+        // Given
+        List<SpooledUser> undecodable = List.of(new SpooledUser(null, 0, 10));
+        when(userSpool.poll(anyInt(), anyLong())).thenReturn(undecodable);
+
+        // When
+        boolean drained = userSpoolDrainer.drainBatch();
+
+        // Then
+        assertTrue(drained);
+        verifyNoInteractions(kafkaTemplate);
+        verify(userSpool).commit(undecodable.get(0), 1);
+    }
+
+    @Test
+    void startAndStop_RunDrainerThread() throws Exception {
+        // Given
+        when(userSpool.poll(anyInt(), anyLong())).thenReturn(List.of());
+
+        // When
+        userSpoolDrainer.start();
+
+        // Then
+        assertTrue(userSpoolDrainer.isRunning());
+        userSpoolDrainer.stop();
+        assertFalse(userSpoolDrainer.isRunning());
+    }
+}
@@ -0,0 +1,195 @@
+package org.kafka.template.spool;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.kafka.template.config.SpoolProperties;
+import org.kafka.template.enums.SpoolMode;
+import org.kafka.template.exceptions.SpoolFullException;
+import org.kafka.template.models.User;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSpoolTest {
+
+    @TempDir
+    private Path directory;
+
+    private SpoolProperties properties;
+    private MeterRegistry meterRegistry;
+    private UserSpool userSpool;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        properties = new SpoolProperties();
+        properties.setMode(SpoolMode.ON_FAILURE);
+        properties.setDirectory(directory.toString());
+        properties.setSegmentBytes(256);
+        properties.setMaxSegments(3);
+        userSpool = open();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        userSpool.close();
+    }
+
+    @Test
+    void poll_ReturnsUsersInAppendOrderUntilCommitted() throws Exception {
+        // Given
+        userSpool.append(user(1));
+        userSpool.append(user(2));
+        userSpool.append(user(3));
+
+        // When
+        List<SpooledUser> first = userSpool.poll(2, 0);
+        List<SpooledUser> again = userSpool.poll(2, 0);
+        userSpool.commit(first.get(1), 2);
+        List<SpooledUser> rest = userSpool.poll(10, 0);
+
+        // Then
+        assertEquals(List.of(user(1), user(2)), first.stream().map(SpooledUser::user).toList());
+        assertEquals(first, again);
+        assertEquals(List.of(user(3)), rest.stream().map(SpooledUser::user).toList());
+        assertEquals(1, userSpool.depth());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.spool.depth").gauge().value());
+        assertEquals(3.0, meterRegistry.get("kafka.producer.spool.appended").counter().count());
+    }
+
+    @Test
+    void append_ConcurrentAppendsShareForces() throws Exception {
+        // Given
+        properties.setSegmentBytes(64 * 1024);
+        userSpool.close();
+        userSpool = open();
+
+        // When
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int id = 1; id <= 100; id++) {
+                int userId = id;
+                executor.submit(() -> userSpool.append(user(userId)));
+            }
+        }
+
+        // Then every user is forced and visible to poll, with no more forces than appends
+        assertEquals(100, userSpool.poll(1000, 0).size());
+        double forces = meterRegistry.get("kafka.producer.spool.forces").counter().count();
+        assertTrue(forces >= 1 && forces <= 100);
+    }
+
+    @Test
+    void poll_ReturnsNothingWhenEmpty() throws Exception {
+        assertTrue(userSpool.poll(10, 1).isEmpty());
+    }
+
+    @Test
+    void open_ResumesAfterLastCommit() throws Exception {
+        // Given
+        userSpool.append(user(1));
+        userSpool.append(user(2));
+        userSpool.commit(userSpool.poll(1, 0).get(0), 1);
+        userSpool.close();
+
+        // When
+        userSpool = open();
+
+        // Then
+        assertEquals(1, userSpool.depth());
+        assertEquals(List.of(user(2)), userSpool.poll(10, 0).stream().map(SpooledUser::user).toList());
+
+        userSpool.append(user(3));
+        assertEquals(List.of(user(2), user(3)), userSpool.poll(10, 0).stream().map(SpooledUser::user).toList());
+    }
+
+    @Test
+    void append_RollsOverSegmentsAndDeletesDrainedOnes() throws Exception {
+        // Given enough users to fill more than one segment
+        for (int id = 1; id <= 6; id++) {
+            userSpool.append(user(id));
+        }
+        assertEquals(2, segmentFiles());
+
+        // When every user is drained
+        List<SpooledUser> batch = userSpool.poll(10, 0);
+        userSpool.commit(batch.get(batch.size() - 1), batch.size());
+
+        // Then
+        assertEquals(6, batch.size());
+        assertEquals(user(6), batch.get(5).user());
+        assertEquals(1, segmentFiles());
+        assertEquals(0, userSpool.depth());
+        assertEquals(256.0, meterRegistry.get("kafka.producer.spool.disk.bytes").gauge().value());
+    }
+
+    @Test
+    void append_FailsOnceDiskBoundIsReached() {
+        // When
+        SpoolFullException exception = assertThrows(SpoolFullException.class, () -> {
+            for (int id = 1; id <= 100; id++) {
+                userSpool.append(user(id));
+            }
+        });
+
+        // Then
+        assertTrue(exception.getMessage().startsWith("Spool is full"));
+        assertEquals(3, segmentFiles());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.spool.rejected").counter().count());
+    }
+
+    @Test
+    void open_DetectsTornRecordAndWritesOverIt() throws Exception {
+        // Given the payload of the second user is damaged on disk
+        userSpool.append(user(1));
+        userSpool.append(user(2));
+        userSpool.close();
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("user-spool-0.log").toFile(), "rw")) {
+            int secondPayload = 8 + new ObjectMapper().writeValueAsBytes(user(1)).length + 8;
+            file.seek(secondPayload);
+            file.write('X');
+        }
+
+        // When
+        userSpool = open();
+
+        // Then
+        assertEquals(1, userSpool.depth());
+        assertEquals(1.0, meterRegistry.get("kafka.producer.spool.corrupt").counter().count());
+        userSpool.append(user(3));
+        assertEquals(List.of(user(1), user(3)), userSpool.poll(10, 0).stream().map(SpooledUser::user).toList());
+    }
+
+    @Test
+    void isStrict_FollowsMode() throws IOException {
+        assertFalse(userSpool.isStrict());
+
+        properties.setMode(SpoolMode.STRICT);
+        assertTrue(userSpool.isStrict());
+    }
+
+    private UserSpool open() throws IOException {
+        meterRegistry = new SimpleMeterRegistry();
+        return new UserSpool(properties, new ObjectMapper(), meterRegistry);
+    }
+
+    private long segmentFiles() throws IOException {
+        try (var files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith(UserSpool.SEGMENT_PREFIX)).count();
+        }
+    }
+
+    private static User user(int id) {
+        return User.builder().id(id).name("User " + id).build();
+    }
+}
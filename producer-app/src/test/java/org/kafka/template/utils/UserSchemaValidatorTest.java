@@ -0,0 +1,137 @@
+package org.kafka.template.utils;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.confluent.kafka.schemaregistry.client.SchemaMetadata;
+import io.confluent.kafka.schemaregistry.client.SchemaRegistryClient;
+import io.confluent.kafka.schemaregistry.client.rest.exceptions.RestClientException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.kafka.template.base.BaseLogTest;
+import org.kafka.template.exceptions.InvalidUserException;
+import org.kafka.template.models.User;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSchemaValidatorTest extends BaseLogTest {
+
+    private static final String SUBJECT = "user-created-topic-value";
+
+    private static final String NAME_REQUIRED_SCHEMA = """
+            {"type":"object","properties":{"id":{"type":"integer"},"name":{"type":"string"}},"required":["id","name"]}
+            """;
+
+    private static final String EMAIL_REQUIRED_SCHEMA = """
+            {"type":"object","properties":{"id":{"type":"integer"},"email":{"type":"string"}},"required":["id","email"]}
+            """;
+
+    @Mock
+    private SchemaRegistryClient schemaRegistryClient;
+
+    private UserSchemaValidator userSchemaValidator;
+
+    @BeforeEach
+    void setUp() {
+        userSchemaValidator = new UserSchemaValidator(schemaRegistryClient, new ObjectMapper());
+        ReflectionTestUtils.setField(userSchemaValidator, "userCreatedTopic", "user-created-topic");
+        setUpLogger(UserSchemaValidator.class);
+    }
+
+    @AfterEach
+    void tearDown() {
+        tearDownLogger();
+    }
+
+    @Test
+    void load_CompilesLatestRegistryVersion() throws Exception {
+        // Given
+        when(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT)).thenReturn(new SchemaMetadata(7, 3, NAME_REQUIRED_SCHEMA));
+
+        // When
+        userSchemaValidator.load();
+
+        // Then
+        assertEquals(3, userSchemaValidator.version());
+        assertDoesNotThrow(() -> userSchemaValidator.validate(User.builder().id(1).name("John Doe").build()));
+    }
+
+    @Test
+    void load_FallsBackToBundledSchemaWhenRegistryIsUnavailable() throws Exception {
+        // Given
+        when(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT)).thenThrow(new IOException("Connection refused"));
+
+        // When
+        userSchemaValidator.load();
+
+        // Then
+        assertEquals(UserSchemaValidator.BUNDLED_VERSION, userSchemaValidator.version());
+        assertLog(Level.WARN, "Could not fetch the latest user schema from the registry: Connection refused");
+        assertDoesNotThrow(() -> userSchemaValidator.validate(User.builder().id(1).name("John Doe").build()));
+    }
+
+    @Test
+    void validate_ListsViolationsWithoutStackTrace() throws Exception {
+        // Given
+        when(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT)).thenThrow(new RestClientException("Subject not found", 404, 40401));
+        userSchemaValidator.load();
+
+        // When
+        InvalidUserException exception = assertThrows(InvalidUserException.class,
+                () -> userSchemaValidator.validate(User.builder().id(1).build()));
+
+        // Then
+        assertEquals(1, exception.getViolations().size());
+        assertTrue(exception.getViolations().get(0).startsWith("#/name: expected type: String"));
+        assertEquals(0, exception.getStackTrace().length);
+    }
+
+    @Test
+    void refresh_RecompilesOnlyWhenVersionChanges() throws Exception {
+        // Given
+        User userWithoutEmail = User.builder().id(1).name("John Doe").build();
+        when(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT)).thenReturn(
+                new SchemaMetadata(7, 3, NAME_REQUIRED_SCHEMA),
+                new SchemaMetadata(7, 3, EMAIL_REQUIRED_SCHEMA),
+                new SchemaMetadata(8, 4, EMAIL_REQUIRED_SCHEMA));
+        userSchemaValidator.load();
+
+        // When the registry still reports version 3
+        userSchemaValidator.refresh();
+
+        // Then the compiled schema is kept
+        assertEquals(3, userSchemaValidator.version());
+        assertDoesNotThrow(() -> userSchemaValidator.validate(userWithoutEmail));
+
+        // When the registry reports version 4
+        userSchemaValidator.refresh();
+
+        // Then the new version is used
+        assertEquals(4, userSchemaValidator.version());
+        assertThrows(InvalidUserException.class, () -> userSchemaValidator.validate(userWithoutEmail));
+        assertLog(Level.INFO, "User schema changed from version 3 to 4");
+    }
+
+    @Test
+    void refresh_KeepsCurrentSchemaWhenRegistryIsUnavailable() throws Exception {
+        // Given
+        when(schemaRegistryClient.getLatestSchemaMetadata(SUBJECT))
+                .thenReturn(new SchemaMetadata(7, 3, NAME_REQUIRED_SCHEMA))
+                .thenThrow(new IOException("Connection refused"));
+        userSchemaValidator.load();
+
+        // When
+        userSchemaValidator.refresh();
+
+        // Then
+        assertEquals(3, userSchemaValidator.version());
+    }
+}